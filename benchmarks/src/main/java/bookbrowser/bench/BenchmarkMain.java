@@ -0,0 +1,31 @@
+package bookbrowser.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the usual JMH command line, always adding the GC profiler so every result comes with
+ * its allocation rate and bytes allocated per operation (gc.alloc.rate.norm).
+ */
+public final class BenchmarkMain {
+    private BenchmarkMain() {
+    }
+
+    /**
+     * Runs the benchmarks selected on the command line, or all of them.
+     *
+     * @param args JMH options, for example a benchmark name pattern or {@code -p order=random}.
+     * @throws CommandLineOptionException if the options are not valid.
+     * @throws RunnerException if a benchmark fails.
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
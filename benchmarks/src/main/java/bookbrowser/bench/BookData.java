@@ -0,0 +1,70 @@
+package bookbrowser.bench;
+
+import bookbrowser.Book;
+import bookbrowser.BookLoader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Workloads drawn from the real data file: one column of every book, in random, sorted or reverse-sorted order.
+ */
+final class BookData {
+    private static final long SEED = 42;
+
+    private BookData() {
+    }
+
+    /**
+     * Parses every book in a data file.
+     *
+     * @param dataFile The path of the data file.
+     * @return The books, in file order.
+     * @throws IOException if the file cannot be read.
+     */
+    static List<Book> books(String dataFile) throws IOException {
+        Path file = Paths.get(dataFile);
+        return BookLoader.books(BookLoader.parse(file, ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * Takes one text column of the books as keys, arranged for a workload. The random order is shuffled with a
+     * fixed seed, so every run and every fork sees the same sequence.
+     *
+     * @param books The books.
+     * @param field One of the text fields of {@link BookLoader#FIELDS}: ISBN, Authors, Original Title or Title.
+     * @param order "random", "sorted" or "reverse".
+     * @return The keys, one per book, duplicates included.
+     * @throws IllegalArgumentException if the field is not a text field or the order is unknown.
+     */
+    static String[] keys(List<Book> books, String field, String order) {
+        String[] keys = new String[books.size()];
+        for (int i = 0; i < keys.length; i++) {
+            Object key = BookLoader.key(field, books.get(i));
+            if (!(key instanceof String)) {
+                throw new IllegalArgumentException("Not a text field: " + field);
+            }
+            keys[i] = (String) key;
+        }
+        switch (order) {
+            case "random":
+                Collections.shuffle(Arrays.asList(keys), new Random(SEED));
+                break;
+            case "sorted":
+                Arrays.sort(keys);
+                break;
+            case "reverse":
+                Arrays.sort(keys, Collections.reverseOrder());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown order: " + order);
+        }
+        return keys;
+    }
+}
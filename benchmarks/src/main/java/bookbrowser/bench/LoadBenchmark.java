@@ -0,0 +1,108 @@
+package bookbrowser.bench;
+
+import bookbrowser.Book;
+import bookbrowser.BookLoader;
+import bookbrowser.BookSnapshot;
+import bookbrowser.BookTable;
+import bookbrowser.InvertedIndex;
+import bookbrowser.PrefixIndex;
+import bookbrowser.RankedTreeMapInterface;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the whole of BookBrowser.loadBooks without the window: reading the books, building the field indexes
+ * and the two search indexes. coldLoad parses the data file, as on a first start; snapshotLoad reads a snapshot
+ * written in setup, as on every start after that.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadBenchmark {
+    @Param("../BooksDataFile.txt")
+    public String dataFile;
+
+    private Path file;
+    private BasicFileAttributes source;
+    private Path snapshotFile;
+    private ForkJoinPool pool;
+
+    /**
+     * Writes the snapshot that snapshotLoad reads.
+     *
+     * @throws IOException if the data file cannot be read or the snapshot cannot be written.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        file = Paths.get(dataFile);
+        source = Files.readAttributes(file, BasicFileAttributes.class);
+        pool = ForkJoinPool.commonPool();
+        snapshotFile = Files.createTempFile("books", ".snapshot");
+        BookTable table = BookLoader.parse(file, pool);
+        BookSnapshot.write(snapshotFile, source, table, BookLoader.buildIndexes(BookLoader.books(table), pool));
+    }
+
+    /**
+     * Removes the snapshot.
+     *
+     * @throws IOException if it cannot be deleted.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshotFile);
+    }
+
+    @Benchmark
+    public void coldLoad(Blackhole blackhole) throws IOException {
+        BookTable table = BookLoader.parse(file, pool);
+        index(table, null, blackhole);
+    }
+
+    @Benchmark
+    public void snapshotLoad(Blackhole blackhole) throws IOException {
+        BookSnapshot snapshot = BookSnapshot.read(snapshotFile, source);
+        if (snapshot == null) {
+            throw new IllegalStateException("Snapshot does not match " + file);
+        }
+        index(snapshot.getTable(), snapshot.getOrders(), blackhole);
+    }
+
+    /**
+     * Private helper method building every index the browser builds once the books are read.
+     *
+     * @param table     The books.
+     * @param orders    The saved field orders, or null to sort.
+     * @param blackhole Receives the indexes.
+     */
+    private void index(BookTable table, int[][] orders, Blackhole blackhole) {
+        List<Book> books = BookLoader.books(table);
+        BookLoader.buildIndexes(books, orders, pool, (field, index) -> blackhole.consume(index));
+        blackhole.consume(new PrefixIndex(books));
+        blackhole.consume(new InvertedIndex(table));
+    }
+}
@@ -0,0 +1,90 @@
+package bookbrowser.bench;
+
+import bookbrowser.SearchTree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares SearchTree with java.util.TreeSet on one column of the data file. SearchTree does not rebalance, so the
+ * sorted and reverse workloads show its worst case. It also keeps duplicates, which TreeSet drops.
+ * The forks get a larger thread stack, since SearchTree recurses once per level of a degenerate tree.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss16m")
+@State(Scope.Benchmark)
+public class SearchTreeBenchmark {
+    @Param("../BooksDataFile.txt")
+    public String dataFile;
+
+    @Param({"ISBN", "Authors", "Title"})
+    public String field;
+
+    @Param({"random", "sorted", "reverse"})
+    public String order;
+
+    private String[] keys;
+    private SearchTree<String> tree;
+    private TreeSet<String> jdkSet;
+
+    /**
+     * Loads the workload and fills the trees that the contains benchmarks use.
+     *
+     * @throws IOException if the data file cannot be read.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        keys = BookData.keys(BookData.books(dataFile), field, order);
+        tree = add();
+        jdkSet = addJdk();
+    }
+
+    @Benchmark
+    public SearchTree<String> add() {
+        SearchTree<String> filled = new SearchTree<>();
+        for (String key : keys) {
+            filled.add(key);
+        }
+        return filled;
+    }
+
+    @Benchmark
+    public TreeSet<String> addJdk() {
+        TreeSet<String> filled = new TreeSet<>();
+        for (String key : keys) {
+            filled.add(key);
+        }
+        return filled;
+    }
+
+    @Benchmark
+    public void contains(Blackhole blackhole) {
+        for (String key : keys) {
+            blackhole.consume(tree.contains(key));
+        }
+    }
+
+    @Benchmark
+    public void containsJdk(Blackhole blackhole) {
+        for (String key : keys) {
+            blackhole.consume(jdkSet.contains(key));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package bookbrowser.bench;
+
+import bookbrowser.TreeMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the custom TreeMap with java.util.TreeMap on one column of the data file. Each put benchmark fills a new
+ * map with every key in the workload's order; the other benchmarks read a map filled once in setup. Keys map to
+ * their index in the workload, and equal keys replace each other in both maps.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TreeMapBenchmark {
+    @Param("../BooksDataFile.txt")
+    public String dataFile;
+
+    @Param({"ISBN", "Authors", "Title"})
+    public String field;
+
+    @Param({"random", "sorted", "reverse"})
+    public String order;
+
+    private String[] keys;
+    private TreeMap<String, Integer> map;
+    private java.util.TreeMap<String, Integer> jdkMap;
+
+    /**
+     * Loads the workload and fills the maps that the read benchmarks use.
+     *
+     * @throws IOException if the data file cannot be read.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        keys = BookData.keys(BookData.books(dataFile), field, order);
+        map = put();
+        jdkMap = putJdk();
+    }
+
+    @Benchmark
+    public TreeMap<String, Integer> put() {
+        TreeMap<String, Integer> filled = new TreeMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            filled.put(keys[i], i);
+        }
+        return filled;
+    }
+
+    @Benchmark
+    public java.util.TreeMap<String, Integer> putJdk() {
+        java.util.TreeMap<String, Integer> filled = new java.util.TreeMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            filled.put(keys[i], i);
+        }
+        return filled;
+    }
+
+    @Benchmark
+    public void get(Blackhole blackhole) {
+        for (String key : keys) {
+            blackhole.consume(map.get(key));
+        }
+    }
+
+    @Benchmark
+    public void getJdk(Blackhole blackhole) {
+        for (String key : keys) {
+            blackhole.consume(jdkMap.get(key));
+        }
+    }
+
+    @Benchmark
+    public String[] toKeyArray() {
+        return map.toKeyArray(new String[0]);
+    }
+
+    @Benchmark
+    public String[] toKeyArrayJdk() {
+        return jdkMap.keySet().toArray(new String[0]);
+    }
+
+    @Benchmark
+    public Set<String> keySet() {
+        return map.keySet();
+    }
+
+    /**
+     * Copies the JDK map's key view into a HashSet, which is what the custom keySet returns.
+     *
+     * @return The keys.
+     */
+    @Benchmark
+    public Set<String> keySetJdk() {
+        return new HashSet<>(jdkMap.keySet());
+    }
+}
@@ -0,0 +1,545 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * An ordered map stored as a B+tree: wide nodes holding their keys in arrays, with every entry in a leaf and the
+ * leaves linked in key order.
+ * A node holds up to {@value #MAX_KEYS} keys side by side, so a lookup visits about log64(n) nodes instead of the
+ * log2(n) separate nodes a binary tree chases, and most of each step is a binary search within one array. Entries
+ * cost two array slots rather than a node object each, and walking the map in order is a scan along the leaves.
+ * Nodes split in half when they fill up, and every leaf stays at the same depth, so the tree is always balanced.
+ *
+ * @param <K> The type of keys maintained by this map. Must be Comparable.
+ * @param <V> The type of mapped values.
+ */
+public class BTreeMap<K extends Comparable<K>, V> implements TreeMapInterface<K, V> {
+    private static final int MAX_KEYS = 64;
+
+    private Node root;
+    private Leaf first;
+    private int size;
+
+    /**
+     * Constructs an empty BTreeMap.
+     */
+    public BTreeMap() {
+        clear();
+    }
+
+    /**
+     * Adds a key-value pair to the map. If the map previously contained a mapping for the key, the old value is
+     * replaced by the specified value.
+     *
+     * @param key   The key with which the specified value is to be associated.
+     * @param value The value to be associated with the specified key.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public void put(K key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        Node sibling = root.insert(key, value);
+        if (sibling != null) { // the root split, so the tree grows one level at the top
+            Branch branch = new Branch();
+            branch.keys[0] = sibling.firstKey();
+            branch.children[0] = root;
+            branch.children[1] = sibling;
+            branch.size = 2;
+            root = branch;
+        }
+    }
+
+    /**
+     * Retrieves the value associated with the specified key.
+     *
+     * @param key The key whose associated value is to be returned.
+     * @return the value to which the specified key is mapped, or null if the map contains no mapping for the key.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        Leaf leaf = findLeaf(key);
+        int index = Arrays.binarySearch(leaf.keys, 0, leaf.size, key);
+        return index >= 0 ? (V) leaf.values[index] : null;
+    }
+
+    /**
+     * Checks if the map contains a mapping for the specified key.
+     *
+     * @param key The key whose presence is to be tested.
+     * @return True if the map contains a mapping for the specified key, false otherwise.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public boolean containsKey(K key) {
+        Leaf leaf = findLeaf(key);
+        return Arrays.binarySearch(leaf.keys, 0, leaf.size, key) >= 0;
+    }
+
+    /**
+     * Clears the map, removing all key-value pairs.
+     */
+    public void clear() {
+        first = new Leaf();
+        root = first;
+        size = 0;
+    }
+
+    /**
+     * Returns the number of key-value pairs in the map.
+     *
+     * @return the number of entries in the map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of levels in the tree, counting the leaves as level 1.
+     *
+     * @return the height of the tree.
+     */
+    int height() {
+        int height = 1;
+        for (Node node = root; node instanceof Branch; node = ((Branch) node).children[0]) {
+            height++;
+        }
+        return height;
+    }
+
+    /**
+     * Converts the keys of the map to an array, in order, copying a leaf at a time.
+     *
+     * @param array An array of keys to be filled. If it is too small, a new one will be created.
+     * @return An array containing all the keys in the map.
+     */
+    public K[] toKeyArray(K[] array) {
+        if (array.length < size) {
+            array = Arrays.copyOf(array, size);
+        }
+        int index = 0;
+        for (Leaf leaf = first; leaf != null; leaf = leaf.next) {
+            System.arraycopy(leaf.keys, 0, array, index, leaf.size);
+            index += leaf.size;
+        }
+        return array;
+    }
+
+    /**
+     * Converts the values of the map to an array, in the order of their keys, copying a leaf at a time.
+     *
+     * @param array An array of values to be filled. If it is too small, a new one will be created.
+     * @return An array containing all the values in the map.
+     */
+    public V[] toValueArray(V[] array) {
+        if (array.length < size) {
+            array = Arrays.copyOf(array, size);
+        }
+        int index = 0;
+        for (Leaf leaf = first; leaf != null; leaf = leaf.next) {
+            System.arraycopy(leaf.values, 0, array, index, leaf.size);
+            index += leaf.size;
+        }
+        return array;
+    }
+
+    /**
+     * Returns the smallest key in the map.
+     *
+     * @return the first key in order, or null if the map is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public K firstKey() {
+        return size == 0 ? null : (K) first.keys[0];
+    }
+
+    /**
+     * Returns the largest key in the map.
+     *
+     * @return the last key in order, or null if the map is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public K lastKey() {
+        Leaf leaf = lastLeaf();
+        return size == 0 ? null : (K) leaf.keys[leaf.size - 1];
+    }
+
+    /**
+     * Returns the smallest key greater than or equal to the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public K ceilingKey(K key) {
+        return ceiling(key, true);
+    }
+
+    /**
+     * Returns the smallest key strictly greater than the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public K higherKey(K key) {
+        return ceiling(key, false);
+    }
+
+    /**
+     * Returns the largest key less than or equal to the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public K floorKey(K key) {
+        return floor(key, true);
+    }
+
+    /**
+     * Returns the largest key strictly less than the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public K lowerKey(K key) {
+        return floor(key, false);
+    }
+
+    /**
+     * Creates a cursor positioned on the first entry, or unpositioned if the map is empty.
+     *
+     * @return a new cursor over this map.
+     */
+    public TreeMapCursor<K, V> cursor() {
+        LeafCursor cursor = new LeafCursor();
+        cursor.first();
+        return cursor;
+    }
+
+    /**
+     * Private helper method descending to the leaf where a key is, or would be inserted.
+     *
+     * @param key The key to find.
+     * @return The leaf covering the key.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    private Leaf findLeaf(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        Node node = root;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            node = branch.children[branch.childIndex(key)];
+        }
+        return (Leaf) node;
+    }
+
+    /**
+     * Private helper method descending along the last child of each node.
+     *
+     * @return The rightmost leaf.
+     */
+    private Leaf lastLeaf() {
+        Node node = root;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            node = branch.children[branch.size - 1];
+        }
+        return (Leaf) node;
+    }
+
+    /**
+     * Private helper method finding the smallest key above, or optionally equal to, a key.
+     * A key beyond the end of its leaf is the first key of the next leaf.
+     *
+     * @param key       The key to search from.
+     * @param inclusive Whether an equal key qualifies.
+     * @return The matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    @SuppressWarnings("unchecked")
+    private K ceiling(K key, boolean inclusive) {
+        Leaf leaf = findLeaf(key);
+        int index = Arrays.binarySearch(leaf.keys, 0, leaf.size, key);
+        index = index >= 0 ? (inclusive ? index : index + 1) : -index - 1;
+        if (index == leaf.size) {
+            leaf = leaf.next;
+            index = 0;
+        }
+        return leaf == null || leaf.size == 0 ? null : (K) leaf.keys[index];
+    }
+
+    /**
+     * Private helper method finding the largest key below, or optionally equal to, a key.
+     * A key before the start of its leaf is the last key of the previous leaf.
+     *
+     * @param key       The key to search from.
+     * @param inclusive Whether an equal key qualifies.
+     * @return The matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    @SuppressWarnings("unchecked")
+    private K floor(K key, boolean inclusive) {
+        Leaf leaf = findLeaf(key);
+        int index = Arrays.binarySearch(leaf.keys, 0, leaf.size, key);
+        index = index >= 0 ? (inclusive ? index : index - 1) : -index - 2;
+        if (index < 0) {
+            leaf = leaf.previous;
+            index = leaf == null ? 0 : leaf.size - 1;
+        }
+        return leaf == null || leaf.size == 0 ? null : (K) leaf.keys[index];
+    }
+
+    /**
+     * A node of the tree, holding its keys in a sorted array.
+     */
+    private abstract class Node {
+        final Object[] keys;
+        int size;
+
+        /**
+         * Constructs an empty node.
+         *
+         * @param capacity The length of the key array.
+         */
+        Node(int capacity) {
+            keys = new Object[capacity];
+        }
+
+        /**
+         * Returns the smallest key stored under this node.
+         *
+         * @return The first key.
+         */
+        abstract Object firstKey();
+
+        /**
+         * Adds a key-value pair below this node, splitting it if it overflows.
+         *
+         * @param key   The key.
+         * @param value The value.
+         * @return The new right half if the node split, otherwise null.
+         */
+        abstract Node insert(K key, V value);
+    }
+
+    /**
+     * A leaf, holding up to {@value #MAX_KEYS} entries and linked to its neighbours.
+     */
+    private class Leaf extends Node {
+        final Object[] values = new Object[MAX_KEYS];
+        Leaf next;
+        Leaf previous;
+
+        /**
+         * Constructs an empty leaf.
+         */
+        Leaf() {
+            super(MAX_KEYS);
+        }
+
+        Object firstKey() {
+            return keys[0];
+        }
+
+        Node insert(K key, V value) {
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            if (index >= 0) {
+                values[index] = value;
+                return null;
+            }
+            index = -index - 1;
+            BTreeMap.this.size++;
+            if (size < MAX_KEYS) {
+                insertAt(index, key, value);
+                return null;
+            }
+
+            Leaf right = new Leaf();
+            int half = MAX_KEYS / 2;
+            System.arraycopy(keys, half, right.keys, 0, MAX_KEYS - half);
+            System.arraycopy(values, half, right.values, 0, MAX_KEYS - half);
+            Arrays.fill(keys, half, MAX_KEYS, null);
+            Arrays.fill(values, half, MAX_KEYS, null);
+            right.size = MAX_KEYS - half;
+            size = half;
+            right.next = next;
+            right.previous = this;
+            if (next != null) {
+                next.previous = right;
+            }
+            next = right;
+            if (index <= half) {
+                insertAt(index, key, value);
+            } else {
+                right.insertAt(index - half, key, value);
+            }
+            return right;
+        }
+
+        /**
+         * Inserts an entry at a position, shifting later entries right. The leaf must have room.
+         *
+         * @param index The position.
+         * @param key   The key.
+         * @param value The value.
+         */
+        void insertAt(int index, K key, V value) {
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            System.arraycopy(values, index, values, index + 1, size - index);
+            keys[index] = key;
+            values[index] = value;
+            size++;
+        }
+    }
+
+    /**
+     * An internal node with up to {@value #MAX_KEYS} children. keys[i] is the smallest key under children[i + 1],
+     * so size children are separated by size - 1 keys.
+     */
+    private class Branch extends Node {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        final Node[] children = (Node[]) new BTreeMap.Node[MAX_KEYS];
+
+        /**
+         * Constructs an empty branch.
+         */
+        Branch() {
+            super(MAX_KEYS - 1);
+        }
+
+        Object firstKey() {
+            return children[0].firstKey();
+        }
+
+        /**
+         * Chooses the child covering a key: the one after every separator less than or equal to it.
+         *
+         * @param key The key.
+         * @return The index of the child.
+         */
+        int childIndex(K key) {
+            int index = Arrays.binarySearch(keys, 0, size - 1, key);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+
+        Node insert(K key, V value) {
+            int index = childIndex(key);
+            Node sibling = children[index].insert(key, value);
+            if (sibling == null) {
+                return null;
+            }
+            if (size < MAX_KEYS) {
+                insertChild(index, sibling);
+                return null;
+            }
+
+            Branch right = new Branch();
+            int half = MAX_KEYS / 2;
+            System.arraycopy(children, half, right.children, 0, MAX_KEYS - half);
+            System.arraycopy(keys, half, right.keys, 0, MAX_KEYS - 1 - half);
+            Arrays.fill(children, half, MAX_KEYS, null);
+            Arrays.fill(keys, half - 1, MAX_KEYS - 1, null);
+            right.size = MAX_KEYS - half;
+            size = half;
+            if (index < half) {
+                insertChild(index, sibling);
+            } else {
+                right.insertChild(index - half, sibling);
+            }
+            return right;
+        }
+
+        /**
+         * Inserts a new child just after an existing one, with its first key as the separator. The branch must have
+         * room.
+         *
+         * @param index   The index of the child that split.
+         * @param sibling The new right half of that child.
+         */
+        void insertChild(int index, Node sibling) {
+            System.arraycopy(children, index + 1, children, index + 2, size - index - 1);
+            System.arraycopy(keys, index, keys, index + 1, size - index - 1);
+            children[index + 1] = sibling;
+            keys[index] = sibling.firstKey();
+            size++;
+        }
+    }
+
+    /**
+     * Inner class implementing a cursor as a leaf and a position within it.
+     */
+    private class LeafCursor implements TreeMapCursor<K, V> {
+        private Leaf leaf;
+        private int index;
+
+        public boolean isValid() {
+            return leaf != null;
+        }
+
+        @SuppressWarnings("unchecked")
+        public K key() {
+            if (leaf == null) {
+                throw new NoSuchElementException("Cursor is not positioned on an entry");
+            }
+            return (K) leaf.keys[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        public V value() {
+            if (leaf == null) {
+                throw new NoSuchElementException("Cursor is not positioned on an entry");
+            }
+            return (V) leaf.values[index];
+        }
+
+        public boolean first() {
+            return moveTo(size == 0 ? null : first, 0);
+        }
+
+        public boolean last() {
+            Leaf last = lastLeaf();
+            return moveTo(size == 0 ? null : last, last.size - 1);
+        }
+
+        public boolean next() {
+            if (leaf == null) {
+                return false;
+            }
+            return index < leaf.size - 1 ? moveTo(leaf, index + 1) : moveTo(leaf.next, 0);
+        }
+
+        public boolean previous() {
+            if (leaf == null) {
+                return false;
+            }
+            return index > 0 ? moveTo(leaf, index - 1) : moveTo(leaf.previous, leaf.previous == null ? 0 : leaf.previous.size - 1);
+        }
+
+        public boolean seek(K key) {
+            Leaf found = findLeaf(key);
+            int position = Arrays.binarySearch(found.keys, 0, found.size, key);
+            position = position >= 0 ? position : -position - 1;
+            return position < found.size ? moveTo(found, position) : moveTo(found.next, 0);
+        }
+
+        /**
+         * Moves to an entry if there is one, otherwise stays put.
+         *
+         * @param target   The leaf of the entry, possibly null.
+         * @param position The entry's position in the leaf.
+         * @return true if the cursor moved.
+         */
+        private boolean moveTo(Leaf target, int position) {
+            if (target == null) {
+                return false;
+            }
+            leaf = target;
+            index = position;
+            return true;
+        }
+    }
+}
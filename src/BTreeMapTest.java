@@ -0,0 +1,66 @@
+/**
+ * This class contains a set of JUnit 5 tests for the BTreeMap class.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class BTreeMapTest {
+
+    /**
+     * Tests that enough keys to split leaves and branches stay ordered and reachable.
+     */
+    @Test
+    public void testSplits() {
+        BTreeMap<Integer, Integer> map = new BTreeMap<>();
+        for (int i = 0; i < 10000; i++) {
+            map.put((i * 7919) % 10000, i);
+        }
+        map.put(42, -1);
+
+        assertEquals(10000, map.size());
+        assertEquals(3, map.height());
+        assertEquals(Integer.valueOf(-1), map.get(42));
+        assertNull(map.get(10000));
+        Integer[] keys = map.toKeyArray(new Integer[0]);
+        Integer[] values = map.toValueArray(new Integer[0]);
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(Integer.valueOf(i), keys[i]);
+            assertEquals(map.get(i), values[i]);
+        }
+    }
+
+    /**
+     * Tests navigation across leaf boundaries and cursor movement along the leaves.
+     */
+    @Test
+    public void testNavigation() {
+        BTreeMap<Integer, String> map = new BTreeMap<>();
+        assertNull(map.firstKey());
+        assertNull(map.ceilingKey(1));
+        for (int i = 0; i < 1000; i += 2) {
+            map.put(i, "v" + i);
+        }
+
+        assertEquals(Integer.valueOf(0), map.firstKey());
+        assertEquals(Integer.valueOf(998), map.lastKey());
+        assertEquals(Integer.valueOf(64), map.ceilingKey(63));
+        assertEquals(Integer.valueOf(62), map.floorKey(63));
+        assertEquals(Integer.valueOf(66), map.higherKey(64));
+        assertEquals(Integer.valueOf(62), map.lowerKey(64));
+        assertNull(map.higherKey(998));
+        assertNull(map.lowerKey(0));
+
+        TreeMapCursor<Integer, String> cursor = map.cursor();
+        int count = 0;
+        for (boolean more = cursor.last(); more; more = cursor.previous()) {
+            count++;
+        }
+        assertEquals(500, count);
+        assertTrue(cursor.seek(127));
+        assertEquals("v128", cursor.value());
+        assertThrows(IllegalArgumentException.class, () -> map.get(null));
+    }
+}
@@ -1,15 +1,17 @@
 /**
  * Represents a book with various attributes such as ISBN, authors, publication year, original title, title, and average rating.
  * Provides methods to access and modify these attributes as needed.
+ * A Book is a lightweight view of one row of a {@link BookTable}; the attributes themselves live in the table's columns.
  */
 public class Book {
 
-    private String isbn;
-    private String authors;
-    private int publicationYear;
-    private String originalTitle;
-    private String title;
-    private double averageRating;
+    /**
+     * Scale for fixed-point ratings: a rating of 4.34 is held as the int 434.
+     */
+    public static final int RATING_SCALE = 100;
+
+    private final BookTable table;
+    private final int row;
 
     /**
      * Constructor to create a new Book instance with all its details.
@@ -19,15 +21,40 @@ public class Book {
      * @param publicationYear The year the book was published.
      * @param originalTitle   The original title of the book.
      * @param title           The title of the book.
-     * @param averageRating   The average rating of the book on a scale from 0 to 5.
+     * @param averageRating   The average rating of the book on a scale from 0 to 5, kept to two decimal places.
      */
     public Book(String isbn, String authors, int publicationYear, String originalTitle, String title, double averageRating) {
-        this.isbn = isbn;
-        this.authors = authors;
-        this.publicationYear = publicationYear;
-        this.originalTitle = originalTitle;
-        this.title = title;
-        this.averageRating = averageRating;
+        this.table = new BookTable(1);
+        this.row = table.add(isbn, authors, publicationYear, originalTitle, title, toFixedPoint(averageRating));
+    }
+
+    /**
+     * Constructor to create a view of an existing row of a table.
+     *
+     * @param table The table holding the book's data.
+     * @param row   The book's row id in that table.
+     */
+    public Book(BookTable table, int row) {
+        this.table = table;
+        this.row = row;
+    }
+
+    /**
+     * Gets the table holding this book's data.
+     *
+     * @return The backing table.
+     */
+    public BookTable getTable() {
+        return table;
+    }
+
+    /**
+     * Gets the row id of this book in its table.
+     *
+     * @return The row id.
+     */
+    public int getRow() {
+        return row;
     }
 
     /**
@@ -36,7 +63,7 @@ public class Book {
      * @return The ISBN of the book.
      */
     public String getIsbn() {
-        return isbn;
+        return table.getIsbn(row);
     }
 
     /**
@@ -45,7 +72,7 @@ public class Book {
      * @param isbn The new ISBN of the book.
      */
     public void setIsbn(String isbn) {
-        this.isbn = isbn;
+        table.setIsbn(row, isbn);
     }
 
     /**
@@ -54,7 +81,7 @@ public class Book {
      * @return The authors of the book.
      */
     public String getAuthors() {
-        return authors;
+        return table.getAuthors(row);
     }
 
     /**
@@ -63,7 +90,7 @@ public class Book {
      * @param authors The new authors of the book.
      */
     public void setAuthors(String authors) {
-        this.authors = authors;
+        table.setAuthors(row, authors);
     }
 
     /**
@@ -72,7 +99,7 @@ public class Book {
      * @return The publication year of the book.
      */
     public int getPublicationYear() {
-        return publicationYear;
+        return table.getPublicationYear(row);
     }
 
     /**
@@ -81,7 +108,7 @@ public class Book {
      * @param publicationYear The new publication year of the book.
      */
     public void setPublicationYear(int publicationYear) {
-        this.publicationYear = publicationYear;
+        table.setPublicationYear(row, publicationYear);
     }
 
     /**
@@ -90,7 +117,7 @@ public class Book {
      * @return The original title of the book.
      */
     public String getOriginalTitle() {
-        return originalTitle;
+        return table.getOriginalTitle(row);
     }
 
     /**
@@ -99,7 +126,7 @@ public class Book {
      * @param originalTitle The new original title of the book.
      */
     public void setOriginalTitle(String originalTitle) {
-        this.originalTitle = originalTitle;
+        table.setOriginalTitle(row, originalTitle);
     }
 
     /**
@@ -108,7 +135,7 @@ public class Book {
      * @return The title of the book.
      */
     public String getTitle() {
-        return title;
+        return table.getTitle(row);
     }
 
     /**
@@ -117,7 +144,7 @@ public class Book {
      * @param title The new title of the book.
      */
     public void setTitle(String title) {
-        this.title = title;
+        table.setTitle(row, title);
     }
 
     /**
@@ -126,16 +153,54 @@ public class Book {
      * @return The average rating of the book.
      */
     public double getAverageRating() {
-        return averageRating;
+        return (double) table.getRatingFixedPoint(row) / RATING_SCALE;
+    }
+
+    /**
+     * Gets the average rating of the book as a fixed-point int, scaled by {@link #RATING_SCALE}.
+     * Ratings are given to two decimal places, so this is exact and orders the same way as the rating itself.
+     *
+     * @return The average rating times 100.
+     */
+    public int getRatingFixedPoint() {
+        return table.getRatingFixedPoint(row);
     }
 
     /**
-     * Sets the average rating of the book.
+     * Sets the average rating of the book, rounded to two decimal places.
      *
      * @param averageRating The new average rating of the book.
      */
     public void setAverageRating(double averageRating) {
-        this.averageRating = averageRating;
+        table.setRatingFixedPoint(row, toFixedPoint(averageRating));
+    }
+
+    /**
+     * Gets the URL of the book's cover image.
+     *
+     * @return The cover image URL, or an empty string if the book has none.
+     */
+    public String getImageUrl() {
+        return table.getImageUrl(row);
+    }
+
+    /**
+     * Gets the URL of a small version of the book's cover image.
+     *
+     * @return The small cover image URL, or an empty string if the book has none.
+     */
+    public String getSmallImageUrl() {
+        return table.getSmallImageUrl(row);
+    }
+
+    /**
+     * Converts a rating to the fixed-point form stored in the table.
+     *
+     * @param averageRating The rating on a scale from 0 to 5.
+     * @return The rating times {@link #RATING_SCALE}, rounded to the nearest int.
+     */
+    public static int toFixedPoint(double averageRating) {
+        return (int) Math.round(averageRating * RATING_SCALE);
     }
 
     /**
@@ -146,12 +211,37 @@ public class Book {
     @Override
     public String toString() {
         return "Book{" +
-                "isbn='" + isbn + '\'' +
-                ", authors='" + authors + '\'' +
-                ", publicationYear=" + publicationYear +
-                ", originalTitle='" + originalTitle + '\'' +
-                ", title='" + title + '\'' +
-                ", averageRating=" + averageRating +
+                "isbn='" + getIsbn() + '\'' +
+                ", authors='" + getAuthors() + '\'' +
+                ", publicationYear=" + getPublicationYear() +
+                ", originalTitle='" + getOriginalTitle() + '\'' +
+                ", title='" + getTitle() + '\'' +
+                ", averageRating=" + getAverageRating() +
                 '}';
     }
+
+    /**
+     * Two books are equal when they are views of the same row of the same table.
+     *
+     * @param other The object to compare with.
+     * @return true if both refer to the same row.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Book)) {
+            return false;
+        }
+        Book book = (Book) other;
+        return table == book.table && row == book.row;
+    }
+
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}.
+     *
+     * @return A hash of the table identity and row id.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(table) + row;
+    }
 }
@@ -1,49 +1,97 @@
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 /**
  * The `BookBrowser` class represents a simple Swing-based book browser application.
  * It allows users to browse through a collection of books, displaying book details based on different ordering criteria.
+ * Below the details, every book is listed in a table in the current order; the table reads its rows straight from
+ * the ordering's index, so it scrolls through the whole catalog without copying it. The current book's cover is
+ * fetched in the background and shown beside its details.
  */
 public class BookBrowser extends JFrame {
 
-    private JTextField bnField, authors, year, originalTitle, title, avgRating;
+    private static final Path DATA_FILE = Paths.get("BooksDataFile.txt");
+    private static final Path SNAPSHOT_FILE = Paths.get("BooksDataFile.snapshot");
+    private static final Path COVER_CACHE = Paths.get("BooksDataFile.covers");
+    private static final long COVER_MEMORY_BYTES = 32L * 1024 * 1024;
+    private static final long COVER_DISK_BYTES = 256L * 1024 * 1024;
+    private static final int COVER_THREADS = 2;
+    private static final int MAX_SUGGESTIONS = 10;
+
+    private JTextField bnField, authors, year, originalTitle, title, avgRating, position, search, yearRange, ratingRange;
+    private JPopupMenu suggestions;
     private JComboBox<String> comboBox;
     private JButton button1, button2, button3, button4;
-    private final HashMap<String, TreeMap<String, Book>> fieldMaps;
-    private TreeMap<String, Book> currentTreeMap;
+    private JProgressBar progressBar;
+    private JTable table;
+    private final BookTableModel tableModel;
+    private JLabel cover;
+    private final CoverLoader covers;
+    private String coverUrl;
+    private final HashMap<String, RankedTreeMapInterface<?, Book>> fieldMaps;
+    private final HashMap<String, int[]> ranges;
+    private BookTable catalog;
+    private PrefixIndex prefixIndex;
+    private InvertedIndex fullTextIndex;
+    private BookFileTailer tailer;
+    private final LoadTimings loadTimings;
+    private String currentField;
+    private RankedTreeMapInterface<?, Book> currentTreeMap;
+    private TreeMapCursor<?, Book> currentCursor;
     private int currentIndex;
-    private List<String> currentKeys;
     
     /**
      * Constructs a new instance of the `BookBrowser` class.
-     * Initializes components, loads books from a data file, and sets up the user interface.
+     * Initializes components, sets up and shows the user interface, then loads books from a data file in the
+     * background.
      */
     public BookBrowser() {
         fieldMaps = new HashMap<>();
+        ranges = new HashMap<>();
+        tableModel = new BookTableModel();
+        covers = new CoverLoader(COVER_CACHE, COVER_MEMORY_BYTES, COVER_DISK_BYTES, COVER_THREADS);
+        loadTimings = new LoadTimings();
+        LoadTimings.register(loadTimings);
         initializeComponents();
         layoutComponents();
-        loadBooks();
-        updateDisplay("ISBN");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setTitle("Book Browser");
-        setSize(500, 400);
+        setSize(760, 900);
         setLocationRelativeTo(null);
         setVisible(true);
+        loadBooks();
     }
     /**
      * Initializes Swing components such as buttons, text fields, and combo boxes.
      */
     private void initializeComponents() {
-        String[] orders = {"ISBN", "Authors", "Publication Year", "Original Title", "Title", "Average Rating"};
-        comboBox = new JComboBox<>(orders);
+        comboBox = new JComboBox<>(BookLoader.FIELDS);
         comboBox.setFont(new Font("SansSerif", Font.BOLD, 12));
         comboBox.addActionListener(this::onFieldChanged);
+        comboBox.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected,
+                                                          boolean cellHasFocus) {
+                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                setEnabled(fieldMaps.containsKey(value)); // Orderings still being indexed are greyed out
+                return this;
+            }
+        });
+
+        progressBar = new JProgressBar(0, BookLoader.FIELDS.length);
+        progressBar.setStringPainted(true);
 
         bnField = new JTextField(10);
         authors = new JTextField(10);
@@ -51,6 +99,48 @@ public class BookBrowser extends JFrame {
         originalTitle = new JTextField(10);
         title = new JTextField(10);
         avgRating = new JTextField(10);
+        position = new JTextField(10);
+        position.addActionListener(e -> jumpTo(position.getText()));
+
+        search = new JTextField(10);
+        search.setEnabled(false); // Until the prefix index is built
+        search.setToolTipText("Type words from a title or author");
+        search.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                showSuggestions();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                showSuggestions();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                showSuggestions();
+            }
+        });
+        search.addActionListener(e -> {
+            List<Book> matches = prefixIndex.search(search.getText(), 1);
+            if (matches.isEmpty()) {
+                matches = fullTextIndex.search(search.getText(), 1);
+            }
+            if (!matches.isEmpty()) {
+                showBook(matches.get(0));
+            }
+        });
+        yearRange = new JTextField(10);
+        yearRange.setEnabled(false); // Until every index is built
+        yearRange.setToolTipText("Years to browse, e.g. 1990..1999, 1990.. or ..1999; blank for all");
+        yearRange.addActionListener(e -> setRange("Publication Year", yearRange.getText()));
+        ratingRange = new JTextField(10);
+        ratingRange.setEnabled(false);
+        ratingRange.setToolTipText("Ratings to browse, e.g. 4.2..5, 4.2.. or ..3.5; blank for all");
+        ratingRange.addActionListener(e -> setRange("Average Rating", ratingRange.getText()));
+
+        suggestions = new JPopupMenu();
+        suggestions.setFocusable(false); // Keep typing in the search field while the list is open
 
         button1 = new JButton("|<-");
         button2 = new JButton("<Prev");
@@ -61,6 +151,18 @@ public class BookBrowser extends JFrame {
         button2.addActionListener(e -> navigate("prev"));
         button3.addActionListener(e -> navigate("next"));
         button4.addActionListener(e -> navigate("last"));
+
+        cover = new JLabel("", SwingConstants.CENTER);
+        cover.setPreferredSize(new Dimension(120, 180));
+
+        table = new JTable(tableModel);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.setFillsViewportHeight(true);
+        table.getSelectionModel().addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) {
+                onRowSelected();
+            }
+        });
     }
     /**
      * Defines the layout of Swing components within the JFrame.
@@ -72,17 +174,27 @@ public class BookBrowser extends JFrame {
         g.fill = GridBagConstraints.HORIZONTAL;
         g.insets = new Insets(10, 5, 10, 5);
         g.gridx = 0;
+        g.gridy = 0;
+        g.gridwidth = 2;
+        add(progressBar, g);
+
+        g.gridwidth = 1;
         g.gridy = 1;
         add(new JLabel("Order:"), g);
         g.gridx = 1;
         add(comboBox, g);
 
+        addLabelAndTextField("Search:", search, ++g.gridy);
+        addLabelAndTextField("Years:", yearRange, ++g.gridy);
+        addLabelAndTextField("Ratings:", ratingRange, ++g.gridy);
+        int details = g.gridy + 1;
         addLabelAndTextField("ISBN:", bnField, ++g.gridy);
         addLabelAndTextField("Authors:", authors, ++g.gridy);
         addLabelAndTextField("Publication Year:", year, ++g.gridy);
         addLabelAndTextField("Original Title:", originalTitle, ++g.gridy);
         addLabelAndTextField("Title:", title, ++g.gridy);
         addLabelAndTextField("Average Rating:", avgRating, ++g.gridy);
+        addLabelAndTextField("Position:", position, ++g.gridy);
 
         JPanel buttonPanel = new JPanel();
         buttonPanel.add(button1);
@@ -93,6 +205,21 @@ public class BookBrowser extends JFrame {
         g.gridy++;
         g.gridwidth =1;
         add(buttonPanel, g);
+
+        GridBagConstraints c = new GridBagConstraints();
+        c.gridx = 2;
+        c.gridy = details;
+        c.gridheight = 6;
+        c.insets = new Insets(10, 5, 10, 10);
+        add(cover, c);
+
+        g.gridx = 0;
+        g.gridy++;
+        g.gridwidth = 3;
+        g.fill = GridBagConstraints.BOTH;
+        g.weightx = 1;
+        g.weighty = 1;
+        add(new JScrollPane(table), g);
     }
 
     /**
@@ -113,75 +240,336 @@ public class BookBrowser extends JFrame {
         add(textField, g);
     }
     /**
-     * Loads books from a data file and populates the `fieldMaps` data structure.
+     * Loads books from a data file and populates the `fieldMaps` data structure without blocking the event thread.
+     * The file is parsed and indexed on the common fork-join pool. The ISBN index is built first and shown as soon
+     * as it is ready; each other ordering becomes selectable when its own index finishes.
+     * After a full load a binary snapshot is saved beside the data file; while the data file is unchanged, later
+     * starts read the snapshot instead of parsing and sorting. A snapshot whose saved orders do not sort its books
+     * is ignored: the data file is parsed and the snapshot rewritten.
+     * Once every index is built the search box is enabled and the data file is followed, so books appended to it
+     * show up without a reload.
+     * Each phase is timed, and the timings and the health of every index are published through JMX.
      * Displays an error message dialog in case of failure.
      */
     private void loadBooks() {
-        try (BufferedReader reader = new BufferedReader(new FileReader("BooksDataFile.txt"))) {
-            String line;
-            boolean isFirstLine = true;
-            while ((line = reader.readLine()) != null) {
-                if (isFirstLine) { // Skip the header line
-                    isFirstLine = false;
-                    continue;
+        progressBar.setIndeterminate(true);
+        progressBar.setString("Loading books...");
+
+        new SwingWorker<BookTable, Map.Entry<String, RankedTreeMapInterface<?, Book>>>() {
+            private long loadedLength;
+            private PrefixIndex searchIndex;
+            private InvertedIndex wordIndex;
+
+            @Override
+            protected BookTable doInBackground() throws IOException {
+                ForkJoinPool pool = ForkJoinPool.commonPool();
+                long time = System.nanoTime();
+                BasicFileAttributes source = Files.readAttributes(DATA_FILE, BasicFileAttributes.class);
+                BookSnapshot snapshot = readSnapshot(source);
+                time = loadTimings.lap(LoadTimings.Phase.READ, time);
+                // A snapshot only matches a data file it loaded completely, so its length ends on a line boundary
+                loadedLength = source.size();
+                Map<String, RankedTreeMapInterface<?, Book>> indexes = new HashMap<>();
+                BookTable table = null;
+                List<Book> books = null;
+                if (snapshot != null) {
+                    table = snapshot.getTable();
+                    time = loadTimings.lap(LoadTimings.Phase.PARSE, time);
+                    books = BookLoader.books(table);
+                    try {
+                        buildIndexes(books, snapshot.getOrders(), pool, indexes);
+                    } catch (IllegalArgumentException e) {
+                        // A saved order that does not sort the books cannot be trusted: parse the data file
+                        // instead, and let the snapshot be rewritten below
+                        snapshot = null;
+                        indexes.clear();
+                    }
+                }
+                if (snapshot == null) {
+                    // Parse only the finished lines there now, so the tailer picks up exactly where loading stopped
+                    table = new BookTable();
+                    loadedLength = BookLoader.parse(DATA_FILE, source.size(), pool, table);
+                    time = loadTimings.lap(LoadTimings.Phase.PARSE, time);
+                    books = BookLoader.books(table);
+                    buildIndexes(books, null, pool, indexes);
+                }
+                time = loadTimings.lap(LoadTimings.Phase.INDEX, time);
+                if (snapshot == null && loadedLength == source.size()) {
+                    try {
+                        BookSnapshot.write(SNAPSHOT_FILE, source, table, indexes);
+                    } catch (IOException e) {
+                        // Without a snapshot the next start simply parses the data file again
+                    }
+                }
+                time = loadTimings.lap(LoadTimings.Phase.SAVE, time);
+                searchIndex = new PrefixIndex(books);
+                wordIndex = new InvertedIndex(table);
+                loadTimings.lap(LoadTimings.Phase.SEARCH_INDEX, time);
+                loadTimings.setLoaded(table.size(), snapshot != null);
+                return table;
+            }
+
+            /**
+             * Builds every field index, publishing each one as soon as it is ready.
+             *
+             * @param books   The books to index.
+             * @param orders  The saved order of each field, or null to sort the books.
+             * @param pool    The pool to build on.
+             * @param indexes Receives every finished index.
+             * @throws IllegalArgumentException if a saved order does not sort the books.
+             */
+            private void buildIndexes(List<Book> books, int[][] orders, ForkJoinPool pool,
+                                      Map<String, RankedTreeMapInterface<?, Book>> indexes) {
+                BookLoader.buildIndexes(books, orders, pool, (field, index) -> {
+                    indexes.put(field, index);
+                    publish(Map.entry(field, index));
+                });
+            }
+
+            /**
+             * Reads the snapshot if it matches the data file, treating an unreadable one as missing.
+             *
+             * @param source The current attributes of the data file.
+             * @return The snapshot, or null if the data file has to be parsed.
+             */
+            private BookSnapshot readSnapshot(BasicFileAttributes source) {
+                try {
+                    return BookSnapshot.read(SNAPSHOT_FILE, source);
+                } catch (IOException e) {
+                    return null;
+                }
+            }
+
+            @Override
+            protected void process(List<Map.Entry<String, RankedTreeMapInterface<?, Book>>> built) {
+                boolean currentReplaced = false;
+                for (Map.Entry<String, RankedTreeMapInterface<?, Book>> index : built) {
+                    // An index from a snapshot that turned out to be bad is replaced by one from the parsed file
+                    if (fieldMaps.put(index.getKey(), index.getValue()) != null && index.getKey().equals(currentField)) {
+                        currentReplaced = true;
+                    }
+                    if (index.getValue() instanceof TreeStatistics) {
+                        IndexStats.register(index.getKey(), (TreeStatistics) index.getValue(), SwingUtilities::invokeLater);
+                    }
+                }
+                progressBar.setIndeterminate(false);
+                progressBar.setValue(fieldMaps.size());
+                progressBar.setString("Indexing " + fieldMaps.size() + " / " + BookLoader.FIELDS.length);
+                if (currentField == null) {
+                    updateDisplay((String) comboBox.getSelectedItem());
+                } else if (currentReplaced) {
+                    updateDisplay(currentField);
+                }
+                comboBox.repaint();
+            }
+
+            @Override
+            protected void done() {
+                progressBar.setVisible(false);
+                try {
+                    catalog = get();
+                    prefixIndex = searchIndex;
+                    fullTextIndex = wordIndex;
+                    search.setEnabled(true);
+                    yearRange.setEnabled(true);
+                    ratingRange.setEnabled(true);
+                    followBooks(loadedLength);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    JOptionPane.showMessageDialog(BookBrowser.this, "Failed to load books from file: " + e.getCause().getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
                 }
-                Book book = parseBook(line);
-                addBookToTreeMaps(book);
             }
+        }.execute();
+    }
+    /**
+     * Starts following the data file for appended books. New lines are parsed on the tailer's thread and added to
+     * the indexes on the event thread.
+     *
+     * @param loadedLength The number of bytes of the data file already loaded.
+     */
+    private void followBooks(long loadedLength) {
+        tailer = new BookFileTailer(DATA_FILE, loadedLength);
+        try {
+            tailer.start(appended -> SwingUtilities.invokeLater(() -> addBooks(appended)),
+                    e -> SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, (e instanceof IllegalArgumentException ? "Skipped a line of the data file: " : "Stopped following the data file: ") + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE)));
         } catch (IOException e) {
-            JOptionPane.showMessageDialog(this, "Failed to load books from file: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            // The catalog still works, it just will not see appended books until restarted
         }
     }
     /**
-     * Parses a book record from a string line and creates a `Book` object.
+     * Adds books appended to the data file to the catalog and to every index, then refreshes the view.
+     * The user stays on the same book; its position number moves by however many new books sort before it.
      *
-     * @param line The string representing a book record.
-     * @return A `Book` object.
-     * @throws IllegalArgumentException If the book data format is invalid.
+     * @param appended The new books.
      */
-    private Book parseBook(String line) {
-        String[] parts = line.split("~");
-        // Ensure the array has the expected number of parts
-        if (parts.length < 8) {
-            throw new IllegalArgumentException("Invalid book data format: " + line);
+    private void addBooks(BookTable appended) {
+        boolean wasEmpty = currentTreeMap == null || currentTreeMap.size() == 0;
+        int bucketOffset = wasEmpty ? 0 : currentIndex - BookLoader.rank(currentTreeMap, currentCursor.key());
+
+        int first = catalog.size();
+        catalog.addAll(appended);
+        fullTextIndex.addRows();
+        for (int row = first; row < catalog.size(); row++) {
+            Book book = catalog.book(row);
+            for (String field : BookLoader.FIELDS) {
+                BookLoader.insert(field, fieldMaps.get(field), book);
+            }
+            prefixIndex.add(book);
+        }
+
+        if (wasEmpty) {
+            updateDisplay(currentField);
+        } else {
+            // New books with the same key go after the existing ones, so the offset within the key still holds
+            currentIndex = BookLoader.rank(currentTreeMap, currentCursor.key()) + bucketOffset;
+            tableModel.refresh();
+            displayBook();
+        }
+    }
+    /**
+     * Lists matching books under the search box: first those whose title, original title or author starts with the
+     * search text, then those containing all of its words anywhere, best matches first.
+     * Choosing one shows that book in the current ordering.
+     */
+    private void showSuggestions() {
+        suggestions.setVisible(false);
+        suggestions.removeAll();
+        if (prefixIndex == null) {
+            return;
+        }
+        Set<Book> matches = new LinkedHashSet<>(prefixIndex.search(search.getText(), MAX_SUGGESTIONS));
+        for (Book book : fullTextIndex.search(search.getText(), MAX_SUGGESTIONS)) {
+            if (matches.size() == MAX_SUGGESTIONS) {
+                break;
+            }
+            matches.add(book);
+        }
+        for (Book book : matches) {
+            JMenuItem item = new JMenuItem(book.getTitle() + " \u2014 " + book.getAuthors());
+            item.addActionListener(e -> showBook(book));
+            suggestions.add(item);
+        }
+        if (suggestions.getComponentCount() > 0) {
+            suggestions.show(search, 0, search.getHeight());
+            search.requestFocusInWindow();
         }
-        return new Book(parts[2], parts[3], Integer.parseInt(parts[4]), parts[5], parts[6], Double.parseDouble(parts[7]));
     }
     /**
-     * Adds a book to the `fieldMaps` data structure for various fields (ISBN, Authors, Year, etc.).
+     * Moves to the given book in the current ordering.
      *
-     * @param book The `Book` object to be added.
+     * @param book The book to show.
      */
-    private void addBookToTreeMaps(Book book) {
-        // Assuming Book class has appropriate getters
-        fieldMaps.computeIfAbsent("ISBN", k -> new TreeMap<>()).put(book.getIsbn(), book);
-        fieldMaps.computeIfAbsent("Authors", k -> new TreeMap<>()).put(book.getAuthors(), book);
-        fieldMaps.computeIfAbsent("Publication Year", k -> new TreeMap<>())
-                .put(String.valueOf(book.getPublicationYear()), book);
-        fieldMaps.computeIfAbsent("Original Title", k -> new TreeMap<>()).put(book.getOriginalTitle(), book);
-        fieldMaps.computeIfAbsent("Title", k -> new TreeMap<>()).put(book.getTitle(), book);
-        fieldMaps.computeIfAbsent("Average Rating", k -> new TreeMap<>())
-                .put(String.format("%.2f", book.getAverageRating()), book);
+    private void showBook(Book book) {
+        suggestions.setVisible(false);
+        if (currentTreeMap == null) {
+            return;
+        }
+        int found = BookLoader.position(currentField, currentTreeMap, book);
+        if (found >= 0) {
+            currentIndex = found;
+            currentCursor = currentTreeMap.cursorAt(found);
+            displayBook();
+        }
     }
     /**
      * Handles the action event when the order combo box selection changes.
+     * Selecting an ordering whose index is still being built puts the previous selection back.
      *
      * @param e The action event.
      */
     private void onFieldChanged(ActionEvent e) {
-        updateDisplay((String) comboBox.getSelectedItem());
+        String field = (String) comboBox.getSelectedItem();
+        if (field == null || field.equals(currentField)) {
+            return;
+        }
+        if (!fieldMaps.containsKey(field)) {
+            comboBox.setSelectedItem(currentField != null ? currentField : BookLoader.FIELDS[0]);
+            return;
+        }
+        updateDisplay(field);
+    }
+    /**
+     * Limits browsing by a numeric field to a range typed by the user, and switches to that ordering unless the
+     * current ordering already leads with the field. The range is a view of the field's index, so no filtered copy
+     * is made and the position field counts only the books in range. Blank text removes the range; text that cannot
+     * be read is ignored.
+     *
+     * @param field The field, "Publication Year" or "Average Rating".
+     * @param text  The range, written as from..to with either end optional, or a single value.
+     */
+    private void setRange(String field, String text) {
+        try {
+            int[] range = parseRange(text.trim(), field.equals("Average Rating"));
+            if (range == null) {
+                ranges.remove(field);
+            } else {
+                ranges.put(field, range);
+            }
+        } catch (NumberFormatException e) {
+            return;
+        }
+        if (currentField != null && BookLoader.leadingField(currentField).equals(field)) {
+            updateDisplay(currentField);
+        } else {
+            comboBox.setSelectedItem(field);
+        }
+    }
+    /**
+     * Reads a range typed by the user.
+     *
+     * @param text   The range, written as from..to with either end optional, or a single value.
+     * @param rating Whether the values are ratings, which are converted to fixed point.
+     * @return The inclusive bounds, or null if the text is blank.
+     * @throws NumberFormatException if a bound is not a number or the bounds are reversed.
+     */
+    private static int[] parseRange(String text, boolean rating) {
+        if (text.isEmpty()) {
+            return null;
+        }
+        int separator = text.indexOf("..");
+        String from = separator < 0 ? text : text.substring(0, separator).trim();
+        String to = separator < 0 ? text : text.substring(separator + 2).trim();
+        int[] range = {Integer.MIN_VALUE, Integer.MAX_VALUE};
+        if (!from.isEmpty()) {
+            range[0] = rating ? Book.toFixedPoint(Double.parseDouble(from)) : Integer.parseInt(from);
+        }
+        if (!to.isEmpty()) {
+            range[1] = rating ? Book.toFixedPoint(Double.parseDouble(to)) : Integer.parseInt(to);
+        }
+        if (range[0] > range[1]) {
+            throw new NumberFormatException("Reversed range: " + text);
+        }
+        return range;
     }
     /**
      * Updates the display based on the selected field (e.g., ISBN, Authors).
+     * The map is already ordered by the field, so switching only needs a cursor on its first node. If a range is set
+     * for the field, or for the field an ordering over several fields starts with, navigation is limited to a view of
+     * that range of the map.
      *
      * @param field The selected field for ordering.
      */
     private void updateDisplay(String field) {
-        currentTreeMap = fieldMaps.get(field);
-        currentKeys = new ArrayList<>(currentTreeMap.keySet()); // Get all keys
-        Collections.sort(currentKeys); // Sort keys based on the selected field
+        currentField = field;
+        int[] range = ranges.get(BookLoader.leadingField(field));
+        currentTreeMap = range == null ? fieldMaps.get(field) : BookLoader.range(field, fieldMaps.get(field), range[0], range[1]);
+        currentCursor = currentTreeMap.cursor();
         currentIndex = 0; // Reset index
-        displayBook(currentKeys.get(currentIndex));
+        tableModel.setIndex(currentTreeMap);
+        displayBook();
+    }
+    /**
+     * Shows the book in the row selected in the table, making it the current book for the buttons and fields.
+     */
+    private void onRowSelected() {
+        int row = table.getSelectedRow();
+        if (currentTreeMap == null || row < 0 || row == currentIndex) {
+            return;
+        }
+        currentIndex = row;
+        currentCursor = currentTreeMap.cursorAt(row);
+        displayBook();
     }
     /**
      * Navigates through the book collection (e.g., first, previous, next, last).
@@ -189,34 +577,109 @@ public class BookBrowser extends JFrame {
      * @param direction The navigation direction (first, prev, next, last).
      */
     private void navigate(String direction) {
-        if (currentKeys.isEmpty()) {
+        if (currentTreeMap == null || currentTreeMap.size() == 0) {
             return;
         }
 
         if (direction.equals("first")) {
+            currentCursor.first();
             currentIndex = 0;
-        } else if (direction.equals("prev") && currentIndex > 0) {
+        } else if (direction.equals("prev") && currentCursor.previous()) {
             currentIndex--;
-        } else if (direction.equals("next") && currentIndex < currentKeys.size() - 1) {
+        } else if (direction.equals("next") && currentCursor.next()) {
             currentIndex++;
         } else if (direction.equals("last")) {
-            currentIndex = currentKeys.size() - 1;
+            currentCursor.last();
+            currentIndex = currentTreeMap.size() - 1;
         }
-        displayBook(currentKeys.get(currentIndex));
+        displayBook();
     }
     /**
-     * Displays book details in the UI based on the selected key.
+     * Jumps to a 1-based position typed into the position field.
+     * Positions outside the collection are clamped to the first or last book.
      *
-     * @param key The selected key for displaying book details.
+     * @param text The text entered by the user.
+     */
+    private void jumpTo(String text) {
+        if (currentTreeMap == null || currentTreeMap.size() == 0) {
+            return;
+        }
+        try {
+            int requested = Integer.parseInt(text.trim()) - 1;
+            currentIndex = Math.max(0, Math.min(requested, currentTreeMap.size() - 1));
+            currentCursor = currentTreeMap.cursorAt(currentIndex);
+        } catch (NumberFormatException e) {
+            // Leave the current book in place and just restore the position text
+        }
+        displayBook();
+    }
+    /**
+     * Displays the details of the book at the current position in the UI, and selects and scrolls to its row in the
+     * table.
      */
-    private void displayBook(String key) {
-        Book book = currentTreeMap.get(key);
+    private void displayBook() {
+        if (currentTreeMap == null) {
+            return;
+        }
+        if (currentTreeMap.size() == 0) { // nothing in the selected range
+            for (JTextField field : new JTextField[] {bnField, authors, year, originalTitle, title, avgRating}) {
+                field.setText("");
+            }
+            position.setText("0 / 0");
+            table.clearSelection();
+            showCover("");
+            return;
+        }
+        Book book = currentCursor.value();
         bnField.setText(book.getIsbn());
         authors.setText(book.getAuthors());
         year.setText(Integer.toString(book.getPublicationYear()));
         originalTitle.setText(book.getOriginalTitle());
         title.setText(book.getTitle());
         avgRating.setText(Double.toString(book.getAverageRating()));
+        position.setText((currentIndex + 1) + " / " + currentTreeMap.size());
+        if (table.getSelectedRow() != currentIndex) {
+            table.getSelectionModel().setSelectionInterval(currentIndex, currentIndex);
+            table.scrollRectToVisible(table.getCellRect(currentIndex, 0, true));
+        }
+        showCover(book.getImageUrl());
+        // The buttons usually move one book at a time, so fetch the neighbours' covers ahead of time
+        if (currentIndex > 0) {
+            covers.prefetch(currentTreeMap.selectValue(currentIndex - 1).getImageUrl());
+        }
+        if (currentIndex < currentTreeMap.size() - 1) {
+            covers.prefetch(currentTreeMap.selectValue(currentIndex + 1).getImageUrl());
+        }
+    }
+    /**
+     * Shows a cover beside the book details: at once if it is in memory, otherwise when the background fetch
+     * finishes, provided the same cover is still wanted by then.
+     *
+     * @param url The cover URL, or an empty string for no cover.
+     */
+    private void showCover(String url) {
+        coverUrl = url;
+        BufferedImage image = covers.cached(url);
+        if (image != null || url.isEmpty()) {
+            setCover(image);
+            return;
+        }
+        cover.setIcon(null);
+        cover.setText("Loading...");
+        covers.load(url).whenComplete((loaded, error) -> SwingUtilities.invokeLater(() -> {
+            if (url.equals(coverUrl)) {
+                setCover(error == null ? loaded : null);
+            }
+        }));
+    }
+    /**
+     * Puts a cover in the cover label.
+     *
+     * @param image The cover, or null if there is none to show.
+     */
+    private void setCover(BufferedImage image) {
+        cover.setIcon(image == null ? null : new ImageIcon(image));
+        cover.setText(image == null ? "No cover" : "");
     }
 
     public static void main(String[] args) {
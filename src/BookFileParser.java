@@ -0,0 +1,450 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Loads the '~'-separated book data file into a {@link BookTable}.
+ * The file is memory-mapped and scanned byte by byte: only the columns the table stores are turned into Strings,
+ * numbers are parsed straight from the bytes, and the unused id columns are skipped without allocating.
+ * A UTF-8 byte order mark and the header line are skipped. Authors, titles and image URLs pass through a
+ * {@link StringPool} for the duration of a parse, so books with the same author list, or the same placeholder
+ * image, share one String. The two image columns may be missing, in which case the book has no cover.
+ * Large files can be split at line boundaries and parsed in chunks on a fork-join pool, and lines appended to a
+ * file after it was loaded can be parsed on their own.
+ */
+public class BookFileParser {
+    private static final byte SEPARATOR = '~';
+    private static final int ISBN_COLUMN = 2;
+    private static final int AUTHORS_COLUMN = 3;
+    private static final int YEAR_COLUMN = 4;
+    private static final int ORIGINAL_TITLE_COLUMN = 5;
+    private static final int TITLE_COLUMN = 6;
+    private static final int RATING_COLUMN = 7;
+    private static final int IMAGE_COLUMN = 8;
+    private static final int SMALL_IMAGE_COLUMN = 9;
+    private static final int MIN_CHUNK_BYTES = 64 * 1024;
+
+    private final ByteBuffer buffer;
+    private final int limit;
+    private final StringPool strings;
+    private byte[] scratch = new byte[256];
+
+    /**
+     * Constructs a parser over a mapped file.
+     *
+     * @param buffer  The mapped file contents.
+     * @param strings The pool that repeated authors and titles are shared through.
+     */
+    private BookFileParser(ByteBuffer buffer, StringPool strings) {
+        this.buffer = buffer;
+        this.limit = buffer.limit();
+        this.strings = strings;
+    }
+
+    /**
+     * Parses a whole data file into a new table.
+     *
+     * @param file The data file.
+     * @return A table holding every book in the file, in file order.
+     * @throws IOException if the file cannot be read or is too large to map.
+     * @throws IllegalArgumentException if a record is malformed.
+     */
+    public static BookTable parse(Path file) throws IOException {
+        BookTable table = new BookTable();
+        BookFileParser parser = new BookFileParser(map(file, 0, Long.MAX_VALUE), new StringPool());
+        parser.parseRecords(parser.firstRecordOffset(), parser.limit, table);
+        return table;
+    }
+
+    /**
+     * Parses a whole data file into a new table, splitting it into chunks at line boundaries and parsing the chunks
+     * concurrently on the given pool. The chunk tables are concatenated in file order, so row ids are the same as
+     * with {@link #parse(Path)}.
+     *
+     * @param file The data file.
+     * @param pool The pool to parse on.
+     * @return A table holding every book in the file, in file order.
+     * @throws IOException if the file cannot be read or is too large to map.
+     * @throws IllegalArgumentException if a record is malformed.
+     */
+    public static BookTable parse(Path file, ForkJoinPool pool) throws IOException {
+        ByteBuffer mapped = map(file, 0, Long.MAX_VALUE);
+        StringPool strings = new StringPool();
+        BookFileParser header = new BookFileParser(mapped, strings);
+        BookTable table = new BookTable();
+        parseChunks(mapped, strings, header.firstRecordOffset(), header.limit, pool, table);
+        return table;
+    }
+
+    /**
+     * Parses the complete lines in the first bytes of a data file as {@link #parse(Path, ForkJoinPool)} does. A
+     * record the writer is still in the middle of appending is left out, so a caller that goes on to follow the file
+     * can resume from the returned offset with {@link #parseAppended(Path, long, BookTable)}. A final line without a
+     * terminator is taken as finished, and parsed, if the file has not grown while the rest was parsed and the line
+     * is a well-formed record.
+     *
+     * @param file   The data file.
+     * @param length The number of bytes to look at, normally the file's size when loading started; anything past
+     *               the end of the file is ignored.
+     * @param pool   The pool to parse on.
+     * @param table  The table receiving the books, in file order.
+     * @return The offset just past the last line parsed.
+     * @throws IOException if the file cannot be read or is too large to map.
+     * @throws IllegalArgumentException if a record is malformed.
+     */
+    public static long parse(Path file, long length, ForkJoinPool pool, BookTable table) throws IOException {
+        ByteBuffer mapped = map(file, 0, length);
+        StringPool strings = new StringPool();
+        BookFileParser header = new BookFileParser(mapped, strings);
+        int start = header.firstRecordOffset();
+        int end = header.limit;
+        while (end > start && mapped.get(end - 1) != '\n') {
+            end--;
+        }
+        parseChunks(mapped, strings, start, end, pool, table);
+
+        // A file that ends without a line terminator and has stopped changing is finished, not half written; a final
+        // line that does not parse is still taken to be half written and left for whoever follows the file
+        if (end < header.limit && Files.size(file) == header.limit) {
+            int records = table.size();
+            header.parseRecords(end, header.limit, table, e -> { });
+            if (table.size() > records) {
+                end = header.limit;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Private helper method splitting part of a mapped file into chunks at line boundaries and parsing the chunks
+     * concurrently. The chunk tables are added to the table in file order.
+     *
+     * @param mapped  The mapped file contents.
+     * @param strings The pool that repeated authors and titles are shared through.
+     * @param start   The offset of the first record.
+     * @param end     The offset just past the last record.
+     * @param pool    The pool to parse on.
+     * @param table   The table receiving the books.
+     */
+    private static void parseChunks(ByteBuffer mapped, StringPool strings, int start, int end, ForkJoinPool pool,
+                                    BookTable table) {
+        BookFileParser header = new BookFileParser(mapped, strings);
+        int chunkBytes = Math.max(MIN_CHUNK_BYTES, (end - start) / (pool.getParallelism() * 4) + 1);
+
+        List<ForkJoinTask<BookTable>> chunks = new ArrayList<>();
+        while (start < end) {
+            int chunkEnd = header.nextLine(Math.min(start + chunkBytes, end) - 1);
+            int chunkStart = start;
+            // Each task reads through its own duplicate so no buffer state is shared between threads
+            chunks.add(pool.submit(() -> {
+                BookTable chunk = new BookTable((chunkEnd - chunkStart) / 128 + 1);
+                new BookFileParser(mapped.duplicate(), strings).parseRecords(chunkStart, chunkEnd, chunk);
+                return chunk;
+            }));
+            start = chunkEnd;
+        }
+
+        for (ForkJoinTask<BookTable> chunk : chunks) {
+            table.addAll(chunk.join());
+        }
+    }
+
+    /**
+     * Parses the records appended to a data file since an earlier read ended. Only complete lines are parsed, so a
+     * record the writer is still in the middle of appending is left for the next call.
+     *
+     * @param file   The data file.
+     * @param offset The offset just past the last byte already read, which must be on a line boundary.
+     * @param table  The table receiving the new books.
+     * @return The offset just past the last complete line parsed, where the next call should start.
+     * @throws IOException if the file cannot be read or the appended part is too large to map.
+     * @throws IllegalArgumentException if an appended record is malformed.
+     */
+    public static long parseAppended(Path file, long offset, BookTable table) throws IOException {
+        return parseAppended(file, offset, table, null);
+    }
+
+    /**
+     * Parses the records appended to a data file as {@link #parseAppended(Path, long, BookTable)} does, but skips a
+     * malformed record instead of failing, so one bad line does not hold back the lines after it.
+     *
+     * @param file        The data file.
+     * @param offset      The offset just past the last byte already read, which must be on a line boundary.
+     * @param table       The table receiving the new books.
+     * @param onMalformed Receives the failure for each skipped record, or null to fail on the first one.
+     * @return The offset just past the last complete line parsed, where the next call should start.
+     * @throws IOException if the file cannot be read or the appended part is too large to map.
+     * @throws IllegalArgumentException if an appended record is malformed and onMalformed is null.
+     */
+    public static long parseAppended(Path file, long offset, BookTable table,
+                                     Consumer<IllegalArgumentException> onMalformed) throws IOException {
+        BookFileParser parser = new BookFileParser(map(file, offset, Long.MAX_VALUE), new StringPool());
+        int end = parser.limit;
+        while (end > 0 && parser.buffer.get(end - 1) != '\n') {
+            end--;
+        }
+        parser.parseRecords(0, end, table, onMalformed);
+        return offset + end;
+    }
+
+    /**
+     * Maps part of a data file into memory.
+     *
+     * @param file   The data file.
+     * @param offset The offset of the first byte to map.
+     * @param length The number of bytes to map; anything past the end of the file is left out.
+     * @return A read-only buffer over the mapped bytes, empty if the file ends before the offset.
+     * @throws IOException if the file cannot be read or the part is too large to map.
+     */
+    private static ByteBuffer map(Path file, long offset, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long mapped = Math.max(0, Math.min(length, channel.size() - offset));
+            if (mapped > Integer.MAX_VALUE) {
+                throw new IOException("Data file is too large to map: " + mapped + " bytes");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, Math.min(offset, channel.size()), mapped);
+        }
+    }
+
+    /**
+     * Finds where the first record starts, past the optional byte order mark and the header line.
+     *
+     * @return The offset of the first byte after the header line.
+     */
+    private int firstRecordOffset() {
+        int position = 0;
+        if (limit >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB && buffer.get(2) == (byte) 0xBF) {
+            position = 3;
+        }
+        return nextLine(position);
+    }
+
+    /**
+     * Returns the offset just past the end of the line containing the given offset.
+     *
+     * @param position An offset within a line.
+     * @return The offset of the next line, or the end of the file.
+     */
+    private int nextLine(int position) {
+        while (position < limit && buffer.get(position) != '\n') {
+            position++;
+        }
+        return Math.min(position + 1, limit);
+    }
+
+    /**
+     * Parses every complete or final record between two offsets that lie on line boundaries.
+     *
+     * @param start The offset of the first record.
+     * @param end   The offset just past the last record.
+     * @param table The table receiving the books.
+     * @throws IllegalArgumentException if a record is malformed.
+     */
+    private void parseRecords(int start, int end, BookTable table) {
+        parseRecords(start, end, table, null);
+    }
+
+    /**
+     * Parses every complete or final record between two offsets that lie on line boundaries, optionally skipping
+     * malformed records.
+     *
+     * @param start       The offset of the first record.
+     * @param end         The offset just past the last record.
+     * @param table       The table receiving the books.
+     * @param onMalformed Receives the failure for each skipped record, or null to fail on the first one.
+     * @throws IllegalArgumentException if a record is malformed and onMalformed is null.
+     */
+    private void parseRecords(int start, int end, BookTable table, Consumer<IllegalArgumentException> onMalformed) {
+        int position = start;
+        while (position < end) {
+            int lineEnd = position;
+            while (lineEnd < end && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd;
+            if (contentEnd > position && buffer.get(contentEnd - 1) == '\r') {
+                contentEnd--;
+            }
+            if (contentEnd > position) {
+                try {
+                    parseRecord(position, contentEnd, table);
+                } catch (IllegalArgumentException e) {
+                    // A record is only added once it has parsed, so skipping it leaves the table consistent
+                    if (onMalformed == null) {
+                        throw e;
+                    }
+                    onMalformed.accept(e);
+                }
+            }
+            position = lineEnd + 1;
+        }
+    }
+
+    /**
+     * Parses one record and appends it to the table.
+     *
+     * @param start The offset of the first byte of the record.
+     * @param end   The offset just past the record, excluding the line terminator.
+     * @param table The table receiving the book.
+     * @throws IllegalArgumentException if the record has too few columns or a malformed number.
+     */
+    private void parseRecord(int start, int end, BookTable table) {
+        String isbn = null, authors = null, originalTitle = null, title = null, image = "", smallImage = "";
+        int year = 0, rating = 0;
+        int column = 0;
+        int fieldStart = start;
+        for (int position = start; position <= end && column <= SMALL_IMAGE_COLUMN; position++) {
+            if (position < end && buffer.get(position) != SEPARATOR) {
+                continue;
+            }
+            switch (column) {
+                case ISBN_COLUMN:
+                    isbn = text(fieldStart, position);
+                    break;
+                case AUTHORS_COLUMN:
+                    authors = strings.canonical(text(fieldStart, position));
+                    break;
+                case YEAR_COLUMN:
+                    year = parseInt(fieldStart, position, start, end);
+                    break;
+                case ORIGINAL_TITLE_COLUMN:
+                    originalTitle = strings.canonical(text(fieldStart, position));
+                    break;
+                case TITLE_COLUMN:
+                    title = strings.canonical(text(fieldStart, position));
+                    break;
+                case RATING_COLUMN:
+                    rating = parseFixedPoint(fieldStart, position, start, end);
+                    break;
+                case IMAGE_COLUMN:
+                    image = strings.canonical(text(fieldStart, position));
+                    break;
+                case SMALL_IMAGE_COLUMN:
+                    smallImage = strings.canonical(text(fieldStart, position));
+                    break;
+                default: // id columns are not stored
+                    break;
+            }
+            column++;
+            fieldStart = position + 1;
+        }
+        if (column <= RATING_COLUMN) {
+            throw new IllegalArgumentException("Invalid book data format: " + record(start, end));
+        }
+        table.add(isbn, authors, year, originalTitle, title, rating, image, smallImage);
+    }
+
+    /**
+     * Decodes a field as text. Pure ASCII fields, the common case, are copied without running the UTF-8 decoder.
+     *
+     * @param start The offset of the field.
+     * @param end   The offset just past the field.
+     * @return The field's text.
+     */
+    private String text(int start, int end) {
+        int length = end - start;
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        boolean ascii = true;
+        for (int i = 0; i < length; i++) {
+            byte b = buffer.get(start + i);
+            scratch[i] = b;
+            ascii &= b >= 0;
+        }
+        return new String(scratch, 0, length, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses a field holding an optionally negative whole number.
+     *
+     * @param start       The offset of the field.
+     * @param end         The offset just past the field.
+     * @param recordStart The offset of the record, for error messages.
+     * @param recordEnd   The offset just past the record, for error messages.
+     * @return The parsed number.
+     * @throws IllegalArgumentException if the field is not a number.
+     */
+    private int parseInt(int start, int end, int recordStart, int recordEnd) {
+        boolean negative = start < end && buffer.get(start) == '-';
+        int position = negative ? start + 1 : start;
+        if (position == end) {
+            throw new IllegalArgumentException("Invalid number in book data: " + record(recordStart, recordEnd));
+        }
+        int value = 0;
+        for (; position < end; position++) {
+            int digit = buffer.get(position) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Invalid number in book data: " + record(recordStart, recordEnd));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a decimal rating such as "4.34" or "3.9" straight into fixed-point hundredths.
+     * Digits beyond the second decimal place are rounded.
+     *
+     * @param start       The offset of the field.
+     * @param end         The offset just past the field.
+     * @param recordStart The offset of the record, for error messages.
+     * @param recordEnd   The offset just past the record, for error messages.
+     * @return The rating scaled by {@link Book#RATING_SCALE}.
+     * @throws IllegalArgumentException if the field is not a decimal number.
+     */
+    private int parseFixedPoint(int start, int end, int recordStart, int recordEnd) {
+        int value = 0;
+        int decimals = -1;
+        boolean roundUp = false;
+        for (int position = start; position < end; position++) {
+            byte b = buffer.get(position);
+            if (b == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (b >= '0' && b <= '9') {
+                if (decimals < 2) {
+                    value = value * 10 + (b - '0');
+                    if (decimals >= 0) {
+                        decimals++;
+                    }
+                } else if (decimals == 2) {
+                    roundUp = b >= '5';
+                    decimals++;
+                }
+            } else {
+                throw new IllegalArgumentException("Invalid rating in book data: " + record(recordStart, recordEnd));
+            }
+        }
+        if (start == end) {
+            throw new IllegalArgumentException("Invalid rating in book data: " + record(recordStart, recordEnd));
+        }
+        for (int i = Math.max(decimals, 0); i < 2; i++) {
+            value *= 10;
+        }
+        return roundUp ? value + 1 : value;
+    }
+
+    /**
+     * Decodes a whole record, used only to describe malformed input.
+     *
+     * @param start The offset of the record.
+     * @param end   The offset just past the record.
+     * @return The record's text.
+     */
+    private String record(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
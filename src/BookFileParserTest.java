@@ -0,0 +1,202 @@
+/**
+ * This class contains a set of JUnit 5 tests for the BookFileParser class.
+ * It parses small data files written to a temporary directory and checks the resulting BookTable.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+
+public class BookFileParserTest {
+
+    private static final String HEADER =
+            "book_id~goodreads_book_id~isbn~authors~pub_year~original_title~title~average_rating~image_url~small_image_url";
+
+    /**
+     * Writes the given lines to a temporary data file.
+     *
+     * @param bom   Whether to start the file with a UTF-8 byte order mark.
+     * @param lines The lines of the file, joined with CRLF as in the real data file.
+     * @return The path of the new file.
+     * @throws IOException if the file cannot be written.
+     */
+    private Path writeDataFile(boolean bom, String... lines) throws IOException {
+        Path file = Files.createTempFile("books", ".txt");
+        file.toFile().deleteOnExit();
+        byte[] text = String.join("\r\n", lines).getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = text;
+        if (bom) {
+            bytes = new byte[text.length + 3];
+            bytes[0] = (byte) 0xEF;
+            bytes[1] = (byte) 0xBB;
+            bytes[2] = (byte) 0xBF;
+            System.arraycopy(text, 0, bytes, 3, text.length);
+        }
+        Files.write(file, bytes);
+        return file;
+    }
+
+    /**
+     * Tests parsing records with a byte order mark, CRLF line ends, non-ASCII text and a BC year.
+     */
+    @Test
+    public void testParse() throws IOException {
+        Path file = writeDataFile(true, HEADER,
+                "1~2767052~0439023483~Suzanne Collins~2008~The Hunger Games~The Hunger Games (The Hunger Games, #1)~4.34~https://a/m.jpg~https://a/s.jpg",
+                "2~3~0439554934~J.K. Rowling, Mary GrandPr\u00e9~1997~Harry Potter and the Philosopher's Stone~Harry Potter and the Sorcerer's Stone (Harry Potter, #1)~4.44~https://b/m.jpg~https://b/s.jpg",
+                "79~1381~0143039954~Homer, Robert Fagles~-720~\u1f48\u03b4\u03cd\u03c3\u03c3\u03b5\u03b9\u03b1~The Odyssey~3.7~https://c/m.jpg~https://c/s.jpg",
+                "");
+
+        BookTable table = BookFileParser.parse(file);
+        assertEquals(3, table.size());
+        assertEquals("0439023483", table.getIsbn(0));
+        assertEquals("The Hunger Games (The Hunger Games, #1)", table.getTitle(0));
+        assertEquals(434, table.getRatingFixedPoint(0));
+        assertEquals("https://a/m.jpg", table.getImageUrl(0));
+        assertEquals("https://a/s.jpg", table.getSmallImageUrl(0));
+        assertEquals("J.K. Rowling, Mary GrandPr\u00e9", table.getAuthors(1));
+        assertEquals(-720, table.getPublicationYear(2));
+        assertEquals("\u1f48\u03b4\u03cd\u03c3\u03c3\u03b5\u03b9\u03b1", table.getOriginalTitle(2));
+        assertEquals(370, table.getRatingFixedPoint(2));
+        assertEquals(3.7, table.book(2).getAverageRating(), 1e-9);
+    }
+
+    /**
+     * Tests that books with the same author list share one String once parsed.
+     */
+    @Test
+    public void testRepeatedTextShared() throws IOException {
+        Path file = writeDataFile(false, HEADER,
+                "1~2~0439023483~Suzanne Collins~2008~The Hunger Games~The Hunger Games~4.34~x~y",
+                "2~3~0439023499~Suzanne Collins~2009~Catching Fire~Catching Fire~4.3~x~y");
+
+        BookTable table = BookFileParser.parse(file);
+        assertSame(table.getAuthors(0), table.getAuthors(1));
+        assertSame(table.getOriginalTitle(1), table.getTitle(1));
+    }
+
+    /**
+     * Tests that a record with too few columns is rejected, as the line-splitting parser did.
+     */
+    @Test
+    public void testMalformedRecord() throws IOException {
+        Path file = writeDataFile(false, HEADER, "1~2~0439023483~Suzanne Collins~2008");
+        assertThrows(IllegalArgumentException.class, () -> BookFileParser.parse(file));
+
+        Path badYear = writeDataFile(false, HEADER, "1~2~0439023483~Suzanne Collins~20o8~A~B~4.34~x~y");
+        assertThrows(IllegalArgumentException.class, () -> BookFileParser.parse(badYear));
+    }
+
+    /**
+     * Tests that parsing in chunks on a pool gives the same rows, in the same order, as parsing sequentially.
+     * The file is large enough to be split into several chunks.
+     */
+    @Test
+    public void testParallelParseMatchesSequential() throws IOException {
+        String[] lines = new String[4001];
+        lines[0] = HEADER;
+        for (int i = 1; i < lines.length; i++) {
+            lines[i] = i + "~" + i + "~isbn" + i + "~Author " + (i % 97) + "~" + (1900 + i % 120)
+                    + "~Original " + i + "~Title " + i + "~" + (i % 5) + "." + (i % 100) + "~https://m/" + i + "~https://s/" + i;
+        }
+        Path file = writeDataFile(false, lines);
+
+        BookTable sequential = BookFileParser.parse(file);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            BookTable chunked = BookFileParser.parse(file, pool);
+            assertEquals(4000, chunked.size());
+            assertEquals(sequential.size(), chunked.size());
+            for (int row = 0; row < sequential.size(); row++) {
+                assertEquals(sequential.getIsbn(row), chunked.getIsbn(row));
+                assertEquals(sequential.getTitle(row), chunked.getTitle(row));
+                assertEquals(sequential.getPublicationYear(row), chunked.getPublicationYear(row));
+                assertEquals(sequential.getRatingFixedPoint(row), chunked.getRatingFixedPoint(row));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests that reading appended records picks up only complete lines and resumes where the last read stopped.
+     */
+    @Test
+    public void testParseAppended() throws IOException {
+        Path file = writeDataFile(false, HEADER,
+                "1~2767052~0439023483~Suzanne Collins~2008~The Hunger Games~The Hunger Games~4.34~https://a/m.jpg~https://a/s.jpg",
+                "");
+        BookTable loaded = new BookTable();
+        long offset = BookFileParser.parse(file, Files.size(file), ForkJoinPool.commonPool(), loaded);
+        assertEquals(1, loaded.size());
+        assertEquals(Files.size(file), offset);
+
+        Files.write(file, ("3~3~0316015849~Stephenie Meyer~2005~Twilight~Twilight~3.57~https://c/m.jpg~https://c/s.jpg\r\n"
+                + "4~2657~0061120081~Harper Lee~1960~To Kill a Mockingbird").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        BookTable appended = new BookTable();
+        offset = BookFileParser.parseAppended(file, offset, appended);
+        assertEquals(1, appended.size());
+        assertEquals("Twilight", appended.getTitle(0));
+
+        Files.write(file, "~To Kill a Mockingbird~4.25~https://d/m.jpg~https://d/s.jpg\r\n".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        appended = new BookTable();
+        offset = BookFileParser.parseAppended(file, offset, appended);
+        assertEquals(1, appended.size());
+        assertEquals(1960, appended.getPublicationYear(0));
+        assertEquals(Files.size(file), offset);
+    }
+
+    /**
+     * Tests that the first read leaves out a record the writer is still in the middle of appending, and stops at the
+     * line boundary before it, even though the half-written line is the last thing in the file.
+     */
+    @Test
+    public void testParseLeavesPartialLine() throws IOException {
+        Path file = writeDataFile(false, HEADER,
+                "1~2767052~0439023483~Suzanne Collins~2008~The Hunger Games~The Hunger Games~4.34~https://a/m.jpg~https://a/s.jpg",
+                "4~2657~0061120081~Harper Lee~1960~To Kill");
+        BookTable loaded = new BookTable();
+        long offset = BookFileParser.parse(file, Files.size(file), ForkJoinPool.commonPool(), loaded);
+        assertEquals(1, loaded.size());
+        assertEquals(Files.size(file) - "4~2657~0061120081~Harper Lee~1960~To Kill".length(), offset);
+
+        Files.write(file, " a Mockingbird~To Kill a Mockingbird~4.25~https://d/m.jpg~https://d/s.jpg\r\n"
+                .getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        BookTable appended = new BookTable();
+        assertEquals(Files.size(file), BookFileParser.parseAppended(file, offset, appended));
+        assertEquals("To Kill a Mockingbird", appended.getTitle(0));
+    }
+
+    /**
+     * Tests that a finished file whose last record has no line terminator loads every record and is read to its end,
+     * which is what lets the browser save a snapshot of it, and that lines appended later are still picked up.
+     */
+    @Test
+    public void testParseFinalLineWithoutTerminator() throws IOException {
+        Path file = writeDataFile(false, HEADER,
+                "1~2767052~0439023483~Suzanne Collins~2008~The Hunger Games~The Hunger Games~4.34~https://a/m.jpg~https://a/s.jpg",
+                "3~3~0316015849~Stephenie Meyer~2005~Twilight~Twilight~3.57");
+        BookTable loaded = new BookTable();
+        long offset = BookFileParser.parse(file, Files.size(file), ForkJoinPool.commonPool(), loaded);
+        assertEquals(2, loaded.size());
+        assertEquals("Twilight", loaded.getTitle(1));
+        assertEquals(Files.size(file), offset);
+
+        Files.write(file, "\r\n4~2657~0061120081~Harper Lee~1960~To Kill a Mockingbird~To Kill a Mockingbird~4.25\r\n"
+                .getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        BookTable appended = new BookTable();
+        assertEquals(Files.size(file), BookFileParser.parseAppended(file, offset, appended));
+        assertEquals(1, appended.size());
+        assertEquals(1960, appended.getPublicationYear(0));
+    }
+}
@@ -0,0 +1,142 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.function.Consumer;
+
+/**
+ * Follows a data file that is appended to while it is in use.
+ * The tailer remembers the offset just past the last line it has read, and each time the file changes it parses
+ * only the complete lines added since then, so the cost of an update depends on what was appended rather than on
+ * the size of the file. A malformed line is skipped and reported, so one bad record does not hold back the lines
+ * appended after it. A file that shrinks has been rewritten rather than appended to; its old offset no longer falls
+ * on a line boundary, so reading it fails rather than parsing from the middle of a record.
+ */
+public class BookFileTailer implements Closeable {
+    private final Path file;
+    private long offset;
+    private boolean rewritten;
+    private WatchService watcher;
+
+    /**
+     * Constructs a tailer for a file whose first bytes have already been loaded.
+     *
+     * @param file   The data file.
+     * @param offset The number of bytes already loaded, which must end on a line boundary or at the end of a final
+     *               line without a terminator.
+     */
+    public BookFileTailer(Path file, long offset) {
+        this.file = file.toAbsolutePath();
+        this.offset = offset;
+    }
+
+    /**
+     * Gets the offset the next read will start from.
+     *
+     * @return The number of bytes of the file read so far.
+     */
+    public synchronized long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Parses the complete lines appended since the last read. A malformed line is consumed like any other, but
+     * instead of becoming a book it is passed to the given consumer.
+     *
+     * @param onMalformed Receives the failure for each malformed line skipped.
+     * @return A table of the new books in file order; empty if nothing complete has been appended.
+     * @throws IOException if the file cannot be read, or has been seen shorter than what was already read.
+     */
+    public synchronized BookTable readAppended(Consumer<? super IllegalArgumentException> onMalformed)
+            throws IOException {
+        BookTable appended = new BookTable();
+        long size = Files.size(file);
+        // Once the file has shrunk the offset means nothing, even after the file grows past it again
+        rewritten |= size < offset;
+        if (rewritten) {
+            throw new IOException("Data file was rewritten after " + offset + " bytes of it were read");
+        }
+        if (size > offset) {
+            offset = BookFileParser.parseAppended(file, offset, appended, onMalformed::accept);
+        }
+        return appended;
+    }
+
+    /**
+     * Starts watching the file on a background daemon thread. Whenever the file changes, any new books are passed
+     * to the listener on that thread. Each malformed line is skipped and its {@link IllegalArgumentException} passed
+     * to the error listener while watching goes on; after any other failure the error is passed on and watching
+     * stops.
+     *
+     * @param onAppended Receives each non-empty batch of appended books.
+     * @param onError    Receives each skipped line's failure, and the failure that stopped the watch.
+     * @throws IOException if the file's directory cannot be watched.
+     * @throws IllegalStateException if the tailer is already watching.
+     */
+    public synchronized void start(Consumer<BookTable> onAppended, Consumer<Exception> onError) throws IOException {
+        if (watcher != null) {
+            throw new IllegalStateException("Already watching " + file);
+        }
+        watcher = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watcher, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+        WatchService service = watcher;
+
+        Thread thread = new Thread(() -> watch(service, onAppended, onError), "BookFileTailer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops watching the file. Reading with {@link #readAppended()} is still possible.
+     *
+     * @throws IOException if the watch service cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    /**
+     * Private helper method running the watch loop until the service is closed or a read fails.
+     *
+     * @param service    The watch service registered on the file's directory.
+     * @param onAppended Receives each non-empty batch of appended books.
+     * @param onError    Receives each skipped line's failure, and the failure that stopped the watch.
+     */
+    private void watch(WatchService service, Consumer<BookTable> onAppended, Consumer<Exception> onError) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    // An overflow has no context; it means events were lost, so check the file anyway
+                    changed |= event.context() == null || file.getFileName().equals(event.context());
+                }
+                key.reset();
+                if (changed) {
+                    BookTable appended = readAppended(onError);
+                    if (appended.size() > 0) {
+                        onAppended.accept(appended);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed or interrupted: stop watching quietly
+        } catch (IOException | RuntimeException e) {
+            onError.accept(e);
+            try {
+                close();
+            } catch (IOException ignored) {
+                // The watch has already failed
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * This class contains a set of JUnit 5 tests for the BookFileTailer class.
+ * Lines are appended to a temporary data file and read back through the tailer.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BookFileTailerTest {
+
+    private static final String HEADER =
+            "book_id~goodreads_book_id~isbn~authors~pub_year~original_title~title~average_rating~image_url~small_image_url\r\n";
+    private static final String HUNGER_GAMES =
+            "1~2767052~0439023483~Suzanne Collins~2008~The Hunger Games~The Hunger Games~4.34~https://a/m.jpg~https://a/s.jpg\r\n";
+    private static final String TWILIGHT =
+            "3~3~0316015849~Stephenie Meyer~2005~Twilight~Twilight~3.57~https://c/m.jpg~https://c/s.jpg\r\n";
+
+    /**
+     * Writes a data file holding the header and one book.
+     *
+     * @return The path of the new file.
+     * @throws IOException if the file cannot be written.
+     */
+    private Path writeDataFile() throws IOException {
+        Path file = Files.createTempFile("books", ".txt");
+        file.toFile().deleteOnExit();
+        return Files.write(file, (HEADER + HUNGER_GAMES).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Appends text to a data file.
+     *
+     * @param file The data file.
+     * @param text The text to append.
+     * @throws IOException if the file cannot be written.
+     */
+    private void append(Path file, String text) throws IOException {
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Tests that a malformed appended line is reported and skipped, and the good line after it is still read.
+     */
+    @Test
+    public void testMalformedLineIsSkipped() throws IOException {
+        Path file = writeDataFile();
+        BookFileTailer tailer = new BookFileTailer(file, Files.size(file));
+        List<IllegalArgumentException> errors = new ArrayList<>();
+
+        append(file, "2~4~0439554934~J.K. Rowling~not a year~Harry Potter~Harry Potter~4.44\r\n" + TWILIGHT);
+        BookTable appended = tailer.readAppended(errors::add);
+        assertEquals(1, errors.size());
+        assertEquals(1, appended.size());
+        assertEquals("Twilight", appended.getTitle(0));
+        assertEquals(Files.size(file), tailer.getOffset());
+
+        assertEquals(0, tailer.readAppended(errors::add).size());
+        assertEquals(1, errors.size());
+    }
+
+    /**
+     * Tests that a file rewritten shorter than what was read is reported rather than read from the old offset, even
+     * once it has grown past that offset again.
+     */
+    @Test
+    public void testRewrittenFileFails() throws IOException {
+        Path file = writeDataFile();
+        BookFileTailer tailer = new BookFileTailer(file, Files.size(file));
+        List<IllegalArgumentException> errors = new ArrayList<>();
+        Files.write(file, HEADER.getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> tailer.readAppended(errors::add));
+
+        append(file, TWILIGHT + TWILIGHT);
+        assertThrows(IOException.class, () -> tailer.readAppended(errors::add));
+        assertTrue(errors.isEmpty());
+    }
+}
@@ -0,0 +1,502 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Loads the book data file and builds the field indexes the browser orders books by.
+ * Parsing is split into chunks on a fork-join pool, and each of the indexes is then built by its own task.
+ * The ISBN index, the default ordering, is always built first so a caller can start showing books before the rest.
+ */
+public class BookLoader {
+
+    /**
+     * The fields books can be ordered by, in the order the browser offers them. "Authors by Year" orders by authors,
+     * then year, then title, and "Year by Title" by year, then title; both are indexed by {@link CompositeKey}.
+     */
+    public static final String[] FIELDS = {"ISBN", "Authors", "Publication Year", "Original Title", "Title", "Average Rating",
+            "Authors by Year", "Year by Title"};
+
+    private static final Function<Book, SortKey> AUTHORS_KEY = book -> SortKey.of(book.getAuthors());
+    private static final Function<Book, SortKey> TITLE_KEY = book -> SortKey.title(book.getTitle());
+
+    private BookLoader() {
+    }
+
+    /**
+     * Parses a whole data file on the given pool.
+     *
+     * @param file The data file.
+     * @param pool The pool to parse on.
+     * @return The parsed books, in file order.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if a record is malformed.
+     */
+    public static BookTable parse(Path file, ForkJoinPool pool) throws IOException {
+        return BookFileParser.parse(file, pool);
+    }
+
+    /**
+     * Parses the complete lines in the first bytes of a data file on the given pool.
+     *
+     * @param file   The data file.
+     * @param length The number of bytes to look at, normally the file's size when loading started.
+     * @param pool   The pool to parse on.
+     * @param table  The table receiving the parsed books, in file order.
+     * @return The offset just past the last complete line parsed, where following the file should resume.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if a record is malformed.
+     */
+    public static long parse(Path file, long length, ForkJoinPool pool, BookTable table) throws IOException {
+        return BookFileParser.parse(file, length, pool, table);
+    }
+
+    /**
+     * Creates one view per row of a table. The views are shared by every index, so each book is a single object.
+     *
+     * @param table The table.
+     * @return A view of every row, in row order.
+     */
+    public static List<Book> books(BookTable table) {
+        List<Book> books = new ArrayList<>(table.size());
+        for (int row = 0; row < table.size(); row++) {
+            books.add(table.book(row));
+        }
+        return books;
+    }
+
+    /**
+     * Builds every field index and collects them into a map.
+     *
+     * @param books The books to index.
+     * @param pool  The pool to build on.
+     * @return The indexes, keyed by field name.
+     */
+    public static Map<String, RankedTreeMapInterface<?, Book>> buildIndexes(List<Book> books, ForkJoinPool pool) {
+        Map<String, RankedTreeMapInterface<?, Book>> indexes = new HashMap<>();
+        buildIndexes(books, pool, indexes::put);
+        return indexes;
+    }
+
+    /**
+     * Builds every field index, reporting each one as soon as it is ready.
+     * The ISBN index is built first on the calling thread; the other five are then built concurrently, one task per
+     * index, and reported in the order they finish. The callback always runs on the calling thread.
+     *
+     * @param books   The books to index.
+     * @param pool    The pool to build on.
+     * @param onBuilt Receives each field name with its finished index.
+     */
+    public static void buildIndexes(List<Book> books, ForkJoinPool pool,
+                                    BiConsumer<String, RankedTreeMapInterface<?, Book>> onBuilt) {
+        buildIndexes(books, null, pool, onBuilt);
+    }
+
+    /**
+     * Builds every field index as {@link #buildIndexes(List, ForkJoinPool, BiConsumer)} does, but from rows that
+     * are already in field order, such as those saved in a {@link BookSnapshot}. No sorting is done; each tree is
+     * linked straight from its order.
+     *
+     * @param books   The books to index.
+     * @param orders  For each of {@link #FIELDS}, the row ids in that field's order, or null to sort the books here.
+     * @param pool    The pool to build on.
+     * @param onBuilt Receives each field name with its finished index.
+     */
+    public static void buildIndexes(List<Book> books, int[][] orders, ForkJoinPool pool,
+                                    BiConsumer<String, RankedTreeMapInterface<?, Book>> onBuilt) {
+        // The text-keyed indexes share their sort keys, so each distinct author or title is collated once
+        Function<String, SortKey> authors = memoize(SortKey::of);
+        Function<String, SortKey> titles = memoize(SortKey::title);
+        onBuilt.accept(FIELDS[0], buildIndex(FIELDS[0], books, orders == null ? null : orders[0], authors, titles));
+
+        CompletionService<Map.Entry<String, RankedTreeMapInterface<?, Book>>> built = new ExecutorCompletionService<>(pool);
+        for (int i = 1; i < FIELDS.length; i++) {
+            String field = FIELDS[i];
+            int[] order = orders == null ? null : orders[i];
+            built.submit(() -> Map.entry(field, buildIndex(field, books, order, authors, titles)));
+        }
+        for (int i = 1; i < FIELDS.length; i++) {
+            Map.Entry<String, RankedTreeMapInterface<?, Book>> index = take(built);
+            onBuilt.accept(index.getKey(), index.getValue());
+        }
+    }
+
+    /**
+     * Private helper method waiting for the next finished index, unwrapping any failure from its task.
+     *
+     * @param built The service the index tasks were submitted to.
+     * @return The next finished field name and index.
+     * @throws IllegalStateException if the calling thread is interrupted while waiting.
+     */
+    private static Map.Entry<String, RankedTreeMapInterface<?, Book>> take(
+            CompletionService<Map.Entry<String, RankedTreeMapInterface<?, Book>>> built) {
+        try {
+            return built.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while building indexes", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Builds the index for one field. The maps are multi-valued, so books sharing an author, year or rating are all
+     * kept. Year and rating are indexed by int keys (the rating as fixed-point hundredths), so they sort numerically.
+     * Authors and titles are indexed by {@link SortKey}, so they sort as a reader expects, titles ignoring a leading
+     * article; the ISBN is indexed by its String, and the orderings over several fields by {@link CompositeKey}.
+     *
+     * @param field One of {@link #FIELDS}.
+     * @param books The books to index.
+     * @return A balanced, multi-valued map from field value to book.
+     * @throws IllegalArgumentException if the field is unknown.
+     */
+    public static RankedTreeMapInterface<?, Book> buildIndex(String field, List<Book> books) {
+        return buildIndex(field, books, null);
+    }
+
+    /**
+     * Builds the index for one field, optionally from rows already in field order.
+     *
+     * @param field One of {@link #FIELDS}.
+     * @param books The books to index.
+     * @param order The row ids in field order, or null to sort the books here.
+     * @return A balanced, multi-valued map from field value to book.
+     * @throws IllegalArgumentException if the field is unknown, or the order does not sort the books by the field.
+     */
+    public static RankedTreeMapInterface<?, Book> buildIndex(String field, List<Book> books, int[] order) {
+        return buildIndex(field, books, order, memoize(SortKey::of), memoize(SortKey::title));
+    }
+
+    /**
+     * Private helper method building the index for one field with the given makers of author and title sort keys.
+     *
+     * @param field   One of {@link #FIELDS}.
+     * @param books   The books to index.
+     * @param order   The row ids in field order, or null to sort the books here.
+     * @param authors Makes the sort key of an authors value.
+     * @param titles  Makes the sort key of a title or original title.
+     * @return A balanced, multi-valued map from field value to book.
+     * @throws IllegalArgumentException if the field is unknown, or the order does not sort the books by the field.
+     */
+    private static RankedTreeMapInterface<?, Book> buildIndex(String field, List<Book> books, int[] order,
+                                                              Function<String, SortKey> authors,
+                                                              Function<String, SortKey> titles) {
+        Function<Book, SortKey> authorsKey = book -> authors.apply(book.getAuthors());
+        Function<Book, SortKey> titleKey = book -> titles.apply(book.getTitle());
+        switch (field) {
+            case "ISBN":
+                return buildFieldMap(books, Book::getIsbn, String[]::new, order);
+            case "Authors":
+                return buildFieldMap(books, authorsKey, SortKey[]::new, order);
+            case "Publication Year":
+                return buildIntFieldMap(books, Book::getPublicationYear, order);
+            case "Original Title":
+                return buildFieldMap(books, book -> titles.apply(book.getOriginalTitle()), SortKey[]::new, order);
+            case "Title":
+                return buildFieldMap(books, titleKey, SortKey[]::new, order);
+            case "Average Rating":
+                return buildIntFieldMap(books, Book::getRatingFixedPoint, order);
+            case "Authors by Year":
+                return buildFieldMap(books, authorsByYear(authorsKey, titleKey), CompositeKey[]::new, order);
+            case "Year by Title":
+                return buildFieldMap(books, yearByTitle(titleKey), CompositeKey[]::new, order);
+            default:
+                throw new IllegalArgumentException("Unknown field: " + field);
+        }
+    }
+
+    /**
+     * Adds one book to an index built by {@link #buildIndex}. Books sharing a key are kept in the order they are
+     * added, so a book appended to the file lands after the existing books with the same key.
+     *
+     * @param field One of {@link #FIELDS}.
+     * @param index The index for that field.
+     * @param book  The book to add.
+     * @throws IllegalArgumentException if the field is unknown.
+     */
+    public static void insert(String field, RankedTreeMapInterface<?, Book> index, Book book) {
+        put(index, key(field, book), book);
+    }
+
+    /**
+     * Gets the key a book has in the index for one field: a String for the ISBN, a {@link SortKey} for the authors
+     * and titles, an Integer for the year and the fixed-point rating, or a {@link CompositeKey} for an ordering over
+     * several fields.
+     *
+     * @param field One of {@link #FIELDS}.
+     * @param book  The book.
+     * @return The book's key in that field's index.
+     * @throws IllegalArgumentException if the field is unknown.
+     */
+    public static Object key(String field, Book book) {
+        switch (field) {
+            case "ISBN":
+                return book.getIsbn();
+            case "Authors":
+                return SortKey.of(book.getAuthors());
+            case "Publication Year":
+                return book.getPublicationYear();
+            case "Original Title":
+                return SortKey.title(book.getOriginalTitle());
+            case "Title":
+                return SortKey.title(book.getTitle());
+            case "Average Rating":
+                return book.getRatingFixedPoint();
+            case "Authors by Year":
+                return authorsByYear(AUTHORS_KEY, TITLE_KEY).apply(book);
+            case "Year by Title":
+                return yearByTitle(TITLE_KEY).apply(book);
+            default:
+                throw new IllegalArgumentException("Unknown field: " + field);
+        }
+    }
+
+    /**
+     * Finds the position of a book in the index for one field.
+     *
+     * @param field One of {@link #FIELDS}.
+     * @param index The index for that field.
+     * @param book  The book to find.
+     * @return The book's zero-based position in key order, or -1 if it is not in the index.
+     * @throws IllegalArgumentException if the field is unknown.
+     */
+    public static int position(String field, RankedTreeMapInterface<?, Book> index, Book book) {
+        Object key = key(field, book);
+        int position = rank(index, key);
+        if (position == index.size()) {
+            return -1;
+        }
+        // Only the books sharing the key are scanned, and those are few
+        TreeMapCursor<?, Book> cursor = index.cursorAt(position);
+        while (cursor.key().equals(key)) {
+            if (cursor.value().equals(book)) {
+                return position;
+            }
+            if (!cursor.next()) {
+                break;
+            }
+            position++;
+        }
+        return -1;
+    }
+
+    /**
+     * Ranks a key in an index whose key type is only known at run time.
+     *
+     * @param index The index.
+     * @param key   A key of the index's key type.
+     * @return The number of entries whose keys are less than the key.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K> int rank(RankedTreeMapInterface<K, Book> index, Object key) {
+        return index.rank((K) key);
+    }
+
+    /**
+     * Creates a view of the part of an index between two keys, inclusive, for an index whose key type is only known
+     * at run time.
+     *
+     * @param index   The index.
+     * @param fromKey The lowest key in the view, of the index's key type.
+     * @param toKey   The highest key in the view, of the index's key type.
+     * @return A live view of the range.
+     * @throws IllegalArgumentException if fromKey is greater than toKey.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K> RankedTreeMapInterface<K, Book> subMap(RankedTreeMapInterface<K, Book> index, Object fromKey,
+                                                             Object toKey) {
+        return index.subMap((K) fromKey, true, (K) toKey, true);
+    }
+
+    /**
+     * Creates a view of the books whose value of a numeric field lies between two values, inclusive, in the index for
+     * that field or for an ordering that starts with it. For an ordering over several fields this is a prefix range
+     * scan over the leading column.
+     *
+     * @param field "Publication Year", "Average Rating" or "Year by Title".
+     * @param index The index for that field.
+     * @param from  The lowest value in the view.
+     * @param to    The highest value in the view.
+     * @return A live view of the range.
+     * @throws IllegalArgumentException if from is greater than to.
+     */
+    public static RankedTreeMapInterface<?, Book> range(String field, RankedTreeMapInterface<?, Book> index, int from,
+                                                        int to) {
+        if (field.equals("Year by Title")) {
+            return subMap(index, CompositeKey.lowest(from), CompositeKey.highest(to));
+        }
+        return subMap(index, from, to);
+    }
+
+    /**
+     * Gets the field an ordering sorts by first: the field itself, or the first of the fields of an ordering over
+     * several fields.
+     *
+     * @param field One of {@link #FIELDS}.
+     * @return The leading field.
+     */
+    public static String leadingField(String field) {
+        switch (field) {
+            case "Authors by Year":
+                return "Authors";
+            case "Year by Title":
+                return "Publication Year";
+            default:
+                return field;
+        }
+    }
+
+    /**
+     * Private helper method adding to an index whose key type is only known at run time.
+     *
+     * @param index The index.
+     * @param key   A key of the index's key type.
+     * @param book  The book to add.
+     */
+    @SuppressWarnings("unchecked")
+    private static <K> void put(RankedTreeMapInterface<K, Book> index, Object key, Book book) {
+        index.put((K) key, book);
+    }
+
+    /**
+     * Lists every row of an index in the index's order, which is what a {@link BookSnapshot} saves.
+     *
+     * @param index A field index.
+     * @return The row id of each book in the index, in order.
+     */
+    public static int[] order(RankedTreeMapInterface<?, Book> index) {
+        int[] order = new int[index.size()];
+        TreeMapCursor<?, Book> cursor = index.cursor();
+        for (int i = 0; i < order.length; i++) {
+            order[i] = cursor.value().getRow();
+            cursor.next();
+        }
+        return order;
+    }
+
+    /**
+     * Private helper method making the keys of the "Authors by Year" ordering: authors, then year, then title.
+     *
+     * @param authors Makes the sort key of a book's authors.
+     * @param titles  Makes the sort key of a book's title.
+     * @return A function making a book's key.
+     */
+    private static Function<Book, CompositeKey> authorsByYear(Function<Book, SortKey> authors,
+                                                              Function<Book, SortKey> titles) {
+        return book -> CompositeKey.of(authors.apply(book), book.getPublicationYear(), titles.apply(book));
+    }
+
+    /**
+     * Private helper method making the keys of the "Year by Title" ordering: year, then title.
+     *
+     * @param titles Makes the sort key of a book's title.
+     * @return A function making a book's key.
+     */
+    private static Function<Book, CompositeKey> yearByTitle(Function<Book, SortKey> titles) {
+        return book -> CompositeKey.of(book.getPublicationYear(), titles.apply(book));
+    }
+
+    /**
+     * Private helper method making keys from text once per distinct value, so books sharing the value share the key.
+     * The returned function is safe to share between the index builds running concurrently.
+     *
+     * @param toKey Makes the key for a value.
+     * @param <K>   The key type.
+     * @return A function making the key for a value.
+     */
+    private static <K> Function<String, K> memoize(Function<String, K> toKey) {
+        Map<String, K> made = new ConcurrentHashMap<>();
+        return value -> made.computeIfAbsent(value, toKey);
+    }
+
+    /**
+     * Builds one field map by bulk-loading the books in field order. Each book's key is made once, and without a
+     * known order the books are sorted on it; the sort is stable, so books sharing a key keep their file order.
+     *
+     * @param books    The parsed books.
+     * @param key      Makes the key for this field from a book.
+     * @param newArray Creates an array of the key type.
+     * @param order    The row ids in field order, or null to sort them here.
+     * @param <K>      The key type.
+     * @return A balanced, multi-valued map from field value to book.
+     */
+    private static <K extends Comparable<K>> TreeMap<K, Book> buildFieldMap(List<Book> books, Function<Book, K> key,
+                                                                            IntFunction<K[]> newArray, int[] order) {
+        int count = books.size();
+        K[] keys = newArray.apply(count);
+        for (int i = 0; i < count; i++) {
+            keys[i] = key.apply(books.get(i));
+        }
+        if (order == null) {
+            Integer[] sorted = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                sorted[i] = i;
+            }
+            Arrays.sort(sorted, (a, b) -> keys[a].compareTo(keys[b]));
+            order = new int[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = sorted[i];
+            }
+        }
+
+        K[] sortedKeys = newArray.apply(count);
+        Book[] sortedBooks = new Book[count];
+        for (int i = 0; i < count; i++) {
+            sortedBooks[i] = books.get(order[i]);
+            sortedKeys[i] = keys[order[i]];
+        }
+        TreeMap<K, Book> map = TreeMap.multiValued();
+        map.putAll(sortedKeys, sortedBooks, count);
+        return map;
+    }
+
+    /**
+     * Builds one int-keyed field map. Without a known order, each key is packed with the book's position into a long,
+     * so a primitive sort orders by key and keeps file order among equal keys without any boxing.
+     *
+     * @param books The parsed books.
+     * @param field Extracts the int key for this field from a book.
+     * @param order The row ids in field order, or null to sort them here.
+     * @return A balanced, multi-valued map from field value to book.
+     */
+    private static IntTreeMap<Book> buildIntFieldMap(List<Book> books, ToIntFunction<Book> field, int[] order) {
+        int count = books.size();
+        if (order == null) {
+            long[] packed = new long[count];
+            for (int i = 0; i < count; i++) {
+                packed[i] = ((long) field.applyAsInt(books.get(i)) << 32) | i;
+            }
+            Arrays.sort(packed);
+            order = new int[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = (int) packed[i];
+            }
+        }
+
+        int[] sortedKeys = new int[count];
+        Book[] sortedBooks = new Book[count];
+        for (int i = 0; i < count; i++) {
+            sortedBooks[i] = books.get(order[i]);
+            sortedKeys[i] = field.applyAsInt(sortedBooks[i]);
+        }
+        IntTreeMap<Book> map = IntTreeMap.multiValued();
+        map.putAll(sortedKeys, sortedBooks, count);
+        return map;
+    }
+}
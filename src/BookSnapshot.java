@@ -0,0 +1,269 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * A binary snapshot of a loaded catalog, so later starts on unchanged data can skip parsing and sorting.
+ * The snapshot holds every column of the {@link BookTable} and, for each of {@link BookLoader#FIELDS}, the row ids
+ * in that field's order, which lets each index be linked directly from its order.
+ * It is stamped with the source file's size and modification time and with the Java version, since the saved orders
+ * of authors and titles come from the JDK's Collator, and is ignored once any of them changes.
+ *
+ * <p>Layout, all big-endian: magic, version, source size, source modification time, the Java version as an int byte
+ * length and UTF-8 bytes, row count; then for each
+ * text column an int byte length per row followed by the UTF-8 bytes of all rows; the year and rating columns as
+ * ints; and finally the field count and, per field, its name and its row order.
+ */
+public class BookSnapshot {
+    private static final int MAGIC = 0x424B5331; // "BKS1"
+    private static final int VERSION = 4; // 2: authors and titles in collation order, 3: image URLs, 4: Java version
+
+    private final BookTable table;
+    private final int[][] orders;
+
+    /**
+     * Constructs a snapshot that has been read back.
+     *
+     * @param table  The books.
+     * @param orders The row order of each field, aligned with {@link BookLoader#FIELDS}.
+     */
+    private BookSnapshot(BookTable table, int[][] orders) {
+        this.table = table;
+        this.orders = orders;
+    }
+
+    /**
+     * Gets the books saved in the snapshot.
+     *
+     * @return The books, in their original row order.
+     */
+    public BookTable getTable() {
+        return table;
+    }
+
+    /**
+     * Gets the saved order of each field.
+     *
+     * @return For each of {@link BookLoader#FIELDS}, the row ids in that field's order.
+     */
+    public int[][] getOrders() {
+        return orders;
+    }
+
+    /**
+     * Writes a snapshot of a loaded catalog. The file is written under a temporary name and then moved into place,
+     * so a reader never sees a partly written snapshot.
+     *
+     * @param file    The snapshot file.
+     * @param source  The attributes of the data file, read before it was parsed.
+     * @param table   The parsed books.
+     * @param indexes The index for every one of {@link BookLoader#FIELDS}.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    public static void write(Path file, BasicFileAttributes source, BookTable table,
+                             Map<String, RankedTreeMapInterface<?, Book>> indexes) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            int rows = table.size();
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(source.size());
+            out.writeLong(source.lastModifiedTime().toMillis());
+            byte[] java = javaVersion();
+            out.writeInt(java.length);
+            out.write(java);
+            out.writeInt(rows);
+
+            writeText(out, rows, table::getIsbn);
+            writeText(out, rows, table::getAuthors);
+            writeText(out, rows, table::getOriginalTitle);
+            writeText(out, rows, table::getTitle);
+            writeText(out, rows, table::getImageUrl);
+            writeText(out, rows, table::getSmallImageUrl);
+            for (int row = 0; row < rows; row++) {
+                out.writeInt(table.getPublicationYear(row));
+            }
+            for (int row = 0; row < rows; row++) {
+                out.writeInt(table.getRatingFixedPoint(row));
+            }
+
+            out.writeInt(BookLoader.FIELDS.length);
+            for (String field : BookLoader.FIELDS) {
+                byte[] name = field.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+                for (int row : BookLoader.order(indexes.get(field))) {
+                    out.writeInt(row);
+                }
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot by memory-mapping it, provided it was taken from the data file as it is now.
+     *
+     * @param file   The snapshot file.
+     * @param source The current attributes of the data file.
+     * @return The snapshot, or null if there is none or it was taken from a different version of the data file or
+     * by a different version of Java.
+     * @throws IOException if the snapshot cannot be read or is corrupt.
+     */
+    public static BookSnapshot read(Path file, BasicFileAttributes source) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            if (buffer.getLong() != source.size() || buffer.getLong() != source.lastModifiedTime().toMillis()) {
+                return null;
+            }
+            byte[] java = new byte[buffer.getInt()];
+            buffer.get(java);
+            if (!Arrays.equals(java, javaVersion())) {
+                return null;
+            }
+            int rows = buffer.getInt();
+            if (rows < 0) {
+                throw new IOException("Corrupt snapshot: " + file);
+            }
+
+            StringPool strings = new StringPool();
+            String[] isbns = readText(buffer, rows, null);
+            String[] authors = readText(buffer, rows, strings);
+            String[] originalTitles = readText(buffer, rows, strings);
+            String[] titles = readText(buffer, rows, strings);
+            String[] imageUrls = readText(buffer, rows, strings);
+            String[] smallImageUrls = readText(buffer, rows, strings);
+            int[] years = readInts(buffer, rows);
+            int[] ratings = readInts(buffer, rows);
+            BookTable table = new BookTable(rows);
+            for (int row = 0; row < rows; row++) {
+                table.add(isbns[row], authors[row], years[row], originalTitles[row], titles[row], ratings[row],
+                        imageUrls[row], smallImageUrls[row]);
+            }
+
+            if (buffer.getInt() != BookLoader.FIELDS.length) {
+                return null;
+            }
+            int[][] orders = new int[BookLoader.FIELDS.length][];
+            for (int i = 0; i < orders.length; i++) {
+                byte[] name = new byte[buffer.getInt()];
+                buffer.get(name);
+                if (!BookLoader.FIELDS[i].equals(new String(name, StandardCharsets.UTF_8))) {
+                    return null;
+                }
+                orders[i] = readInts(buffer, rows);
+                // Each order must list every row exactly once, or an index built from it would drop or repeat books
+                boolean[] seen = new boolean[rows];
+                for (int row : orders[i]) {
+                    if (row < 0 || row >= rows || seen[row]) {
+                        throw new IOException("Corrupt snapshot: " + file);
+                    }
+                    seen[row] = true;
+                }
+            }
+            return new BookSnapshot(table, orders);
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("Corrupt snapshot: " + file, e);
+        }
+    }
+
+    /**
+     * Private helper method encoding the version of the running JDK, whose Collator decides the saved orders.
+     *
+     * @return The Java version as UTF-8 bytes.
+     */
+    private static byte[] javaVersion() {
+        return Runtime.version().toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Private helper method writing one text column as a length table followed by the bytes of every row.
+     *
+     * @param out    The snapshot stream.
+     * @param rows   The number of rows.
+     * @param column Reads the column's value for a row.
+     * @throws IOException if the stream cannot be written.
+     */
+    private static void writeText(DataOutputStream out, int rows, IntFunction<String> column) throws IOException {
+        byte[][] values = new byte[rows][];
+        for (int row = 0; row < rows; row++) {
+            values[row] = column.apply(row).getBytes(StandardCharsets.UTF_8);
+            out.writeInt(values[row].length);
+        }
+        for (byte[] value : values) {
+            out.write(value);
+        }
+    }
+
+    /**
+     * Private helper method reading one text column written by {@link #writeText}.
+     *
+     * @param buffer  The mapped snapshot, positioned at the column.
+     * @param rows    The number of rows.
+     * @param strings The pool that repeated values are shared through, or null for a column of unique values.
+     * @return The column's values.
+     */
+    private static String[] readText(ByteBuffer buffer, int rows, StringPool strings) {
+        int[] lengths = readInts(buffer, rows);
+        long total = 0;
+        for (int length : lengths) {
+            if (length < 0) {
+                throw new IllegalArgumentException("Negative text length");
+            }
+            total += length;
+        }
+        if (total > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[(int) total];
+        buffer.get(bytes);
+
+        String[] values = new String[rows];
+        int offset = 0;
+        for (int row = 0; row < rows; row++) {
+            values[row] = new String(bytes, offset, lengths[row], StandardCharsets.UTF_8);
+            if (strings != null) {
+                values[row] = strings.canonical(values[row]);
+            }
+            offset += lengths[row];
+        }
+        return values;
+    }
+
+    /**
+     * Private helper method reading a run of ints in one bulk copy.
+     *
+     * @param buffer The mapped snapshot, positioned at the run.
+     * @param count  The number of ints.
+     * @return The ints.
+     */
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        if ((long) count * Integer.BYTES > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        return values;
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * This class contains a set of JUnit 5 tests for the BookSnapshot class.
+ * It saves a small catalog to a temporary snapshot file and checks what is read back.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+public class BookSnapshotTest {
+
+    /**
+     * Creates a small catalog with shared authors and years and a non-ASCII title.
+     *
+     * @return The catalog.
+     */
+    private BookTable createTable() {
+        BookTable table = new BookTable();
+        table.add("0439023483", "Suzanne Collins", 2008, "The Hunger Games", "The Hunger Games", 434,
+                "https://a/m.jpg", "https://a/s.jpg");
+        table.add("0143039954", "Homer", -720, "\u1f48\u03b4\u03cd\u03c3\u03c3\u03b5\u03b9\u03b1", "The Odyssey", 370);
+        table.add("0439358078", "Suzanne Collins", 2008, "Catching Fire", "Catching Fire", 430);
+        return table;
+    }
+
+    /**
+     * Tests that a snapshot restores every column and rebuilds indexes identical to freshly sorted ones.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        Path source = Files.createTempFile("books", ".txt");
+        Path file = Files.createTempFile("books", ".snapshot");
+        source.toFile().deleteOnExit();
+        file.toFile().deleteOnExit();
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+
+        BookTable table = createTable();
+        List<Book> books = BookLoader.books(table);
+        Map<String, RankedTreeMapInterface<?, Book>> indexes = BookLoader.buildIndexes(books, ForkJoinPool.commonPool());
+        BookSnapshot.write(file, attributes, table, indexes);
+
+        BookSnapshot snapshot = BookSnapshot.read(file, attributes);
+        assertNotNull(snapshot);
+        BookTable restored = snapshot.getTable();
+        assertEquals(3, restored.size());
+        assertEquals("\u1f48\u03b4\u03cd\u03c3\u03c3\u03b5\u03b9\u03b1", restored.getOriginalTitle(1));
+        assertEquals(-720, restored.getPublicationYear(1));
+        assertEquals(430, restored.getRatingFixedPoint(2));
+        assertEquals("https://a/m.jpg", restored.getImageUrl(0));
+        assertEquals("https://a/s.jpg", restored.getSmallImageUrl(0));
+        assertEquals("", restored.getImageUrl(1));
+
+        List<Book> restoredBooks = BookLoader.books(restored);
+        for (int i = 0; i < BookLoader.FIELDS.length; i++) {
+            String field = BookLoader.FIELDS[i];
+            RankedTreeMapInterface<?, Book> index = BookLoader.buildIndex(field, restoredBooks, snapshot.getOrders()[i]);
+            assertArrayEquals(BookLoader.order(indexes.get(field)), BookLoader.order(index), field);
+        }
+    }
+
+    /**
+     * Tests that a saved order listing a row twice is reported as a corrupt snapshot.
+     */
+    @Test
+    public void testRepeatedRowInOrder() throws IOException {
+        Path source = Files.createTempFile("books", ".txt");
+        Path file = Files.createTempFile("books", ".snapshot");
+        source.toFile().deleteOnExit();
+        file.toFile().deleteOnExit();
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        BookTable table = createTable();
+        BookSnapshot.write(file, attributes, table, BookLoader.buildIndexes(BookLoader.books(table), ForkJoinPool.commonPool()));
+
+        // The file ends with the last field's order; repeat its second row id in place of its third
+        byte[] bytes = Files.readAllBytes(file);
+        System.arraycopy(bytes, bytes.length - 8, bytes, bytes.length - 4, 4);
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> BookSnapshot.read(file, attributes));
+    }
+
+    /**
+     * Tests that a snapshot is ignored once the data file changes, and that a missing one reads as null.
+     */
+    @Test
+    public void testStaleSnapshot() throws IOException {
+        Path source = Files.createTempFile("books", ".txt");
+        Path file = Files.createTempFile("books", ".snapshot");
+        source.toFile().deleteOnExit();
+        file.toFile().deleteOnExit();
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+
+        BookTable table = createTable();
+        BookSnapshot.write(file, attributes, table, BookLoader.buildIndexes(BookLoader.books(table), ForkJoinPool.commonPool()));
+
+        Files.setLastModifiedTime(source, FileTime.fromMillis(attributes.lastModifiedTime().toMillis() + 1000));
+        assertNull(BookSnapshot.read(file, Files.readAttributes(source, BasicFileAttributes.class)));
+
+        Files.delete(file);
+        assertNull(BookSnapshot.read(file, attributes));
+    }
+}
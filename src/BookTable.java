@@ -0,0 +1,314 @@
+import java.util.Arrays;
+
+/**
+ * Column-oriented storage for a catalog of books.
+ * Each field is held in its own array and a book is identified by its int row id, so numeric fields stay unboxed
+ * and scanning one field touches one contiguous array. {@link Book} objects are lightweight views onto a row.
+ */
+public class BookTable {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] isbns;
+    private String[] authors;
+    private int[] publicationYears;
+    private String[] originalTitles;
+    private String[] titles;
+    private int[] ratings;
+    private String[] imageUrls;
+    private String[] smallImageUrls;
+    private int size;
+
+    /**
+     * Constructs an empty table.
+     */
+    public BookTable() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty table with room for the given number of rows before it has to grow.
+     *
+     * @param capacity The expected number of rows.
+     */
+    public BookTable(int capacity) {
+        capacity = Math.max(1, capacity);
+        isbns = new String[capacity];
+        authors = new String[capacity];
+        publicationYears = new int[capacity];
+        originalTitles = new String[capacity];
+        titles = new String[capacity];
+        ratings = new int[capacity];
+        imageUrls = new String[capacity];
+        smallImageUrls = new String[capacity];
+        size = 0;
+    }
+
+    /**
+     * Appends a book without cover images to the table.
+     *
+     * @param isbn             The International Standard Book Number of the book.
+     * @param author           The author(s) of the book.
+     * @param publicationYear  The year the book was published.
+     * @param originalTitle    The original title of the book.
+     * @param title            The title of the book.
+     * @param ratingFixedPoint The average rating, scaled by {@link Book#RATING_SCALE}.
+     * @return The row id of the new book.
+     */
+    public int add(String isbn, String author, int publicationYear, String originalTitle, String title,
+                   int ratingFixedPoint) {
+        return add(isbn, author, publicationYear, originalTitle, title, ratingFixedPoint, "", "");
+    }
+
+    /**
+     * Appends a book to the table.
+     *
+     * @param isbn             The International Standard Book Number of the book.
+     * @param author           The author(s) of the book.
+     * @param publicationYear  The year the book was published.
+     * @param originalTitle    The original title of the book.
+     * @param title            The title of the book.
+     * @param ratingFixedPoint The average rating, scaled by {@link Book#RATING_SCALE}.
+     * @param imageUrl         The URL of the book's cover image, or an empty string if it has none.
+     * @param smallImageUrl    The URL of a small version of the cover image, or an empty string if it has none.
+     * @return The row id of the new book.
+     */
+    public int add(String isbn, String author, int publicationYear, String originalTitle, String title,
+                   int ratingFixedPoint, String imageUrl, String smallImageUrl) {
+        if (size == isbns.length) {
+            grow(size * 2);
+        }
+        isbns[size] = isbn;
+        authors[size] = author;
+        publicationYears[size] = publicationYear;
+        originalTitles[size] = originalTitle;
+        titles[size] = title;
+        ratings[size] = ratingFixedPoint;
+        imageUrls[size] = imageUrl;
+        smallImageUrls[size] = smallImageUrl;
+        return size++;
+    }
+
+    /**
+     * Appends every row of another table, in order. Row r of the other table becomes row size() + r of this one.
+     *
+     * @param other The table whose rows are copied.
+     */
+    public void addAll(BookTable other) {
+        int combined = size + other.size;
+        if (combined > isbns.length) {
+            grow(Math.max(combined, isbns.length * 2));
+        }
+        System.arraycopy(other.isbns, 0, isbns, size, other.size);
+        System.arraycopy(other.authors, 0, authors, size, other.size);
+        System.arraycopy(other.publicationYears, 0, publicationYears, size, other.size);
+        System.arraycopy(other.originalTitles, 0, originalTitles, size, other.size);
+        System.arraycopy(other.titles, 0, titles, size, other.size);
+        System.arraycopy(other.ratings, 0, ratings, size, other.size);
+        System.arraycopy(other.imageUrls, 0, imageUrls, size, other.size);
+        System.arraycopy(other.smallImageUrls, 0, smallImageUrls, size, other.size);
+        size = combined;
+    }
+
+    /**
+     * Returns the number of rows in the table.
+     *
+     * @return the number of books.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a view of one row as a Book.
+     *
+     * @param row The row id.
+     * @return A Book reading and writing that row.
+     * @throws IndexOutOfBoundsException if the row does not exist.
+     */
+    public Book book(int row) {
+        checkRow(row);
+        return new Book(this, row);
+    }
+
+    /**
+     * Gets the ISBN stored in a row.
+     *
+     * @param row The row id.
+     * @return The ISBN of the book.
+     */
+    public String getIsbn(int row) {
+        checkRow(row);
+        return isbns[row];
+    }
+
+    /**
+     * Gets the authors stored in a row.
+     *
+     * @param row The row id.
+     * @return The authors of the book.
+     */
+    public String getAuthors(int row) {
+        checkRow(row);
+        return authors[row];
+    }
+
+    /**
+     * Gets the publication year stored in a row.
+     *
+     * @param row The row id.
+     * @return The publication year of the book.
+     */
+    public int getPublicationYear(int row) {
+        checkRow(row);
+        return publicationYears[row];
+    }
+
+    /**
+     * Gets the original title stored in a row.
+     *
+     * @param row The row id.
+     * @return The original title of the book.
+     */
+    public String getOriginalTitle(int row) {
+        checkRow(row);
+        return originalTitles[row];
+    }
+
+    /**
+     * Gets the title stored in a row.
+     *
+     * @param row The row id.
+     * @return The title of the book.
+     */
+    public String getTitle(int row) {
+        checkRow(row);
+        return titles[row];
+    }
+
+    /**
+     * Gets the average rating stored in a row, as a fixed-point int.
+     *
+     * @param row The row id.
+     * @return The average rating scaled by {@link Book#RATING_SCALE}.
+     */
+    public int getRatingFixedPoint(int row) {
+        checkRow(row);
+        return ratings[row];
+    }
+
+    /**
+     * Gets the cover image URL stored in a row.
+     *
+     * @param row The row id.
+     * @return The URL of the cover image, or an empty string if the book has none.
+     */
+    public String getImageUrl(int row) {
+        checkRow(row);
+        return imageUrls[row];
+    }
+
+    /**
+     * Gets the small cover image URL stored in a row.
+     *
+     * @param row The row id.
+     * @return The URL of the small cover image, or an empty string if the book has none.
+     */
+    public String getSmallImageUrl(int row) {
+        checkRow(row);
+        return smallImageUrls[row];
+    }
+
+    /**
+     * Sets the ISBN stored in a row.
+     *
+     * @param row  The row id.
+     * @param isbn The new ISBN.
+     */
+    public void setIsbn(int row, String isbn) {
+        checkRow(row);
+        isbns[row] = isbn;
+    }
+
+    /**
+     * Sets the authors stored in a row.
+     *
+     * @param row    The row id.
+     * @param author The new authors.
+     */
+    public void setAuthors(int row, String author) {
+        checkRow(row);
+        authors[row] = author;
+    }
+
+    /**
+     * Sets the publication year stored in a row.
+     *
+     * @param row             The row id.
+     * @param publicationYear The new publication year.
+     */
+    public void setPublicationYear(int row, int publicationYear) {
+        checkRow(row);
+        publicationYears[row] = publicationYear;
+    }
+
+    /**
+     * Sets the original title stored in a row.
+     *
+     * @param row           The row id.
+     * @param originalTitle The new original title.
+     */
+    public void setOriginalTitle(int row, String originalTitle) {
+        checkRow(row);
+        originalTitles[row] = originalTitle;
+    }
+
+    /**
+     * Sets the title stored in a row.
+     *
+     * @param row   The row id.
+     * @param title The new title.
+     */
+    public void setTitle(int row, String title) {
+        checkRow(row);
+        titles[row] = title;
+    }
+
+    /**
+     * Sets the average rating stored in a row.
+     *
+     * @param row              The row id.
+     * @param ratingFixedPoint The new rating, scaled by {@link Book#RATING_SCALE}.
+     */
+    public void setRatingFixedPoint(int row, int ratingFixedPoint) {
+        checkRow(row);
+        ratings[row] = ratingFixedPoint;
+    }
+
+    /**
+     * Private helper method rejecting row ids outside the table.
+     *
+     * @param row The row id to check.
+     * @throws IndexOutOfBoundsException if the row does not exist.
+     */
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Private helper method enlarging every column to the given capacity.
+     *
+     * @param capacity The new number of rows the columns can hold.
+     */
+    private void grow(int capacity) {
+        isbns = Arrays.copyOf(isbns, capacity);
+        authors = Arrays.copyOf(authors, capacity);
+        publicationYears = Arrays.copyOf(publicationYears, capacity);
+        originalTitles = Arrays.copyOf(originalTitles, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        ratings = Arrays.copyOf(ratings, capacity);
+        imageUrls = Arrays.copyOf(imageUrls, capacity);
+        smallImageUrls = Arrays.copyOf(smallImageUrls, capacity);
+    }
+}
@@ -0,0 +1,116 @@
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * A table model listing the books of a field index in the index's order, one row per book.
+ * Nothing is copied out of the index: each row is looked up by position when the table asks for it, and a table
+ * only asks for the rows in its viewport, so the model takes the same memory for ten books as for a million.
+ * A cursor is kept on the last row read, so reading the cells of one row, or of the next or previous row as the
+ * table scrolls, is a step along the tree rather than a new O(log n) descent. Switching to another index or range
+ * only swaps the index and tells the table; no rows are rebuilt.
+ *
+ * <p>Like every Swing model it must only be used on the event dispatch thread.
+ */
+public class BookTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMNS = {"ISBN", "Authors", "Year", "Original Title", "Title", "Rating"};
+
+    private RankedTreeMapInterface<?, Book> index;
+    private TreeMapCursor<?, Book> cursor;
+    private int cursorRow;
+
+    /**
+     * Constructs an empty model.
+     */
+    public BookTableModel() {
+        cursorRow = -1;
+    }
+
+    /**
+     * Shows the books of another index, or of a range view of one.
+     *
+     * @param index The index, or null for no rows.
+     */
+    public void setIndex(RankedTreeMapInterface<?, Book> index) {
+        this.index = index;
+        refresh();
+    }
+
+    /**
+     * Tells the table that books were added to the current index, so every row may have moved.
+     */
+    public void refresh() {
+        cursor = null;
+        cursorRow = -1;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Gets the book shown in a row.
+     *
+     * @param row The zero-based row, which is the book's position in the index.
+     * @return The book.
+     * @throws IndexOutOfBoundsException if the row is out of range.
+     */
+    public Book getBook(int row) {
+        if (row < 0 || row >= getRowCount()) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Rows: " + getRowCount());
+        }
+        if (cursor != null && row == cursorRow + 1 && cursor.next()) {
+            cursorRow++;
+        } else if (cursor != null && row == cursorRow - 1 && cursor.previous()) {
+            cursorRow--;
+        } else if (cursor == null || row != cursorRow) {
+            cursor = index.cursorAt(row);
+            cursorRow = row;
+        }
+        return cursor.value();
+    }
+
+    @Override
+    public int getRowCount() {
+        return index == null ? 0 : index.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        switch (column) {
+            case 2:
+                return Integer.class;
+            case 5:
+                return Double.class;
+            default:
+                return String.class;
+        }
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Book book = getBook(row);
+        switch (column) {
+            case 0:
+                return book.getIsbn();
+            case 1:
+                return book.getAuthors();
+            case 2:
+                return book.getPublicationYear();
+            case 3:
+                return book.getOriginalTitle();
+            case 4:
+                return book.getTitle();
+            case 5:
+                return book.getAverageRating();
+            default:
+                throw new IndexOutOfBoundsException("Column: " + column);
+        }
+    }
+}
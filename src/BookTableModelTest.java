@@ -0,0 +1,61 @@
+/**
+ * This class contains a set of JUnit 5 tests for the BookTableModel class.
+ * It reads rows in and out of order from a field index and checks them against the index itself.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BookTableModelTest {
+
+    /**
+     * Tests that rows match the index's positions whether read forwards, backwards or by jumping, and that the model
+     * follows a switch of index and books added to it.
+     */
+    @Test
+    public void testRows() {
+        BookTable table = new BookTable();
+        for (int i = 0; i < 200; i++) {
+            table.add(String.format("%010d", (i * 7919) % 200), "Author " + (i % 13), 1900 + i % 90, "Original " + i,
+                    "Title " + i, 300 + i % 200);
+        }
+        List<Book> books = new ArrayList<>();
+        for (int row = 0; row < table.size(); row++) {
+            books.add(table.book(row));
+        }
+        RankedTreeMapInterface<?, Book> byIsbn = BookLoader.buildIndex("ISBN", books);
+        RankedTreeMapInterface<?, Book> byYear = BookLoader.buildIndex("Publication Year", books);
+
+        BookTableModel model = new BookTableModel();
+        assertEquals(0, model.getRowCount());
+        model.setIndex(byIsbn);
+        assertEquals(200, model.getRowCount());
+        assertEquals(6, model.getColumnCount());
+        for (int row = 0; row < 200; row++) {
+            assertSame(byIsbn.selectValue(row), model.getBook(row));
+        }
+        for (int row = 199; row >= 0; row--) {
+            assertSame(byIsbn.selectValue(row), model.getBook(row));
+        }
+        for (int row : new int[]{150, 3, 3, 4, 199, 0, 100}) {
+            assertSame(byIsbn.selectValue(row), model.getBook(row));
+        }
+
+        model.setIndex(byYear);
+        assertEquals(byYear.selectValue(42).getTitle(), model.getValueAt(42, 4));
+        assertEquals(byYear.selectValue(42).getPublicationYear(), model.getValueAt(42, 2));
+
+        table.add("9999999999", "Late Author", 1899, "Late", "Late", 400);
+        Book late = table.book(200);
+        BookLoader.insert("Publication Year", byYear, late);
+        model.refresh();
+        assertEquals(201, model.getRowCount());
+        assertSame(late, model.getBook(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> model.getBook(201));
+    }
+}
@@ -0,0 +1,167 @@
+import java.util.Arrays;
+
+/**
+ * A key made of several columns, compared column by column, for indexes ordered by more than one field, such as
+ * authors, then year, then title. Int columns are stored unboxed and compared as ints; other columns are Comparable
+ * values, such as {@link SortKey}s, compared with their own compareTo. The columns are taken apart once, when the key
+ * is made, so comparing two keys allocates nothing and never joins strings.
+ *
+ * <p>Every key in one index must have the same kinds of columns in the same places. A key with fewer columns is a
+ * prefix: {@link #lowest(Object...)} sorts before every key starting with its columns and {@link #highest(Object...)}
+ * after them, so the two bound a range scan over the leading columns; see {@link #prefixRange}.
+ */
+public final class CompositeKey implements Comparable<CompositeKey> {
+    private final Object[] values;
+    private final int[] numbers;
+    private final int bound;
+
+    /**
+     * Constructs a CompositeKey.
+     *
+     * @param columns The column values, Integers for int columns.
+     * @param bound   0 for a key, -1 or 1 for a prefix sorting before or after the keys it starts.
+     * @throws IllegalArgumentException if a column is null.
+     */
+    private CompositeKey(Object[] columns, int bound) {
+        values = new Object[columns.length];
+        numbers = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] == null) {
+                throw new IllegalArgumentException("Column cannot be null");
+            }
+            if (columns[i] instanceof Integer) {
+                numbers[i] = (Integer) columns[i];
+            } else if (columns[i] instanceof Comparable) {
+                values[i] = columns[i];
+            } else {
+                throw new IllegalArgumentException("Column is not Comparable: " + columns[i]);
+            }
+        }
+        this.bound = bound;
+    }
+
+    /**
+     * Creates a key from its column values.
+     *
+     * @param columns The column values in order: Integers for int columns, Comparable values for the rest.
+     * @return The key.
+     * @throws IllegalArgumentException if a column is null or not Comparable.
+     */
+    public static CompositeKey of(Object... columns) {
+        return new CompositeKey(columns, 0);
+    }
+
+    /**
+     * Creates a prefix that sorts before every key whose leading columns equal the given values.
+     *
+     * @param prefix The leading column values.
+     * @return The lower bound of the keys starting with the prefix.
+     * @throws IllegalArgumentException if a column is null or not Comparable.
+     */
+    public static CompositeKey lowest(Object... prefix) {
+        return new CompositeKey(prefix, -1);
+    }
+
+    /**
+     * Creates a prefix that sorts after every key whose leading columns equal the given values.
+     *
+     * @param prefix The leading column values.
+     * @return The upper bound of the keys starting with the prefix.
+     * @throws IllegalArgumentException if a column is null or not Comparable.
+     */
+    public static CompositeKey highest(Object... prefix) {
+        return new CompositeKey(prefix, 1);
+    }
+
+    /**
+     * Creates a live view of the entries of an index whose keys start with the given column values, such as every
+     * book by one author in a (authors, year, title) index.
+     *
+     * @param index  An index keyed by CompositeKey.
+     * @param prefix The leading column values.
+     * @param <V>    The type of mapped values.
+     * @return A view of the keys starting with the prefix, in index order.
+     * @throws IllegalArgumentException if a column is null or not Comparable.
+     */
+    public static <V> RankedTreeMapInterface<CompositeKey, V> prefixRange(RankedTreeMapInterface<CompositeKey, V> index,
+                                                                          Object... prefix) {
+        return index.subMap(lowest(prefix), true, highest(prefix), true);
+    }
+
+    /**
+     * Returns the number of columns in this key.
+     *
+     * @return the column count.
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Returns the value of one column.
+     *
+     * @param column The zero-based column.
+     * @return The column value, an Integer for an int column.
+     * @throws IndexOutOfBoundsException if the column is out of range.
+     */
+    public Object get(int column) {
+        return values[column] != null ? values[column] : Integer.valueOf(numbers[column]);
+    }
+
+    /**
+     * Compares this key to another column by column. When one key runs out of columns first, a prefix made by
+     * {@link #lowest} sorts first, one made by {@link #highest} sorts last, and otherwise the shorter key sorts first.
+     *
+     * @param other The other key.
+     * @return A negative number, zero or a positive number as this key sorts before, with or after the other.
+     */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public int compareTo(CompositeKey other) {
+        int shared = Math.min(values.length, other.values.length);
+        for (int i = 0; i < shared; i++) {
+            int compare = values[i] == null
+                    ? Integer.compare(numbers[i], other.numbers[i])
+                    : ((Comparable) values[i]).compareTo(other.values[i]);
+            if (compare != 0) {
+                return compare;
+            }
+        }
+        if (values.length == other.values.length) {
+            return Integer.compare(bound, other.bound);
+        }
+        if (values.length < other.values.length) {
+            return bound != 0 ? bound : -1;
+        }
+        return other.bound != 0 ? -other.bound : 1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CompositeKey)) {
+            return false;
+        }
+        CompositeKey other = (CompositeKey) o;
+        return bound == other.bound && Arrays.equals(numbers, other.numbers) && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Arrays.hashCode(values) + Arrays.hashCode(numbers)) + bound;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.append(get(i));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * This class contains a set of JUnit 5 tests for the CompositeKey class.
+ * It checks column-by-column ordering and prefix range scans over a TreeMap keyed by CompositeKey.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CompositeKeyTest {
+
+    /**
+     * Tests that keys compare by their first differing column, with int columns compared numerically.
+     */
+    @Test
+    public void testOrdering() {
+        CompositeKey early = CompositeKey.of("Austen", 1811, "Sense and Sensibility");
+        CompositeKey late = CompositeKey.of("Austen", 1813, "Pride and Prejudice");
+        CompositeKey negative = CompositeKey.of("Austen", -5, "Z");
+        assertTrue(early.compareTo(late) < 0);
+        assertTrue(negative.compareTo(early) < 0);
+        assertTrue(CompositeKey.of("Bronte", 1700, "A").compareTo(late) > 0);
+        assertEquals(early, CompositeKey.of("Austen", 1811, "Sense and Sensibility"));
+        assertEquals(early.hashCode(), CompositeKey.of("Austen", 1811, "Sense and Sensibility").hashCode());
+        assertEquals(Integer.valueOf(1811), early.get(1));
+        assertEquals("Austen, 1811, Sense and Sensibility", early.toString());
+        assertThrows(IllegalArgumentException.class, () -> CompositeKey.of("Austen", null));
+    }
+
+    /**
+     * Tests that prefix bounds select exactly the keys starting with the prefix.
+     */
+    @Test
+    public void testPrefixRange() {
+        TreeMap<CompositeKey, String> index = TreeMap.multiValued();
+        index.put(CompositeKey.of("Austen", 1813, "Pride and Prejudice"), "pp");
+        index.put(CompositeKey.of("Austen", 1811, "Sense and Sensibility"), "ss");
+        index.put(CompositeKey.of("Austen", 1815, "Emma"), "emma");
+        index.put(CompositeKey.of("Alcott", 1868, "Little Women"), "lw");
+        index.put(CompositeKey.of("Bronte", 1847, "Jane Eyre"), "je");
+
+        assertEquals(Arrays.asList("ss", "pp", "emma"), values(CompositeKey.prefixRange(index, "Austen")));
+        assertEquals(Arrays.asList("pp"), values(CompositeKey.prefixRange(index, "Austen", 1813)));
+        assertEquals(Arrays.asList("pp", "emma"),
+                values(index.subMap(CompositeKey.lowest("Austen", 1812), true, CompositeKey.highest("Austen", 1815), true)));
+        assertEquals(0, CompositeKey.prefixRange(index, "Dickens").size());
+    }
+
+    /**
+     * Collects the values of a map in order.
+     *
+     * @param map The map.
+     * @return Its values.
+     */
+    private List<String> values(RankedTreeMapInterface<CompositeKey, String> map) {
+        List<String> values = new ArrayList<>();
+        TreeMapCursor<CompositeKey, String> cursor = map.cursor();
+        for (int i = 0; i < map.size(); i++) {
+            values.add(cursor.value());
+            cursor.next();
+        }
+        return values;
+    }
+}
@@ -0,0 +1,367 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Fetches and decodes book cover images in the background, keeping recent covers in memory and on disk.
+ * Images are read from any URL Java can open, http and file alike, on a small pool of daemon threads, so callers,
+ * the event thread in particular, never wait on the network or the disk: {@link #load} returns at once with a future.
+ * Requests for a cover that is already being fetched share that fetch.
+ *
+ * <p>Decoded images are held in a least-recently-used map bounded by their pixel memory, four bytes per pixel. The
+ * downloaded bytes are also saved in a cache directory, named by a hash of the URL and bounded in total size;
+ * the least recently used files are deleted when it grows too large. A cover that could not be fetched is not
+ * tried again for a minute, so browsing offline does not queue up failing requests.
+ */
+public class CoverLoader implements Closeable {
+    private static final int TIMEOUT_MILLIS = 10_000;
+    private static final int MAX_IMAGE_BYTES = 4 * 1024 * 1024;
+    private static final long RETRY_MILLIS = 60_000;
+    private static final String SUFFIX = ".img";
+
+    private final Path directory;
+    private final long maxMemoryBytes;
+    private final long maxDiskBytes;
+    private final ExecutorService pool;
+    private final LinkedHashMap<String, BufferedImage> images;
+    private final ConcurrentHashMap<String, CompletableFuture<BufferedImage>> pending;
+    private final ConcurrentHashMap<String, Long> failures;
+    private final AtomicLong diskBytes;
+    private long memoryBytes;
+
+    /**
+     * Constructs a loader. The cache directory is created when the first cover is saved, and measured, and trimmed
+     * if need be, in the background.
+     *
+     * @param directory      The directory covers are cached in.
+     * @param maxMemoryBytes The most pixel memory the decoded covers held in memory may take.
+     * @param maxDiskBytes   The most bytes the cache directory may hold.
+     * @param threads        The number of threads fetching covers.
+     * @throws IllegalArgumentException if a bound is negative or there are no threads.
+     */
+    public CoverLoader(Path directory, long maxMemoryBytes, long maxDiskBytes, int threads) {
+        if (maxMemoryBytes < 0 || maxDiskBytes < 0 || threads < 1) {
+            throw new IllegalArgumentException("Invalid cache bounds or thread count");
+        }
+        this.directory = directory;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.maxDiskBytes = maxDiskBytes;
+        this.images = new LinkedHashMap<>(16, 0.75f, true);
+        this.pending = new ConcurrentHashMap<>();
+        this.failures = new ConcurrentHashMap<>();
+        this.diskBytes = new AtomicLong();
+        AtomicInteger count = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "cover-loader-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.execute(this::trimDisk);
+    }
+
+    /**
+     * Gets a cover if it is already decoded in memory, without fetching it.
+     *
+     * @param url The cover URL.
+     * @return The cover, or null if it is not in memory.
+     */
+    public BufferedImage cached(String url) {
+        synchronized (images) {
+            return images.get(url);
+        }
+    }
+
+    /**
+     * Gets a cover, from memory, the cache directory or its URL, in that order. Only the memory lookup happens on the
+     * calling thread. Concurrent requests for the same URL share one fetch.
+     *
+     * @param url The cover URL, or an empty string for a book without a cover.
+     * @return A future completing with the decoded cover, with null for an empty URL, or exceptionally with an
+     * IOException if the cover cannot be fetched or decoded.
+     */
+    public CompletableFuture<BufferedImage> load(String url) {
+        if (url.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        BufferedImage image = cached(url);
+        if (image != null) {
+            return CompletableFuture.completedFuture(image);
+        }
+        Long failed = failures.get(url);
+        if (failed != null && System.currentTimeMillis() - failed < RETRY_MILLIS) {
+            return CompletableFuture.failedFuture(new IOException("Recently failed: " + url));
+        }
+
+        CompletableFuture<BufferedImage> created = new CompletableFuture<>();
+        CompletableFuture<BufferedImage> existing = pending.putIfAbsent(url, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            pool.execute(() -> fetch(url, created));
+        } catch (RejectedExecutionException e) {
+            pending.remove(url, created);
+            created.completeExceptionally(new IOException("Cover loader is closed", e));
+        }
+        return created;
+    }
+
+    /**
+     * Starts fetching a cover that is likely to be wanted soon, such as the next book's, ignoring any failure.
+     *
+     * @param url The cover URL, or an empty string for a book without a cover.
+     */
+    public void prefetch(String url) {
+        load(url).exceptionally(e -> null);
+    }
+
+    /**
+     * Stops the fetching threads. Fetches in progress are abandoned.
+     */
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Private helper method fetching one cover on a pool thread and completing its future. The cover is in the
+     * memory cache before the future completes, and the future stays shared until then.
+     *
+     * @param url    The cover URL.
+     * @param result The future shared by every request for the cover.
+     */
+    private void fetch(String url, CompletableFuture<BufferedImage> result) {
+        try {
+            BufferedImage image = readCached(url);
+            if (image == null) {
+                byte[] bytes = download(url);
+                image = decode(bytes, url);
+                save(url, bytes);
+            }
+            remember(url, image);
+            failures.remove(url);
+            result.complete(image);
+        } catch (IOException | RuntimeException e) {
+            failures.put(url, System.currentTimeMillis());
+            result.completeExceptionally(e instanceof IOException ? e : new IOException(e));
+        } finally {
+            pending.remove(url, result);
+        }
+    }
+
+    /**
+     * Private helper method reading a cover from the cache directory and marking it as recently used. A cached file
+     * that no longer decodes is deleted.
+     *
+     * @param url The cover URL.
+     * @return The decoded cover, or null if it is not cached.
+     */
+    private BufferedImage readCached(String url) {
+        Path file = directory.resolve(fileName(url));
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return decode(bytes, url);
+        } catch (IOException e) {
+            try {
+                long size = Files.size(file);
+                if (Files.deleteIfExists(file)) {
+                    diskBytes.addAndGet(-size);
+                }
+            } catch (IOException ignored) {
+                // Already gone, or left for trimDisk to remove
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Private helper method downloading the bytes of a cover.
+     *
+     * @param url The cover URL.
+     * @return The bytes.
+     * @throws IOException if the URL cannot be read or the image is too large.
+     */
+    private static byte[] download(String url) throws IOException {
+        URLConnection connection = new URL(url).openConnection();
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        try (InputStream in = connection.getInputStream()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                bytes.write(buffer, 0, read);
+                if (bytes.size() > MAX_IMAGE_BYTES) {
+                    throw new IOException("Image larger than " + MAX_IMAGE_BYTES + " bytes: " + url);
+                }
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    /**
+     * Private helper method decoding an image.
+     *
+     * @param bytes The encoded image.
+     * @param url   The cover URL, for the error message.
+     * @return The decoded image.
+     * @throws IOException if the bytes are not an image Java can read.
+     */
+    private static BufferedImage decode(byte[] bytes, String url) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+        if (image == null) {
+            throw new IOException("Not an image: " + url);
+        }
+        return image;
+    }
+
+    /**
+     * Private helper method saving a downloaded cover in the cache directory, trimming the directory if it has grown
+     * too large. The cache is optional, so a failure to write is ignored.
+     *
+     * @param url   The cover URL.
+     * @param bytes The encoded image.
+     */
+    private void save(String url, byte[] bytes) {
+        if (bytes.length > maxDiskBytes) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            Path file = directory.resolve(fileName(url));
+            Path temporary = Files.createTempFile(directory, "cover", ".tmp");
+            Files.write(temporary, bytes);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            return;
+        }
+        if (diskBytes.addAndGet(bytes.length) > maxDiskBytes) {
+            trimDisk();
+        }
+    }
+
+    /**
+     * Private helper method measuring the cache directory and deleting its least recently used covers until it fits
+     * its bound.
+     */
+    private synchronized void trimDisk() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            listing.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).forEach(files::add);
+        } catch (IOException e) {
+            return;
+        }
+        long total = 0;
+        Map<Path, long[]> stats = new LinkedHashMap<>();
+        for (Path file : files) {
+            try {
+                long[] stat = {Files.size(file), Files.getLastModifiedTime(file).toMillis()};
+                stats.put(file, stat);
+                total += stat[0];
+            } catch (IOException e) {
+                // Deleted meanwhile
+            }
+        }
+        if (total > maxDiskBytes) {
+            List<Map.Entry<Path, long[]>> oldestFirst = new ArrayList<>(stats.entrySet());
+            oldestFirst.sort(Comparator.comparingLong(entry -> entry.getValue()[1]));
+            for (Map.Entry<Path, long[]> entry : oldestFirst) {
+                if (total <= maxDiskBytes) {
+                    break;
+                }
+                try {
+                    Files.deleteIfExists(entry.getKey());
+                    total -= entry.getValue()[0];
+                } catch (IOException e) {
+                    // Try the next one
+                }
+            }
+        }
+        diskBytes.set(total);
+    }
+
+    /**
+     * Private helper method adding a decoded cover to the memory cache, evicting the least recently used covers until
+     * the cache fits its bound. A cover larger than the whole bound is not kept.
+     *
+     * @param url   The cover URL.
+     * @param image The decoded cover.
+     */
+    private void remember(String url, BufferedImage image) {
+        long size = memorySize(image);
+        if (size > maxMemoryBytes) {
+            return;
+        }
+        synchronized (images) {
+            BufferedImage replaced = images.put(url, image);
+            memoryBytes += size - (replaced == null ? 0 : memorySize(replaced));
+            Iterator<BufferedImage> eldest = images.values().iterator();
+            while (memoryBytes > maxMemoryBytes) {
+                memoryBytes -= memorySize(eldest.next());
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Private helper method estimating the memory a decoded image takes.
+     *
+     * @param image The image.
+     * @return Four bytes per pixel.
+     */
+    private static long memorySize(BufferedImage image) {
+        return 4L * image.getWidth() * image.getHeight();
+    }
+
+    /**
+     * Private helper method naming the cache file of a URL by the hex SHA-256 of the URL.
+     *
+     * @param url The cover URL.
+     * @return The file name.
+     */
+    private static String fileName(String url) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(hash.length * 2 + SUFFIX.length());
+            for (byte b : hash) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return name.append(SUFFIX).toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * This class contains a set of JUnit 5 tests for the CoverLoader class.
+ * Covers are served from local files and from a loopback HTTP server that counts its requests.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CoverLoaderTest {
+
+    /**
+     * Encodes a blank image as PNG.
+     *
+     * @param width  The image width.
+     * @param height The image height.
+     * @return The PNG bytes.
+     * @throws IOException if the image cannot be encoded.
+     */
+    private byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", bytes);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Tests that concurrent requests share one download, and that a second loader finds the cover on disk.
+     */
+    @Test
+    public void testHttpCoalescingAndDiskCache() throws Exception {
+        byte[] cover = png(20, 30);
+        AtomicInteger requests = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, cover.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(cover);
+            }
+        });
+        server.start();
+        Path directory = Files.createTempDirectory("covers");
+        String url = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/c.png";
+        try (CoverLoader loader = new CoverLoader(directory, 1 << 20, 1 << 20, 2)) {
+            CompletableFuture<BufferedImage> first = loader.load(url);
+            CompletableFuture<BufferedImage> second = loader.load(url);
+            assertSame(first, second);
+            release.countDown();
+            assertEquals(30, first.get(5, TimeUnit.SECONDS).getHeight());
+            assertNotNull(loader.cached(url));
+            assertEquals(1, requests.get());
+        } finally {
+            server.stop(0);
+        }
+
+        try (CoverLoader reopened = new CoverLoader(directory, 1 << 20, 1 << 20, 1)) {
+            assertNull(reopened.cached(url));
+            assertEquals(20, reopened.load(url).get(5, TimeUnit.SECONDS).getWidth());
+            assertEquals(1, requests.get());
+        }
+    }
+
+    /**
+     * Tests that the memory cache evicts the least recently used cover, and that failures and books without covers
+     * are reported through the future.
+     */
+    @Test
+    public void testMemoryBoundAndFailures() throws Exception {
+        Path images = Files.createTempDirectory("images");
+        Path a = Files.write(images.resolve("a.png"), png(10, 10));
+        Path b = Files.write(images.resolve("b.png"), png(10, 10));
+        String urlA = a.toUri().toString();
+        String urlB = b.toUri().toString();
+        try (CoverLoader loader = new CoverLoader(Files.createTempDirectory("covers"), 500, 1 << 20, 1)) {
+            loader.load(urlA).get(5, TimeUnit.SECONDS);
+            assertNotNull(loader.cached(urlA));
+            loader.load(urlB).get(5, TimeUnit.SECONDS);
+            assertNull(loader.cached(urlA)); // two 10x10 covers take 800 bytes
+            assertNotNull(loader.cached(urlB));
+
+            assertNull(loader.load("").get());
+            String missing = images.resolve("missing.png").toUri().toString();
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> loader.load(missing).get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+}
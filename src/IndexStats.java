@@ -0,0 +1,114 @@
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+
+/**
+ * Publishes the statistics of one field index through JMX, so a monitoring tool can watch tree height and lookup
+ * cost and alert when an index degenerates.
+ * The maps are not thread-safe, so every figure is read on the thread that owns the index, handed in as an
+ * executor, rather than on the JMX thread that asks for it.
+ */
+public class IndexStats implements IndexStatsMBean {
+    private final String field;
+    private final TreeStatistics index;
+    private final Executor owner;
+
+    /**
+     * Constructs the statistics view of an index.
+     *
+     * @param field The name of the indexed field.
+     * @param index The index.
+     * @param owner Runs tasks on the thread that updates the index.
+     */
+    public IndexStats(String field, TreeStatistics index, Executor owner) {
+        this.field = field;
+        this.index = index;
+        this.owner = owner;
+    }
+
+    /**
+     * Registers the statistics of an index with the platform MBean server, under
+     * {@code BookBrowser:type=Index,name=<field>}.
+     *
+     * @param field The name of the indexed field.
+     * @param index The index.
+     * @param owner Runs tasks on the thread that updates the index.
+     */
+    public static void register(String field, TreeStatistics index, Executor owner) {
+        Metrics.register("type=Index,name=" + field, new IndexStats(field, index, owner));
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public int getKeyCount() {
+        return read(index::keyCount);
+    }
+
+    public int getHeight() {
+        return read(index::height);
+    }
+
+    public int getMinimumHeight() {
+        return 32 - Integer.numberOfLeadingZeros(getKeyCount());
+    }
+
+    public double getHeightRatio() {
+        int minimum = getMinimumHeight();
+        return minimum == 0 ? 1 : (double) getHeight() / minimum;
+    }
+
+    public boolean isDegenerate() {
+        return read(() -> index.height() > 2 * Math.log(index.keyCount() + 1) / Math.log(2));
+    }
+
+    public int[] getDepthHistogram() {
+        return read(index::depthHistogram);
+    }
+
+    public double getAverageDepth() {
+        int[] histogram = getDepthHistogram();
+        long nodes = 0;
+        long depths = 0;
+        for (int depth = 0; depth < histogram.length; depth++) {
+            nodes += histogram[depth];
+            depths += (long) depth * histogram[depth];
+        }
+        return nodes == 0 ? 0 : (double) depths / nodes;
+    }
+
+    public long getLookupCount() {
+        return read(index::lookupCount);
+    }
+
+    public double getAverageComparisonsPerLookup() {
+        return read(() -> index.lookupCount() == 0 ? 0 : (double) index.lookupComparisons() / index.lookupCount());
+    }
+
+    public long getOverwrittenValues() {
+        return read(index::overwriteCount);
+    }
+
+    /**
+     * Private helper method reading a figure on the index's owning thread and waiting for it.
+     *
+     * @param reading Computes the figure.
+     * @param <T>     The type of the figure.
+     * @return The figure.
+     * @throws IllegalStateException if interrupted while waiting, or if the reading fails.
+     */
+    private <T> T read(Supplier<T> reading) {
+        FutureTask<T> task = new FutureTask<>(reading::get);
+        owner.execute(task);
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading index statistics", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to read index statistics", e.getCause());
+        }
+    }
+}
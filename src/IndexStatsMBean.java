@@ -0,0 +1,60 @@
+/**
+ * The management interface of {@link IndexStats}: the shape of one field index and how hard its lookups work.
+ */
+public interface IndexStatsMBean {
+
+    /**
+     * @return the name of the indexed field.
+     */
+    public String getField();
+
+    /**
+     * @return the number of distinct keys, which is the number of nodes in the tree.
+     */
+    public int getKeyCount();
+
+    /**
+     * @return the height of the tree, counting the root as level 1.
+     */
+    public int getHeight();
+
+    /**
+     * @return the smallest height a binary tree with this many nodes can have.
+     */
+    public int getMinimumHeight();
+
+    /**
+     * @return the height divided by the minimum height; 1 for a perfectly balanced tree.
+     */
+    public double getHeightRatio();
+
+    /**
+     * @return true if the tree is taller than the red-black bound of 2 log2(n + 1), which a balanced tree never is.
+     */
+    public boolean isDegenerate();
+
+    /**
+     * @return the number of nodes at each depth, with the root at depth 0.
+     */
+    public int[] getDepthHistogram();
+
+    /**
+     * @return the mean depth of a node, with the root at depth 0.
+     */
+    public double getAverageDepth();
+
+    /**
+     * @return the number of single-key lookups made on the index.
+     */
+    public long getLookupCount();
+
+    /**
+     * @return the mean number of key comparisons per lookup.
+     */
+    public double getAverageComparisonsPerLookup();
+
+    /**
+     * @return the number of values replaced because their key was put again.
+     */
+    public long getOverwrittenValues();
+}
@@ -0,0 +1,139 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how fast a field index can be filled: one thread putting into a TreeMap, against several threads putting
+ * into one shared SkipListTreeMap at once. Each run inserts every book of the data file keyed by title into a fresh
+ * multi-valued map, the way an index is built, and the best of several runs is reported as puts per second.
+ *
+ * <p>Usage: {@code java IndexThroughput [data file] [max threads]}
+ */
+public class IndexThroughput {
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 10;
+
+    /**
+     * Runs the comparison and prints one line per configuration.
+     *
+     * @param args The data file, default BooksDataFile.txt, and the most writer threads to try, default twice the
+     *             number of processors.
+     * @throws IOException if the data file cannot be read.
+     * @throws InterruptedException if interrupted while waiting for the writers.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path file = Paths.get(args.length > 0 ? args[0] : "BooksDataFile.txt");
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 2 * Runtime.getRuntime().availableProcessors();
+        List<Book> books = BookLoader.books(BookLoader.parse(file, ForkJoinPool.commonPool()));
+        System.out.printf("%d books, %d processors%n", books.size(), Runtime.getRuntime().availableProcessors());
+
+        report("TreeMap, 1 writer", books.size(), bestTime(() -> {
+            TreeMap<String, Book> map = TreeMap.multiValued();
+            for (Book book : books) {
+                map.put(book.getTitle(), book);
+            }
+            check(map, books);
+        }));
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            int writers = threads;
+            report("SkipListTreeMap, " + writers + " writer" + (writers == 1 ? "" : "s"), books.size(), bestTime(() -> {
+                SkipListTreeMap<String, Book> map = SkipListTreeMap.multiValued();
+                putConcurrently(map, books, writers);
+                check(map, books);
+            }));
+        }
+    }
+
+    /**
+     * A run to be timed.
+     */
+    private interface Run {
+        /**
+         * Performs the run once.
+         *
+         * @throws InterruptedException if interrupted.
+         */
+        void run() throws InterruptedException;
+    }
+
+    /**
+     * Private helper method timing a run after warming it up.
+     *
+     * @param run The run.
+     * @return The fastest measured time, in nanoseconds.
+     * @throws InterruptedException if interrupted.
+     */
+    private static long bestTime(Run run) throws InterruptedException {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            run.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            run.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    /**
+     * Private helper method putting every book into a map from several threads, each taking every n-th book, all
+     * released at the same moment.
+     *
+     * @param map     The shared map.
+     * @param books   The books to put.
+     * @param threads The number of writer threads.
+     * @throws InterruptedException if interrupted while waiting for the writers.
+     */
+    private static void putConcurrently(SkipListTreeMap<String, Book> map, List<Book> books, int threads)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] writers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            writers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = first; i < books.size(); i += threads) {
+                    Book book = books.get(i);
+                    map.put(book.getTitle(), book);
+                }
+            });
+            writers[t].start();
+        }
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+    }
+
+    /**
+     * Private helper method making sure a run kept every book.
+     *
+     * @param map   The filled map.
+     * @param books The books put into it.
+     * @throws IllegalStateException if the map lost values.
+     */
+    private static void check(TreeMapInterface<String, Book> map, List<Book> books) {
+        if (map.size() != books.size()) {
+            throw new IllegalStateException("Expected " + books.size() + " entries but found " + map.size());
+        }
+    }
+
+    /**
+     * Private helper method printing one result.
+     *
+     * @param label The configuration.
+     * @param puts  The number of puts in a run.
+     * @param nanos The time of the best run.
+     */
+    private static void report(String label, int puts, long nanos) {
+        System.out.printf("%-28s %8.2f ms  %6.2f M puts/s%n", label, nanos / 1e6, puts * 1e3 / nanos);
+    }
+}
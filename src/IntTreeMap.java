@@ -0,0 +1,1175 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A red-black TreeMap specialised for primitive int keys.
+ * Nodes are not objects: each node is an index into parallel arrays holding keys, links, colours and subtree sizes,
+ * so keys are never boxed and comparisons are plain int comparisons. Index 0 is the shared empty leaf.
+ * Like {@link TreeMap}, a map created with {@link #multiValued()} keeps every value put under an equal key.
+ * The boxed {@link RankedTreeMapInterface} methods are provided for code written against the interface; the int
+ * overloads should be preferred wherever the key type is known.
+ *
+ * @param <V> The type of mapped values.
+ */
+public class IntTreeMap<V> implements RankedTreeMapInterface<Integer, V>, TreeStatistics {
+    private static final int NIL = 0;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] left, right, parent;
+    private int[] subtreeSize;
+    private int[] valueCount;
+    private boolean[] red;
+    private Object[] values;
+    private Object[][] moreValues;
+    private int root;
+    private int size;
+    private int keyCount;
+    private long lookups;
+    private long lookupComparisons;
+    private long overwrites;
+    private final boolean multiValued;
+
+    /**
+     * Constructs an empty IntTreeMap.
+     */
+    public IntTreeMap() {
+        this(false);
+    }
+
+    /**
+     * Constructs an empty IntTreeMap, optionally keeping duplicate keys.
+     *
+     * @param multiValued Whether put should add to a key's values instead of replacing them.
+     */
+    private IntTreeMap(boolean multiValued) {
+        this.multiValued = multiValued;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates an empty multi-valued IntTreeMap. Putting a key that is already present adds the value to that key's
+     * bucket; sizes, positions and in-order traversals count every value.
+     *
+     * @param <V> The type of mapped values.
+     * @return a new, empty multi-valued map.
+     */
+    public static <V> IntTreeMap<V> multiValued() {
+        return new IntTreeMap<>(true);
+    }
+
+    /**
+     * Adds a key-value pair to the map. If the key is already present its value is replaced, unless the map is
+     * multi-valued, in which case the value is added alongside the existing ones.
+     *
+     * @param key   The key with which the specified value is to be associated.
+     * @param value The value to be associated with the specified key.
+     */
+    public void put(int key, V value) {
+        int up = NIL;
+        int node = root;
+        while (node != NIL) {
+            up = node;
+            if (key < keys[node]) {
+                node = left[node];
+            } else if (key > keys[node]) {
+                node = right[node];
+            } else if (multiValued) { // key already exists, add to its bucket
+                addValue(node, value);
+                size++;
+                for (int ancestor = node; ancestor != NIL; ancestor = parent[ancestor]) {
+                    subtreeSize[ancestor]++;
+                }
+                return;
+            } else { // key already exists, update value
+                values[node] = value;
+                overwrites++;
+                return;
+            }
+        }
+
+        int added = newNode(key, value);
+        parent[added] = up;
+        if (up == NIL) {
+            root = added;
+        } else if (key < keys[up]) {
+            left[up] = added;
+        } else {
+            right[up] = added;
+        }
+        size++;
+        for (int ancestor = up; ancestor != NIL; ancestor = parent[ancestor]) {
+            subtreeSize[ancestor]++;
+        }
+        fixAfterInsertion(added);
+    }
+
+    /**
+     * Adds a key-value pair to the map.
+     *
+     * @param key   The key with which the specified value is to be associated.
+     * @param value The value to be associated with the specified key.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public void put(Integer key, V value) {
+        put(unbox(key), value);
+    }
+
+    /**
+     * Adds a batch of key-value pairs whose keys are already in ascending order.
+     * On an empty map the tree is built directly in linear time; otherwise the batch is merged with the existing
+     * entries in one pass and the tree rebuilt. Equal keys behave as they would with put.
+     *
+     * @param keys   The keys, sorted in ascending order.
+     * @param values The values, with values[i] belonging to keys[i].
+     * @param length The number of pairs to take from the start of the arrays.
+     * @throws IllegalArgumentException if the keys are not sorted.
+     */
+    public void putAll(int[] keys, V[] values, int length) {
+        if (length < 0 || length > keys.length || length > values.length) {
+            throw new IllegalArgumentException("Length " + length + " exceeds the arrays provided");
+        }
+        for (int i = 1; i < length; i++) {
+            if (keys[i] < keys[i - 1]) {
+                throw new IllegalArgumentException("Keys must be sorted: " + keys[i - 1] + " before " + keys[i]);
+            }
+        }
+        if (root == NIL) {
+            buildFromSorted(keys, values, length);
+            return;
+        }
+
+        int[] oldKeys = toIntKeyArray(new int[size]);
+        Object[] oldValues = new Object[size];
+        collectValues(root, oldValues, new int[1]);
+        int[] mergedKeys = new int[size + length];
+        Object[] mergedValues = new Object[size + length];
+        int i = 0, j = 0, k = 0;
+        while (i < oldKeys.length || j < length) {
+            // On equal keys the existing entries go first, as if the batch had been put afterwards
+            if (j == length || (i < oldKeys.length && oldKeys[i] <= keys[j])) {
+                mergedKeys[k] = oldKeys[i];
+                mergedValues[k++] = oldValues[i++];
+            } else {
+                mergedKeys[k] = keys[j];
+                mergedValues[k++] = values[j++];
+            }
+        }
+        buildFromSorted(mergedKeys, mergedValues, k);
+    }
+
+    /**
+     * Private helper method replacing the tree with a perfectly balanced one built from sorted entries.
+     *
+     * @param sortedKeys   The sorted keys.
+     * @param sortedValues The matching values.
+     * @param length       The number of entries to use.
+     */
+    @SuppressWarnings("unchecked")
+    private void buildFromSorted(int[] sortedKeys, Object[] sortedValues, int length) {
+        allocate(Math.max(INITIAL_CAPACITY, length + 1));
+        int entries = 0;
+        for (int i = 0; i < length; i++) {
+            if (keyCount > 0 && sortedKeys[i] == keys[keyCount]) {
+                if (multiValued) {
+                    addValue(keyCount, (V) sortedValues[i]);
+                    entries++;
+                } else {
+                    values[keyCount] = sortedValues[i];
+                    overwrites++;
+                }
+            } else {
+                newNode(sortedKeys[i], (V) sortedValues[i]);
+                entries++;
+            }
+        }
+
+        // Every level is full except possibly the deepest; colouring just that level red keeps the black heights equal
+        int redLevel = 0;
+        for (int m = keyCount - 1; m >= 0; m = m / 2 - 1) {
+            redLevel++;
+        }
+        root = linkBalanced(1, keyCount, 0, redLevel, NIL);
+        size = entries;
+    }
+
+    /**
+     * Private helper method for linking a sorted range of nodes into a balanced subtree.
+     * Nodes were allocated in key order, so node indexes double as sorted positions.
+     *
+     * @param lo       The first node of the range.
+     * @param hi       The last node of the range (inclusive).
+     * @param level    The depth of the subtree root, with the tree root at 0.
+     * @param redLevel The depth whose nodes are coloured red.
+     * @param up       The parent of the subtree root.
+     * @return The root of the subtree, or NIL for an empty range.
+     */
+    private int linkBalanced(int lo, int hi, int level, int redLevel, int up) {
+        if (lo > hi) {
+            return NIL;
+        }
+        int mid = (lo + hi) >>> 1;
+        parent[mid] = up;
+        left[mid] = linkBalanced(lo, mid - 1, level + 1, redLevel, mid);
+        right[mid] = linkBalanced(mid + 1, hi, level + 1, redLevel, mid);
+        red[mid] = level == redLevel;
+        subtreeSize[mid] = subtreeSize[left[mid]] + subtreeSize[right[mid]] + valueCount[mid];
+        return mid;
+    }
+
+    /**
+     * Private helper method restoring the red-black properties after a new red node has been linked in.
+     *
+     * @param node The newly added node.
+     */
+    private void fixAfterInsertion(int node) {
+        while (node != root && red[parent[node]]) {
+            int up = parent[node];
+            int grandparent = parent[up];
+            if (up == left[grandparent]) {
+                int uncle = right[grandparent];
+                if (red[uncle]) {
+                    red[up] = false;
+                    red[uncle] = false;
+                    red[grandparent] = true;
+                    node = grandparent;
+                } else {
+                    if (node == right[up]) {
+                        node = up;
+                        rotateLeft(node);
+                        up = parent[node];
+                    }
+                    red[up] = false;
+                    red[grandparent] = true;
+                    rotateRight(grandparent);
+                }
+            } else {
+                int uncle = left[grandparent];
+                if (red[uncle]) {
+                    red[up] = false;
+                    red[uncle] = false;
+                    red[grandparent] = true;
+                    node = grandparent;
+                } else {
+                    if (node == left[up]) {
+                        node = up;
+                        rotateRight(node);
+                        up = parent[node];
+                    }
+                    red[up] = false;
+                    red[grandparent] = true;
+                    rotateLeft(grandparent);
+                }
+            }
+        }
+        red[root] = false;
+    }
+
+    /**
+     * Private helper method rotating the subtree rooted at the given node to the left.
+     *
+     * @param node The root of the subtree; its right child takes its place.
+     */
+    private void rotateLeft(int node) {
+        int pivot = right[node];
+        right[node] = left[pivot];
+        if (left[pivot] != NIL) {
+            parent[left[pivot]] = node;
+        }
+        replaceChild(node, pivot);
+        left[pivot] = node;
+        parent[node] = pivot;
+        subtreeSize[pivot] = subtreeSize[node];
+        subtreeSize[node] = subtreeSize[left[node]] + subtreeSize[right[node]] + valueCount[node];
+    }
+
+    /**
+     * Private helper method rotating the subtree rooted at the given node to the right.
+     *
+     * @param node The root of the subtree; its left child takes its place.
+     */
+    private void rotateRight(int node) {
+        int pivot = left[node];
+        left[node] = right[pivot];
+        if (right[pivot] != NIL) {
+            parent[right[pivot]] = node;
+        }
+        replaceChild(node, pivot);
+        right[pivot] = node;
+        parent[node] = pivot;
+        subtreeSize[pivot] = subtreeSize[node];
+        subtreeSize[node] = subtreeSize[left[node]] + subtreeSize[right[node]] + valueCount[node];
+    }
+
+    /**
+     * Private helper method linking a replacement node into the position currently held by another node.
+     *
+     * @param node        The node being replaced.
+     * @param replacement The node taking its place under the same parent.
+     */
+    private void replaceChild(int node, int replacement) {
+        int up = parent[node];
+        parent[replacement] = up;
+        if (up == NIL) {
+            root = replacement;
+        } else if (node == left[up]) {
+            left[up] = replacement;
+        } else {
+            right[up] = replacement;
+        }
+    }
+
+    /**
+     * Retrieves the value to which the specified key is mapped.
+     * For a multi-valued map this is the first value put under the key.
+     *
+     * @param key The key whose associated value is to be returned.
+     * @return the value to which the specified key is mapped, or null if this map contains no mapping for the key.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int node = getNode(key);
+        return node == NIL ? null : (V) values[node];
+    }
+
+    /**
+     * Retrieves the value to which the specified key is mapped.
+     *
+     * @param key The key whose associated value is to be returned.
+     * @return the value to which the specified key is mapped, or null if this map contains no mapping for the key.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public V get(Integer key) {
+        return get(unbox(key));
+    }
+
+    /**
+     * Retrieves every value mapped to the specified key, in the order they were put.
+     *
+     * @param key The key whose values are to be returned.
+     * @return a new list of the key's values; empty if the key is not in the map.
+     */
+    public List<V> getAll(int key) {
+        int node = getNode(key);
+        List<V> found = new ArrayList<>(valueCount[node]);
+        for (int i = 0; i < valueCount[node]; i++) {
+            found.add(valueAt(node, i));
+        }
+        return found;
+    }
+
+    /**
+     * Counts the values mapped to the specified key.
+     *
+     * @param key The key of interest.
+     * @return the number of values under the key: 0 if absent, at most 1 unless the map is multi-valued.
+     */
+    public int valueCount(int key) {
+        return valueCount[getNode(key)];
+    }
+
+    /**
+     * Checks if the map contains a specific key.
+     *
+     * @param key The key whose presence in this map is to be tested.
+     * @return true if this map contains a mapping for the specified key.
+     */
+    public boolean containsKey(int key) {
+        return getNode(key) != NIL;
+    }
+
+    /**
+     * Checks if the map contains a specific key.
+     *
+     * @param key The key whose presence in this map is to be tested.
+     * @return true if this map contains a mapping for the specified key.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public boolean containsKey(Integer key) {
+        return containsKey(unbox(key));
+    }
+
+    /**
+     * Private helper method for locating the node holding a key. Counts the lookup and its comparisons.
+     *
+     * @param key The key to search for.
+     * @return The node holding the key, or NIL if not found.
+     */
+    private int getNode(int key) {
+        int node = root;
+        int comparisons = 0;
+        while (node != NIL) {
+            comparisons++;
+            if (key == keys[node]) {
+                break;
+            }
+            node = key < keys[node] ? left[node] : right[node];
+        }
+        lookups++;
+        lookupComparisons += comparisons;
+        return node;
+    }
+
+    /**
+     * Retrieves the key at the given position in sorted order, without boxing.
+     *
+     * @param index The zero-based position of the entry.
+     * @return The key of the entry at that position.
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the size of the map.
+     */
+    public int selectInt(int index) {
+        return keys[selectNode(index, new int[1])];
+    }
+
+    /**
+     * Retrieves the key at the given position in sorted order.
+     *
+     * @param index The zero-based position of the entry.
+     * @return The key of the entry at that position.
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the size of the map.
+     */
+    public Integer select(int index) {
+        return selectInt(index);
+    }
+
+    /**
+     * Retrieves the value at the given position in sorted order.
+     *
+     * @param index The zero-based position of the entry.
+     * @return The value of the entry at that position.
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the size of the map.
+     */
+    public V selectValue(int index) {
+        int[] offset = new int[1];
+        int node = selectNode(index, offset);
+        return valueAt(node, offset[0]);
+    }
+
+    /**
+     * Private helper method for locating the entry at a position using the subtree sizes.
+     *
+     * @param index  The zero-based position of the entry.
+     * @param offset Receives the position of the entry within the node's values.
+     * @return The node holding the entry at that position.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    private int selectNode(int index, int[] offset) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int node = root;
+        while (true) {
+            int leftSize = subtreeSize[left[node]];
+            if (index < leftSize) {
+                node = left[node];
+            } else if (index >= leftSize + valueCount[node]) {
+                index -= leftSize + valueCount[node];
+                node = right[node];
+            } else {
+                offset[0] = index - leftSize;
+                return node;
+            }
+        }
+    }
+
+    /**
+     * Counts the entries in the map whose keys are strictly less than the given key.
+     *
+     * @param key The key to rank; it does not have to be in the map.
+     * @return The number of entries with smaller keys.
+     */
+    public int rank(int key) {
+        return countBelow(key, false);
+    }
+
+    /**
+     * Counts the entries in the map whose keys are strictly less than the given key.
+     *
+     * @param key The key to rank; it does not have to be in the map.
+     * @return The number of entries with smaller keys.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public int rank(Integer key) {
+        return rank(unbox(key));
+    }
+
+    /**
+     * Counts the entries whose keys lie between two bounds. Only the two paths to the bounds are walked, so the
+     * count takes O(log n) however many entries are in the range.
+     *
+     * @param fromKey       The lower bound.
+     * @param fromInclusive Whether entries equal to the lower bound are counted.
+     * @param toKey         The upper bound.
+     * @param toInclusive   Whether entries equal to the upper bound are counted.
+     * @return The number of entries in the range.
+     * @throws IllegalArgumentException if fromKey is greater than toKey.
+     */
+    public int countInRange(int fromKey, boolean fromInclusive, int toKey, boolean toInclusive) {
+        if (fromKey > toKey) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        return Math.max(0, countBelow(toKey, toInclusive) - countBelow(fromKey, !fromInclusive));
+    }
+
+    /**
+     * Counts the entries whose keys lie between two bounds.
+     *
+     * @param fromKey       The lower bound.
+     * @param fromInclusive Whether entries equal to the lower bound are counted.
+     * @param toKey         The upper bound.
+     * @param toInclusive   Whether entries equal to the upper bound are counted.
+     * @return The number of entries in the range.
+     * @throws IllegalArgumentException if a bound is null or fromKey is greater than toKey.
+     */
+    public int countInRange(Integer fromKey, boolean fromInclusive, Integer toKey, boolean toInclusive) {
+        return countInRange(unbox(fromKey), fromInclusive, unbox(toKey), toInclusive);
+    }
+
+    /**
+     * Creates a live view of the entries whose keys lie between two bounds. Nothing is copied.
+     *
+     * @param fromKey       The lower bound.
+     * @param fromInclusive Whether a key equal to fromKey is in the view.
+     * @param toKey         The upper bound.
+     * @param toInclusive   Whether a key equal to toKey is in the view.
+     * @return A view of the range.
+     * @throws IllegalArgumentException if fromKey is greater than toKey.
+     */
+    public RankedTreeMapInterface<Integer, V> subMap(int fromKey, boolean fromInclusive, int toKey, boolean toInclusive) {
+        if (fromKey > toKey) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        return new RangeView<>(this, Comparator.naturalOrder(), fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    /**
+     * Creates a live view of the entries whose keys lie between two bounds. Nothing is copied.
+     *
+     * @param fromKey       The lower bound.
+     * @param fromInclusive Whether a key equal to fromKey is in the view.
+     * @param toKey         The upper bound.
+     * @param toInclusive   Whether a key equal to toKey is in the view.
+     * @return A view of the range.
+     * @throws IllegalArgumentException if a bound is null or fromKey is greater than toKey.
+     */
+    public RankedTreeMapInterface<Integer, V> subMap(Integer fromKey, boolean fromInclusive, Integer toKey,
+                                                     boolean toInclusive) {
+        return subMap(unbox(fromKey), fromInclusive, unbox(toKey), toInclusive);
+    }
+
+    /**
+     * Creates a live view of the entries whose keys are less than, or optionally equal to, a bound.
+     *
+     * @param toKey     The upper bound.
+     * @param inclusive Whether a key equal to toKey is in the view.
+     * @return A view of the range.
+     * @throws IllegalArgumentException if the bound is null.
+     */
+    public RankedTreeMapInterface<Integer, V> headMap(Integer toKey, boolean inclusive) {
+        return new RangeView<>(this, Comparator.naturalOrder(), null, false, unbox(toKey), inclusive);
+    }
+
+    /**
+     * Creates a live view of the entries whose keys are greater than, or optionally equal to, a bound.
+     *
+     * @param fromKey   The lower bound.
+     * @param inclusive Whether a key equal to fromKey is in the view.
+     * @return A view of the range.
+     * @throws IllegalArgumentException if the bound is null.
+     */
+    public RankedTreeMapInterface<Integer, V> tailMap(Integer fromKey, boolean inclusive) {
+        return new RangeView<>(this, Comparator.naturalOrder(), unbox(fromKey), inclusive, null, false);
+    }
+
+    /**
+     * Private helper method counting the entries whose keys are less than, or optionally equal to, a key.
+     *
+     * @param key       The key to count up to; it does not have to be in the map.
+     * @param inclusive Whether the entries with a key equal to the given key are counted.
+     * @return The number of entries below the key.
+     */
+    private int countBelow(int key, boolean inclusive) {
+        int rank = 0;
+        int node = root;
+        while (node != NIL) {
+            if (key < keys[node]) {
+                node = left[node];
+            } else if (key > keys[node]) {
+                rank += subtreeSize[left[node]] + valueCount[node];
+                node = right[node];
+            } else {
+                return rank + subtreeSize[left[node]] + (inclusive ? valueCount[node] : 0);
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the smallest key in the map.
+     *
+     * @return the first key in order, or null if the map is empty.
+     */
+    public Integer firstKey() {
+        return keyOf(firstNode());
+    }
+
+    /**
+     * Returns the largest key in the map.
+     *
+     * @return the last key in order, or null if the map is empty.
+     */
+    public Integer lastKey() {
+        return keyOf(lastNode());
+    }
+
+    /**
+     * Returns the smallest key greater than or equal to the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public Integer ceilingKey(Integer key) {
+        return keyOf(ceilingNode(unbox(key), true));
+    }
+
+    /**
+     * Returns the smallest key strictly greater than the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public Integer higherKey(Integer key) {
+        return keyOf(ceilingNode(unbox(key), false));
+    }
+
+    /**
+     * Returns the largest key less than or equal to the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public Integer floorKey(Integer key) {
+        return keyOf(floorNode(unbox(key), true));
+    }
+
+    /**
+     * Returns the largest key strictly less than the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public Integer lowerKey(Integer key) {
+        return keyOf(floorNode(unbox(key), false));
+    }
+
+    /**
+     * Creates a cursor positioned on the first entry of the map.
+     *
+     * @return a new cursor over this map.
+     */
+    public TreeMapCursor<Integer, V> cursor() {
+        return new IndexCursor(firstNode(), 0);
+    }
+
+    /**
+     * Creates a cursor positioned on the entry at the given position in sorted order.
+     *
+     * @param index The zero-based position of the entry.
+     * @return a new cursor over this map.
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the size of the map.
+     */
+    public TreeMapCursor<Integer, V> cursorAt(int index) {
+        int[] offset = new int[1];
+        int node = selectNode(index, offset);
+        return new IndexCursor(node, offset[0]);
+    }
+
+    /**
+     * Private helper method returning a node's key, boxed, tolerating a missing node.
+     *
+     * @param node The node, possibly NIL.
+     * @return The node's key, or null.
+     */
+    private Integer keyOf(int node) {
+        return node == NIL ? null : keys[node];
+    }
+
+    /**
+     * Private helper method for locating the leftmost node of the tree.
+     *
+     * @return The node holding the smallest key, or NIL if the tree is empty.
+     */
+    private int firstNode() {
+        int node = root;
+        while (node != NIL && left[node] != NIL) {
+            node = left[node];
+        }
+        return node;
+    }
+
+    /**
+     * Private helper method for locating the rightmost node of the tree.
+     *
+     * @return The node holding the largest key, or NIL if the tree is empty.
+     */
+    private int lastNode() {
+        int node = root;
+        while (node != NIL && right[node] != NIL) {
+            node = right[node];
+        }
+        return node;
+    }
+
+    /**
+     * Private helper method for locating the first node whose key is above (or equal to) the given key.
+     *
+     * @param key       The key to search from.
+     * @param inclusive Whether a node holding the key itself qualifies.
+     * @return The matching node, or NIL if there is none.
+     */
+    private int ceilingNode(int key, boolean inclusive) {
+        int best = NIL;
+        int node = root;
+        while (node != NIL) {
+            if (key < keys[node] || (key == keys[node] && inclusive)) {
+                best = node;
+                if (key == keys[node]) {
+                    break;
+                }
+                node = left[node];
+            } else {
+                node = right[node];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Private helper method for locating the last node whose key is below (or equal to) the given key.
+     *
+     * @param key       The key to search from.
+     * @param inclusive Whether a node holding the key itself qualifies.
+     * @return The matching node, or NIL if there is none.
+     */
+    private int floorNode(int key, boolean inclusive) {
+        int best = NIL;
+        int node = root;
+        while (node != NIL) {
+            if (key > keys[node] || (key == keys[node] && inclusive)) {
+                best = node;
+                if (key == keys[node]) {
+                    break;
+                }
+                node = right[node];
+            } else {
+                node = left[node];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Private helper method for finding the in-order successor of a node.
+     *
+     * @param node The current node.
+     * @return The node with the next larger key, or NIL if the node is the last one.
+     */
+    private int successor(int node) {
+        if (right[node] != NIL) {
+            node = right[node];
+            while (left[node] != NIL) {
+                node = left[node];
+            }
+            return node;
+        }
+        int up = parent[node];
+        while (up != NIL && node == right[up]) {
+            node = up;
+            up = parent[up];
+        }
+        return up;
+    }
+
+    /**
+     * Private helper method for finding the in-order predecessor of a node.
+     *
+     * @param node The current node.
+     * @return The node with the next smaller key, or NIL if the node is the first one.
+     */
+    private int predecessor(int node) {
+        if (left[node] != NIL) {
+            node = left[node];
+            while (right[node] != NIL) {
+                node = right[node];
+            }
+            return node;
+        }
+        int up = parent[node];
+        while (up != NIL && node == left[up]) {
+            node = up;
+            up = parent[up];
+        }
+        return up;
+    }
+
+    /**
+     * Removes all key-value pairs from the map.
+     */
+    public void clear() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Returns the number of key-value pairs in this map.
+     * For a multi-valued map every value counts, so this can exceed {@link #keyCount()}.
+     *
+     * @return the number of key-value pairs in this map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of distinct keys in this map.
+     *
+     * @return the number of distinct keys.
+     */
+    public int keyCount() {
+        return keyCount;
+    }
+
+    /**
+     * Returns the height of the tree, counting the root as level 1.
+     *
+     * @return the number of nodes on the longest root-to-leaf path, or 0 for an empty map.
+     */
+    public int height() {
+        return height(root);
+    }
+
+    /**
+     * Counts the nodes at each depth of the tree.
+     *
+     * @return an array whose element d is the number of nodes at depth d, with the root at depth 0.
+     */
+    public int[] depthHistogram() {
+        int[] histogram = new int[height()];
+        countDepths(root, 0, histogram);
+        return histogram;
+    }
+
+    /**
+     * Private helper method for counting the nodes of a subtree by depth.
+     *
+     * @param node      The root of the subtree.
+     * @param depth     The depth of the subtree root.
+     * @param histogram The counts per depth.
+     */
+    private void countDepths(int node, int depth, int[] histogram) {
+        if (node != NIL) {
+            histogram[depth]++;
+            countDepths(left[node], depth + 1, histogram);
+            countDepths(right[node], depth + 1, histogram);
+        }
+    }
+
+    /**
+     * Returns the number of lookups of a single key made so far.
+     *
+     * @return the number of lookups.
+     */
+    public long lookupCount() {
+        return lookups;
+    }
+
+    /**
+     * Returns the number of key comparisons made by all lookups together.
+     *
+     * @return the number of comparisons.
+     */
+    public long lookupComparisons() {
+        return lookupComparisons;
+    }
+
+    /**
+     * Returns the number of values replaced because their key was put again; always 0 for a multi-valued map.
+     *
+     * @return the number of overwritten values.
+     */
+    public long overwriteCount() {
+        return overwrites;
+    }
+
+    /**
+     * Private helper method for computing the height of a subtree.
+     *
+     * @param node The root of the subtree.
+     * @return The height of the subtree.
+     */
+    private int height(int node) {
+        return node == NIL ? 0 : 1 + Math.max(height(left[node]), height(right[node]));
+    }
+
+    /**
+     * Converts the keys of the map to an int array, repeating a key once per value.
+     *
+     * @param array An array of keys to be filled. If it is too small, a new one will be created.
+     * @return An array containing all the keys in the map, in order.
+     */
+    public int[] toIntKeyArray(int[] array) {
+        if (array.length < size) {
+            array = new int[size];
+        }
+        int index = 0;
+        for (int node = firstNode(); node != NIL; node = successor(node)) {
+            for (int i = 0; i < valueCount[node]; i++) {
+                array[index++] = keys[node];
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Converts the keys of the map to an array, repeating a key once per value.
+     *
+     * @param array An array of keys to be filled. If it is too small, a new one will be created.
+     * @return An array containing all the keys in the map, in order.
+     */
+    public Integer[] toKeyArray(Integer[] array) {
+        if (array.length < size) {
+            array = Arrays.copyOf(array, size);
+        }
+        int index = 0;
+        for (int node = firstNode(); node != NIL; node = successor(node)) {
+            for (int i = 0; i < valueCount[node]; i++) {
+                array[index++] = keys[node];
+            }
+        }
+        if (index < array.length) {
+            array[index] = null;
+        }
+        return array;
+    }
+
+    /**
+     * Converts the values of the map to an array, in key order.
+     *
+     * @param array An array of values to be filled. If it is too small, a new one will be created.
+     * @return An array containing all the values in the map.
+     */
+    public V[] toValueArray(V[] array) {
+        if (array.length < size) {
+            array = Arrays.copyOf(array, size);
+        }
+        collectValues(root, array, new int[1]);
+        return array;
+    }
+
+    /**
+     * Private helper method for filling an array with values from the map.
+     *
+     * @param node  The current node being considered.
+     * @param array An array of values to be filled.
+     * @param index An array index to keep track of the current position.
+     */
+    private void collectValues(int node, Object[] array, int[] index) {
+        if (node != NIL) {
+            collectValues(left[node], array, index);
+            for (int i = 0; i < valueCount[node]; i++) {
+                array[index[0]++] = valueAt(node, i);
+            }
+            collectValues(right[node], array, index);
+        }
+    }
+
+    /**
+     * Private helper method converting a boxed key, rejecting null as the other maps do.
+     *
+     * @param key The boxed key.
+     * @return The key as an int.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    private static int unbox(Integer key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        return key;
+    }
+
+    /**
+     * Private helper method resetting the map to empty storage of the given capacity.
+     *
+     * @param capacity The number of node slots, including the NIL slot.
+     */
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        parent = new int[capacity];
+        subtreeSize = new int[capacity];
+        valueCount = new int[capacity];
+        red = new boolean[capacity];
+        values = new Object[capacity];
+        moreValues = new Object[capacity][];
+        root = NIL;
+        size = 0;
+        keyCount = 0;
+    }
+
+    /**
+     * Private helper method taking the next free node slot, growing the arrays when they are full.
+     * The new node is red, unlinked, and holds a single value.
+     *
+     * @param key   The node's key.
+     * @param value The node's first value.
+     * @return The index of the new node.
+     */
+    private int newNode(int key, V value) {
+        int node = ++keyCount;
+        if (node == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            subtreeSize = Arrays.copyOf(subtreeSize, capacity);
+            valueCount = Arrays.copyOf(valueCount, capacity);
+            red = Arrays.copyOf(red, capacity);
+            values = Arrays.copyOf(values, capacity);
+            moreValues = Arrays.copyOf(moreValues, capacity);
+        }
+        keys[node] = key;
+        values[node] = value;
+        valueCount[node] = 1;
+        subtreeSize[node] = 1;
+        red[node] = true;
+        return node;
+    }
+
+    /**
+     * Private helper method appending another value to a node's bucket.
+     *
+     * @param node  The node.
+     * @param added The value to append.
+     */
+    private void addValue(int node, V added) {
+        Object[] bucket = moreValues[node];
+        if (bucket == null) {
+            bucket = moreValues[node] = new Object[2];
+        } else if (valueCount[node] - 1 == bucket.length) {
+            bucket = moreValues[node] = Arrays.copyOf(bucket, bucket.length * 2);
+        }
+        bucket[valueCount[node] - 1] = added;
+        valueCount[node]++;
+    }
+
+    /**
+     * Private helper method returning one of a node's values.
+     *
+     * @param node The node.
+     * @param i    The position of the value, from 0 to valueCount[node] - 1.
+     * @return The value at that position.
+     */
+    @SuppressWarnings("unchecked")
+    private V valueAt(int node, int i) {
+        return (V) (i == 0 ? values[node] : moreValues[node][i - 1]);
+    }
+
+    /**
+     * Inner class implementing a cursor that stays on a node slot between moves.
+     */
+    private class IndexCursor implements TreeMapCursor<Integer, V> {
+        private int current;
+        private int offset;
+
+        /**
+         * Constructs a cursor positioned on the given value of the given node.
+         *
+         * @param start  The starting node, or NIL for an unpositioned cursor.
+         * @param offset The position within the node's values.
+         */
+        IndexCursor(int start, int offset) {
+            current = start;
+            this.offset = offset;
+        }
+
+        public boolean isValid() {
+            return current != NIL;
+        }
+
+        public Integer key() {
+            return keys[currentNode()];
+        }
+
+        public V value() {
+            return valueAt(currentNode(), offset);
+        }
+
+        public boolean first() {
+            current = firstNode();
+            offset = 0;
+            return current != NIL;
+        }
+
+        public boolean last() {
+            current = lastNode();
+            offset = current == NIL ? 0 : valueCount[current] - 1;
+            return current != NIL;
+        }
+
+        public boolean next() {
+            if (current != NIL && offset < valueCount[current] - 1) {
+                offset++;
+                return true;
+            }
+            return moveTo(current == NIL ? NIL : successor(current), false);
+        }
+
+        public boolean previous() {
+            if (offset > 0) {
+                offset--;
+                return true;
+            }
+            return moveTo(current == NIL ? NIL : predecessor(current), true);
+        }
+
+        public boolean seek(Integer key) {
+            return moveTo(ceilingNode(unbox(key), true), false);
+        }
+
+        /**
+         * Moves to the first or last value of the given node if there is one, otherwise stays put.
+         *
+         * @param node   The target node, possibly NIL.
+         * @param atLast Whether to land on the node's last value rather than its first.
+         * @return true if the cursor moved.
+         */
+        private boolean moveTo(int node, boolean atLast) {
+            if (node == NIL) {
+                return false;
+            }
+            current = node;
+            offset = atLast ? valueCount[node] - 1 : 0;
+            return true;
+        }
+
+        /**
+         * Returns the current node, failing if the cursor is not positioned.
+         *
+         * @return The current node.
+         */
+        private int currentNode() {
+            if (current == NIL) {
+                throw new NoSuchElementException("Cursor is not positioned on an entry");
+            }
+            return current;
+        }
+    }
+}
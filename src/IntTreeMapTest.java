@@ -0,0 +1,111 @@
+/**
+ * This class contains a set of JUnit 5 tests for the IntTreeMap class.
+ * It checks that the int-keyed map behaves like TreeMap, including numeric ordering of negative keys,
+ * multi-valued buckets, order statistics and bulk loading.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class IntTreeMapTest {
+
+    private IntTreeMap<String> treeMap;
+
+    /**
+     * Sets up a new IntTreeMap instance before each test method is run.
+     */
+    @BeforeEach
+    public void setUp() {
+        treeMap = new IntTreeMap<>();
+    }
+
+    /**
+     * Tests put(), get() and containsKey() with primitive keys.
+     * Verifies that values are found, replaced, and that missing keys return null.
+     */
+    @Test
+    public void testPutAndGet() {
+        treeMap.put(2008, "The Hunger Games");
+        treeMap.put(1997, "Harry Potter and the Philosopher's Stone");
+        assertEquals(2, treeMap.size());
+        assertEquals("The Hunger Games", treeMap.get(2008));
+        assertTrue(treeMap.containsKey(1997));
+        assertFalse(treeMap.containsKey(2005));
+        assertNull(treeMap.get(2005));
+
+        treeMap.put(2008, "Catching Fire");
+        assertEquals(2, treeMap.size());
+        assertEquals("Catching Fire", treeMap.get(2008));
+
+        treeMap.clear();
+        assertEquals(0, treeMap.size());
+        assertNull(treeMap.get(2008));
+    }
+
+    /**
+     * Tests that keys are ordered numerically, including negative (BC) publication years,
+     * which a String-keyed map orders incorrectly.
+     */
+    @Test
+    public void testNumericOrder() {
+        treeMap.put(1960, "To Kill a Mockingbird");
+        treeMap.put(-720, "The Odyssey");
+        treeMap.put(975, "Beowulf");
+        treeMap.put(-380, "The Republic");
+
+        assertArrayEquals(new int[] {-720, -380, 975, 1960}, treeMap.toIntKeyArray(new int[0]));
+        assertEquals(-720, (int) treeMap.firstKey());
+        assertEquals(975, (int) treeMap.ceilingKey(0));
+        assertEquals(-380, (int) treeMap.lowerKey(975));
+        assertEquals(2, treeMap.rank(975));
+        assertEquals("The Republic", treeMap.selectValue(1));
+    }
+
+    /**
+     * Tests a multi-valued IntTreeMap built partly by bulk load and partly by put.
+     * Verifies value counts, positions and the cursor over every value.
+     */
+    @Test
+    public void testMultiValuedBulkLoad() {
+        IntTreeMap<String> byRating = IntTreeMap.multiValued();
+        byRating.putAll(new int[] {357, 434, 434}, new String[] {"Twilight", "The Hunger Games", "Catching Fire"}, 3);
+        byRating.put(444, "Harry Potter");
+        byRating.put(434, "Mockingjay");
+
+        assertEquals(5, byRating.size());
+        assertEquals(3, byRating.keyCount());
+        assertEquals(3, byRating.valueCount(434));
+        assertEquals("Mockingjay", byRating.getAll(434).get(2));
+        assertEquals(4, byRating.rank(444));
+
+        String[] expected = {"Twilight", "The Hunger Games", "Catching Fire", "Mockingjay", "Harry Potter"};
+        assertArrayEquals(expected, byRating.toValueArray(new String[0]));
+        TreeMapCursor<Integer, String> cursor = byRating.cursorAt(1);
+        assertEquals("The Hunger Games", cursor.value());
+        assertTrue(cursor.next());
+        assertTrue(cursor.next());
+        assertEquals("Mockingjay", cursor.value());
+        assertTrue(cursor.next());
+        assertEquals(444, (int) cursor.key());
+        assertFalse(cursor.next());
+
+        assertThrows(IllegalArgumentException.class, () -> byRating.putAll(new int[] {2, 1}, new String[2], 2));
+    }
+
+    /**
+     * Tests that the tree stays balanced when keys arrive in sorted order.
+     */
+    @Test
+    public void testBalancedOnSortedInput() {
+        int n = 100000;
+        for (int i = 0; i < n; i++) {
+            treeMap.put(i, "Book " + i);
+        }
+        assertEquals(n, treeMap.size());
+        assertTrue(treeMap.height() <= 2 * (32 - Integer.numberOfLeadingZeros(n + 1)));
+        assertEquals(54321, treeMap.selectInt(54321));
+    }
+}
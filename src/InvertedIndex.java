@@ -0,0 +1,386 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A full-text index from words to the books containing them, so words from the middle of a title or author list
+ * can be searched without scanning the catalog.
+ * Titles, original titles and authors are split into lower-cased words of letters and digits. Each word maps to a
+ * posting list of the rows containing it, kept in ascending row order and compressed: every posting is one varint
+ * holding the gap from the previous row, shifted left three bits, with the low bits recording which fields the word
+ * occurred in. A query is the AND of its words, answered by intersecting postings from the shortest list up; the
+ * last word is matched as a prefix so results follow each keystroke. Results are ranked by the summed inverse
+ * document frequency of the words, weighted by the fields they were found in.
+ */
+public class InvertedIndex {
+    private static final int TITLE = 1;
+    private static final int ORIGINAL_TITLE = 2;
+    private static final int AUTHORS = 4;
+    private static final int FIELD_BITS = 3;
+
+    private final BookTable table;
+    private final TreeMap<String, PostingList> terms;
+    private int rows;
+
+    /**
+     * Constructs an index over every row of a table.
+     *
+     * @param table The books to index.
+     */
+    public InvertedIndex(BookTable table) {
+        this.table = table;
+        this.terms = new TreeMap<>();
+        this.rows = 0;
+        addRows();
+    }
+
+    /**
+     * Indexes the rows added to the table since the index was built or last updated.
+     */
+    public void addRows() {
+        Map<String, Integer> fields = new LinkedHashMap<>();
+        for (; rows < table.size(); rows++) {
+            fields.clear();
+            addWords(fields, table.getTitle(rows), TITLE);
+            addWords(fields, table.getOriginalTitle(rows), ORIGINAL_TITLE);
+            addWords(fields, table.getAuthors(rows), AUTHORS);
+            for (Map.Entry<String, Integer> word : fields.entrySet()) {
+                PostingList postings = terms.get(word.getKey());
+                if (postings == null) {
+                    postings = new PostingList();
+                    terms.put(word.getKey(), postings);
+                }
+                postings.add(rows, word.getValue());
+            }
+        }
+    }
+
+    /**
+     * Finds the books containing every word of a query, best matches first. Unless the query ends with a space, its
+     * last word also matches longer words starting with it.
+     *
+     * @param query The words to search for.
+     * @param limit The most books to return.
+     * @return Up to limit matching books, ranked by relevance and then by row; empty if the query has no words.
+     */
+    public List<Book> search(String query, int limit) {
+        List<String> words = tokenize(query);
+        List<Book> results = new ArrayList<>();
+        if (words.isEmpty() || limit <= 0) {
+            return results;
+        }
+        boolean lastIsPrefix = !Character.isWhitespace(query.charAt(query.length() - 1));
+
+        Posting[] postings = new Posting[words.size()];
+        for (int i = 0; i < postings.length; i++) {
+            postings[i] = lastIsPrefix && i == postings.length - 1 ? prefixPostings(words.get(i)) : exactPostings(words.get(i));
+            if (postings[i].count == 0) {
+                return results;
+            }
+        }
+        // Intersect from the shortest list, so the candidate set only shrinks
+        Arrays.sort(postings, Comparator.comparingInt(p -> p.count));
+
+        int[] candidates = Arrays.copyOf(postings[0].rows, postings[0].count);
+        double[] scores = new double[candidates.length];
+        int count = candidates.length;
+        double idf = postings[0].idf(table.size());
+        for (int i = 0; i < count; i++) {
+            scores[i] = postings[0].score(i, idf);
+        }
+        for (int p = 1; p < postings.length && count > 0; p++) {
+            Posting other = postings[p];
+            idf = other.idf(table.size());
+            int kept = 0;
+            for (int i = 0, j = 0; i < count && j < other.count; ) {
+                if (candidates[i] < other.rows[j]) {
+                    i++;
+                } else if (candidates[i] > other.rows[j]) {
+                    j++;
+                } else {
+                    candidates[kept] = candidates[i];
+                    scores[kept++] = scores[i++] + other.score(j++, idf);
+                }
+            }
+            count = kept;
+        }
+
+        // Keep only the best few by insertion into a short sorted array. Candidates arrive in row order and only a
+        // strictly better score moves ahead, so ties stay in row order
+        int[] top = new int[Math.min(limit, count)];
+        int filled = 0;
+        for (int i = 0; i < count; i++) {
+            if (filled == top.length && scores[i] <= scores[top[filled - 1]]) {
+                continue;
+            }
+            int at = filled < top.length ? filled++ : filled - 1;
+            while (at > 0 && scores[i] > scores[top[at - 1]]) {
+                top[at] = top[at - 1];
+                at--;
+            }
+            top[at] = i;
+        }
+        for (int i = 0; i < filled; i++) {
+            results.add(table.book(candidates[top[i]]));
+        }
+        return results;
+    }
+
+    /**
+     * Gets the number of distinct words indexed.
+     *
+     * @return the number of posting lists.
+     */
+    public int termCount() {
+        return terms.size();
+    }
+
+    /**
+     * Gets the total number of postings, one per word per book.
+     *
+     * @return the number of postings across all lists.
+     */
+    public long postingCount() {
+        long count = 0;
+        TreeMapCursor<String, PostingList> cursor = terms.cursor();
+        for (boolean more = cursor.first(); more; more = cursor.next()) {
+            count += cursor.value().count;
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of bytes the compressed postings occupy.
+     *
+     * @return the encoded size of all posting lists.
+     */
+    public long postingBytes() {
+        long bytes = 0;
+        TreeMapCursor<String, PostingList> cursor = terms.cursor();
+        for (boolean more = cursor.first(); more; more = cursor.next()) {
+            bytes += cursor.value().size;
+        }
+        return bytes;
+    }
+
+    /**
+     * Splits text into lower-cased words of letters and digits. Apostrophes inside a word are dropped, so
+     * "Sorcerer's" is the single word "sorcerers".
+     *
+     * @param text The text to split.
+     * @return The words, in order.
+     */
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c);
+            } else if (word.length() > 0 && c != '\'' && c != '\u2019') {
+                words.add(word.toString().toLowerCase(Locale.ROOT));
+                word.setLength(0);
+            }
+        }
+        if (word.length() > 0) {
+            words.add(word.toString().toLowerCase(Locale.ROOT));
+        }
+        return words;
+    }
+
+    /**
+     * Private helper method recording the words of one field of a book.
+     *
+     * @param fields Each word of the book so far, with the fields it occurs in.
+     * @param text   The field's text.
+     * @param field  The bit for the field.
+     */
+    private static void addWords(Map<String, Integer> fields, String text, int field) {
+        for (String word : tokenize(text)) {
+            fields.merge(word, field, (a, b) -> a | b);
+        }
+    }
+
+    /**
+     * Private helper method decoding the postings of one word.
+     *
+     * @param word The word.
+     * @return Its postings, empty if the word is not indexed.
+     */
+    private Posting exactPostings(String word) {
+        PostingList postings = terms.get(word);
+        return postings == null ? new Posting(new int[0], new int[0], 0) : postings.decode();
+    }
+
+    /**
+     * Private helper method merging the postings of every word starting with a prefix into one row-ordered list.
+     * A row found under several words gets the union of their fields. The merge marks rows in an array indexed by
+     * row, which stays linear even when a one-letter prefix matches thousands of words.
+     *
+     * @param prefix The start of a word.
+     * @return The merged postings.
+     */
+    private Posting prefixPostings(String prefix) {
+        int[] marks = null;
+        PostingList first = null;
+        TreeMapCursor<String, PostingList> cursor = terms.cursor();
+        for (boolean more = cursor.seek(prefix); more && cursor.key().startsWith(prefix); more = cursor.next()) {
+            if (first == null) {
+                first = cursor.value();
+                continue;
+            }
+            if (marks == null) {
+                marks = new int[rows];
+                first.markInto(marks);
+            }
+            cursor.value().markInto(marks);
+        }
+        if (marks == null) { // one word or none, so nothing to merge
+            return first != null ? first.decode() : new Posting(new int[0], new int[0], 0);
+        }
+
+        int count = 0;
+        for (int mark : marks) {
+            if (mark != 0) {
+                count++;
+            }
+        }
+        int[] matched = new int[count];
+        int[] fields = new int[count];
+        count = 0;
+        for (int row = 0; row < marks.length; row++) {
+            if (marks[row] != 0) {
+                matched[count] = row;
+                fields[count++] = marks[row];
+            }
+        }
+        return new Posting(matched, fields, count);
+    }
+
+    /**
+     * The compressed postings of one word.
+     */
+    private static class PostingList {
+        private byte[] bytes = new byte[4];
+        private int size;
+        private int count;
+        private int lastRow = -1;
+
+        /**
+         * Appends a posting. Rows must be added in increasing order.
+         *
+         * @param row    The row containing the word.
+         * @param fields The bits of the fields the word occurs in.
+         */
+        void add(int row, int fields) {
+            long value = ((long) (row - lastRow) << FIELD_BITS) | fields;
+            if (size + 10 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + 10));
+            }
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+            lastRow = row;
+            count++;
+        }
+
+        /**
+         * Decodes every posting.
+         *
+         * @return The rows and their field bits, in row order.
+         */
+        Posting decode() {
+            int[] rows = new int[count];
+            int[] fields = new int[count];
+            int row = -1;
+            int position = 0;
+            for (int i = 0; i < count; i++) {
+                long value = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[position++];
+                    value |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                row += (int) (value >>> FIELD_BITS);
+                rows[i] = row;
+                fields[i] = (int) value & ((1 << FIELD_BITS) - 1);
+            }
+            return new Posting(rows, fields, count);
+        }
+
+        /**
+         * Decodes every posting straight into an array indexed by row, adding each posting's field bits.
+         *
+         * @param marks The field bits found so far for each row.
+         */
+        void markInto(int[] marks) {
+            int row = -1;
+            int position = 0;
+            for (int i = 0; i < count; i++) {
+                long value = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[position++];
+                    value |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                row += (int) (value >>> FIELD_BITS);
+                marks[row] |= (int) value & ((1 << FIELD_BITS) - 1);
+            }
+        }
+    }
+
+    /**
+     * Decoded postings of a word or of a prefix.
+     */
+    private static class Posting {
+        private final int[] rows;
+        private final int[] fields;
+        private final int count;
+
+        /**
+         * Constructs decoded postings.
+         *
+         * @param rows   The rows, ascending.
+         * @param fields The field bits for each row.
+         * @param count  The number of postings.
+         */
+        Posting(int[] rows, int[] fields, int count) {
+            this.rows = rows;
+            this.fields = fields;
+            this.count = count;
+        }
+
+        /**
+         * Gets the inverse document frequency of these postings: the rarer the word, the more a match counts.
+         *
+         * @param books The number of books indexed.
+         * @return The weight of a match.
+         */
+        double idf(int books) {
+            return Math.log(1.0 + (double) books / count);
+        }
+
+        /**
+         * Scores one posting: a word in the title or authors counts for more than one only in the original title.
+         *
+         * @param i   The posting.
+         * @param idf The postings' {@link #idf}.
+         * @return The posting's contribution to a book's relevance.
+         */
+        double score(int i, double idf) {
+            int weight = ((fields[i] & TITLE) != 0 ? 2 : 0) + ((fields[i] & AUTHORS) != 0 ? 2 : 0)
+                    + ((fields[i] & ORIGINAL_TITLE) != 0 ? 1 : 0);
+            return idf * weight;
+        }
+    }
+}
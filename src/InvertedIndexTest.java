@@ -0,0 +1,81 @@
+/**
+ * This class contains a set of JUnit 5 tests for the InvertedIndex class.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class InvertedIndexTest {
+
+    private BookTable table;
+    private InvertedIndex index;
+
+    /**
+     * Creates an index over a few books before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        table = new BookTable();
+        table.add("0439554934", "J.K. Rowling, Mary GrandPre", 1997, "Harry Potter and the Philosopher's Stone",
+                "Harry Potter and the Sorcerer's Stone (Harry Potter, #1)", 444);
+        table.add("0439023483", "Suzanne Collins", 2008, "The Hunger Games", "The Hunger Games (The Hunger Games, #1)", 434);
+        table.add("0439358078", "J.K. Rowling, Mary GrandPre", 2003, "Harry Potter and the Order of the Phoenix",
+                "Harry Potter and the Order of the Phoenix (Harry Potter, #5)", 446);
+        table.add("0545010225", "J.K. Rowling", 2007, "Harry Potter and the Deathly Hallows",
+                "Harry Potter and the Deathly Hallows (Harry Potter, #7)", 461);
+        index = new InvertedIndex(table);
+    }
+
+    /**
+     * Tests splitting text into lower-cased words.
+     */
+    @Test
+    public void testTokenize() {
+        assertEquals(Arrays.asList("harry", "potter", "and", "the", "sorcerers", "stone", "harry", "potter", "1"),
+                InvertedIndex.tokenize("Harry Potter and the Sorcerer's Stone (Harry Potter, #1)"));
+        assertEquals(Arrays.asList("j", "k", "rowling"), InvertedIndex.tokenize("J.K. Rowling"));
+        assertTrue(InvertedIndex.tokenize(" -- ").isEmpty());
+    }
+
+    /**
+     * Tests that every word must match, that the last word matches as a prefix, and that a trailing space makes it
+     * exact.
+     */
+    @Test
+    public void testSearch() {
+        List<Book> results = index.search("potter stone", 10);
+        assertEquals(1, results.size());
+        assertEquals("0439554934", results.get(0).getIsbn());
+
+        assertEquals(3, index.search("rowling", 10).size());
+        assertEquals(1, index.search("potter phoe", 10).size());
+        assertTrue(index.search("potter phoe ", 10).isEmpty());
+        assertEquals(3, index.search("potter HA", 10).size()); // "harry" and "hallows" both match; each book once
+        assertTrue(index.search("potter hunger", 10).isEmpty());
+        assertEquals(2, index.search("harry", 2).size());
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    /**
+     * Tests that a word in the title outranks one only in the original title, and that rows added later are found.
+     */
+    @Test
+    public void testRankingAndAddRows() {
+        table.add("0000000001", "A. Writer", 2001, "Moon", "Night Sky", 300);
+        table.add("0000000002", "B. Writer", 2002, "Untitled", "Moon", 300);
+        assertTrue(index.search("moon", 10).isEmpty());
+        index.addRows();
+
+        List<Book> results = index.search("moon", 10);
+        assertEquals(2, results.size());
+        assertEquals("0000000002", results.get(0).getIsbn());
+        assertEquals(2, index.search("writer", 10).size());
+        assertEquals("0000000001", index.search("a writer", 10).get(0).getIsbn());
+    }
+}
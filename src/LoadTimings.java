@@ -0,0 +1,97 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records how long each phase of loading the catalog takes and publishes the figures through JMX.
+ * Phases are timed with {@link #lap}, which records the time since the previous lap and starts the next one.
+ */
+public class LoadTimings implements LoadTimingsMBean {
+    /**
+     * The phases of a load, in the order they run.
+     */
+    public enum Phase {
+        READ, PARSE, INDEX, SAVE, SEARCH_INDEX
+    }
+
+    private final AtomicLongArray nanos = new AtomicLongArray(Phase.values().length);
+    private volatile int bookCount;
+    private volatile boolean fromSnapshot;
+
+    /**
+     * Registers timings with the platform MBean server as {@code BookBrowser:type=LoadTimings}.
+     *
+     * @param timings The timings.
+     */
+    public static void register(LoadTimings timings) {
+        Metrics.register("type=LoadTimings", timings);
+    }
+
+    /**
+     * Records the time since a phase started.
+     *
+     * @param phase The phase that just finished.
+     * @param since The {@link System#nanoTime()} when it started.
+     * @return The current {@link System#nanoTime()}, which is when the next phase starts.
+     */
+    public long lap(Phase phase, long since) {
+        long now = System.nanoTime();
+        nanos.set(phase.ordinal(), now - since);
+        return now;
+    }
+
+    /**
+     * Records what was loaded.
+     *
+     * @param bookCount    The number of books.
+     * @param fromSnapshot Whether they came from the snapshot.
+     */
+    public void setLoaded(int bookCount, boolean fromSnapshot) {
+        this.bookCount = bookCount;
+        this.fromSnapshot = fromSnapshot;
+    }
+
+    public double getReadMillis() {
+        return millis(Phase.READ);
+    }
+
+    public double getParseMillis() {
+        return millis(Phase.PARSE);
+    }
+
+    public double getIndexMillis() {
+        return millis(Phase.INDEX);
+    }
+
+    public double getSaveMillis() {
+        return millis(Phase.SAVE);
+    }
+
+    public double getSearchIndexMillis() {
+        return millis(Phase.SEARCH_INDEX);
+    }
+
+    public double getTotalMillis() {
+        double total = 0;
+        for (Phase phase : Phase.values()) {
+            total += millis(phase);
+        }
+        return total;
+    }
+
+    public int getBookCount() {
+        return bookCount;
+    }
+
+    public boolean isFromSnapshot() {
+        return fromSnapshot;
+    }
+
+    /**
+     * Private helper method returning the recorded time of a phase.
+     *
+     * @param phase The phase.
+     * @return Its time in milliseconds, or 0 if it has not run.
+     */
+    private double millis(Phase phase) {
+        return nanos.get(phase.ordinal()) / 1e6;
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * The management interface of {@link LoadTimings}: how long each phase of the last catalog load took.
+ */
+public interface LoadTimingsMBean {
+
+    /**
+     * @return the time spent checking the data file and reading the snapshot, in milliseconds.
+     */
+    public double getReadMillis();
+
+    /**
+     * @return the time spent parsing the data file, in milliseconds; close to 0 when the snapshot was used.
+     */
+    public double getParseMillis();
+
+    /**
+     * @return the time spent building the field indexes, in milliseconds.
+     */
+    public double getIndexMillis();
+
+    /**
+     * @return the time spent writing a new snapshot, in milliseconds; 0 when the snapshot was used.
+     */
+    public double getSaveMillis();
+
+    /**
+     * @return the time spent building the prefix and full-text search indexes, in milliseconds.
+     */
+    public double getSearchIndexMillis();
+
+    /**
+     * @return the time the whole load took, in milliseconds.
+     */
+    public double getTotalMillis();
+
+    /**
+     * @return the number of books loaded.
+     */
+    public int getBookCount();
+
+    /**
+     * @return true if the books came from the snapshot rather than the data file.
+     */
+    public boolean isFromSnapshot();
+}
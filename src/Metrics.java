@@ -0,0 +1,34 @@
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registers the browser's MBeans with the platform MBean server, where JConsole or any JMX client can read them.
+ */
+final class Metrics {
+    private static final String DOMAIN = "BookBrowser";
+
+    private Metrics() {
+    }
+
+    /**
+     * Registers an MBean with the platform MBean server in the BookBrowser domain, replacing any registered under the
+     * same name. Monitoring is optional, so a failure to register is ignored.
+     *
+     * @param properties The key properties of the name, for example {@code type=LoadTimings}.
+     * @param mbean      The MBean.
+     */
+    static void register(String properties, Object mbean) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(DOMAIN + ":" + properties);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(mbean, name);
+        } catch (JMException e) {
+            // The browser works the same without its metrics
+        }
+    }
+}
@@ -0,0 +1,983 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An ordered map built from immutable red-black tree nodes, so it can be read from one thread while another writes.
+ * A put never changes a node: it copies the nodes on the path from the root to the key, shares every other subtree
+ * with the previous version, and then publishes the new root with a single atomic swap. A reader that picks up a
+ * root therefore sees one complete, balanced version of the map for as long as it holds it, without taking a lock,
+ * and writers never wait for readers. Concurrent writers retry their path copy if another put won the swap.
+ *
+ * <p>Single calls always see one version. A cursor captures the version current when it is created and keeps
+ * walking it however the map changes, and {@link #snapshot()} freezes a version for a sequence of calls.
+ *
+ * @param <K> The type of keys maintained by this map. Must be Comparable.
+ * @param <V> The type of mapped values.
+ */
+public class PersistentTreeMap<K extends Comparable<K>, V> implements RankedTreeMapInterface<K, V> {
+    private final AtomicReference<Node<K, V>> root;
+    private final boolean multiValued;
+
+    /**
+     * Constructs an empty map in which putting an existing key replaces its value.
+     */
+    public PersistentTreeMap() {
+        this(null, false);
+    }
+
+    /**
+     * Constructs a map starting from the given version.
+     *
+     * @param root        The root of the version, or null for an empty map.
+     * @param multiValued Whether putting an existing key adds a value instead of replacing it.
+     */
+    private PersistentTreeMap(Node<K, V> root, boolean multiValued) {
+        this.root = new AtomicReference<>(root);
+        this.multiValued = multiValued;
+    }
+
+    /**
+     * Creates an empty multi-valued map. Putting a key that is already present adds the value to that key's bucket,
+     * after the values already there.
+     *
+     * @param <K> The type of keys maintained by the map.
+     * @param <V> The type of mapped values.
+     * @return a new, empty multi-valued map.
+     */
+    public static <K extends Comparable<K>, V> PersistentTreeMap<K, V> multiValued() {
+        return new PersistentTreeMap<>(null, true);
+    }
+
+    /**
+     * Returns a map holding the current version of this one. Taking a snapshot is O(1) since the nodes are shared.
+     * Later puts on either map are not seen by the other.
+     *
+     * @return an independent map with the same entries.
+     */
+    public PersistentTreeMap<K, V> snapshot() {
+        return new PersistentTreeMap<>(root.get(), multiValued);
+    }
+
+    /**
+     * Adds a key-value pair, publishing a new version of the map. If the key is already present its value is
+     * replaced, unless the map is multi-valued, in which case the value is added alongside the existing ones.
+     *
+     * @param key   The key with which the specified value is to be associated.
+     * @param value The value to be associated with the specified key.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public void put(K key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        Node<K, V> current;
+        Node<K, V> updated;
+        do {
+            current = root.get();
+            updated = black(insert(current, key, value));
+        } while (!root.compareAndSet(current, updated));
+    }
+
+    /**
+     * Adds a batch of key-value pairs whose keys are already in ascending order, publishing one new version.
+     * On an empty map the tree is built directly, perfectly balanced, in linear time; otherwise each pair is
+     * inserted in turn into a private copy before the result is published.
+     *
+     * @param keys   The keys, sorted in ascending order; equal keys must be adjacent.
+     * @param values The values, with values[i] belonging to keys[i].
+     * @param length The number of pairs to take from the start of the arrays.
+     * @throws IllegalArgumentException if a key is null or the keys are not sorted.
+     */
+    public void putAll(K[] keys, V[] values, int length) {
+        if (length < 0 || length > keys.length || length > values.length) {
+            throw new IllegalArgumentException("Length " + length + " exceeds the arrays provided");
+        }
+        for (int i = 0; i < length; i++) {
+            if (keys[i] == null) {
+                throw new IllegalArgumentException("Key cannot be null");
+            }
+            if (i > 0 && keys[i].compareTo(keys[i - 1]) < 0) {
+                throw new IllegalArgumentException("Keys must be sorted: " + keys[i - 1] + " before " + keys[i]);
+            }
+        }
+        Node<K, V> current;
+        Node<K, V> updated;
+        do {
+            current = root.get();
+            if (current == null) {
+                updated = buildFromSorted(keys, values, length);
+            } else {
+                updated = current;
+                for (int i = 0; i < length; i++) {
+                    updated = black(insert(updated, keys[i], values[i]));
+                }
+            }
+        } while (!root.compareAndSet(current, updated));
+    }
+
+    /**
+     * Retrieves the value associated with the specified key; the first one put if the map is multi-valued.
+     *
+     * @param key The key whose associated value is to be returned.
+     * @return the value to which the specified key is mapped, or null if the map contains no mapping for the key.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public V get(K key) {
+        Node<K, V> node = getNode(root.get(), key);
+        return node == null ? null : node.valueAt(0);
+    }
+
+    /**
+     * Retrieves every value mapped to the specified key, in the order they were put.
+     *
+     * @param key The key whose values are to be returned.
+     * @return a new list of the key's values; empty if the key is not in the map.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public List<V> getAll(K key) {
+        Node<K, V> node = getNode(root.get(), key);
+        List<V> values = new ArrayList<>(node == null ? 0 : node.values.length);
+        if (node != null) {
+            for (int i = 0; i < node.values.length; i++) {
+                values.add(node.valueAt(i));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Counts the values mapped to the specified key.
+     *
+     * @param key The key of interest.
+     * @return the number of values under the key: 0 if absent, at most 1 unless the map is multi-valued.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public int valueCount(K key) {
+        Node<K, V> node = getNode(root.get(), key);
+        return node == null ? 0 : node.values.length;
+    }
+
+    /**
+     * Checks if the map contains a mapping for the specified key.
+     *
+     * @param key The key whose presence is to be tested.
+     * @return True if the map contains a mapping for the specified key, false otherwise.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public boolean containsKey(K key) {
+        return getNode(root.get(), key) != null;
+    }
+
+    /**
+     * Removes all mappings by publishing an empty version. Readers holding an older version are unaffected.
+     */
+    public void clear() {
+        root.set(null);
+    }
+
+    /**
+     * Returns the number of values in the current version.
+     *
+     * @return the number of entries in the map.
+     */
+    public int size() {
+        return size(root.get());
+    }
+
+    /**
+     * Returns the number of distinct keys in the current version.
+     *
+     * @return the number of distinct keys.
+     */
+    public int keyCount() {
+        Node<K, V> node = root.get();
+        return node == null ? 0 : node.keyCount;
+    }
+
+    /**
+     * Returns the height of the current version, counting the root as level 1.
+     *
+     * @return the number of nodes on the longest root-to-leaf path, or 0 for an empty map.
+     */
+    int height() {
+        return height(root.get());
+    }
+
+    /**
+     * Converts the keys of the current version to an array. A key is repeated once per value.
+     *
+     * @param array An array of keys to be filled. If it is too small, a new one will be created.
+     * @return An array containing all the keys in the map, in order.
+     */
+    public K[] toKeyArray(K[] array) {
+        Node<K, V> version = root.get();
+        int size = size(version);
+        if (array.length < size) {
+            array = Arrays.copyOf(array, size);
+        } else if (array.length > size) {
+            array[size] = null;
+        }
+        populateArrayWithKeys(version, array, new int[1]);
+        return array;
+    }
+
+    /**
+     * Retrieves the key at the given position in sorted order.
+     *
+     * @param index The zero-based position of the key.
+     * @return The key of the entry with exactly {@code index} entries before it.
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the size of the map.
+     */
+    public K select(int index) {
+        return selectNode(root.get(), index, new int[1]).key;
+    }
+
+    /**
+     * Retrieves the value whose key is at the given position in sorted order.
+     *
+     * @param index The zero-based position of the entry.
+     * @return The value of the entry at that position.
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the size of the map.
+     */
+    public V selectValue(int index) {
+        int[] offset = new int[1];
+        Node<K, V> node = selectNode(root.get(), index, offset);
+        return node.valueAt(offset[0]);
+    }
+
+    /**
+     * Counts the entries in the map whose keys are strictly less than the given key.
+     *
+     * @param key The key to rank; it does not have to be in the map.
+     * @return The number of entries with smaller keys.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public int rank(K key) {
+        return countBelow(root.get(), key, false);
+    }
+
+    /**
+     * Counts the entries whose keys lie between two bounds, in O(log n), within one version of the map.
+     *
+     * @param fromKey       The lower bound.
+     * @param fromInclusive Whether entries equal to the lower bound are counted.
+     * @param toKey         The upper bound.
+     * @param toInclusive   Whether entries equal to the upper bound are counted.
+     * @return The number of entries in the range.
+     * @throws IllegalArgumentException if a bound is null or fromKey is greater than toKey.
+     */
+    public int countInRange(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        checkRange(fromKey, toKey);
+        Node<K, V> version = root.get();
+        return Math.max(0, countBelow(version, toKey, toInclusive) - countBelow(version, fromKey, !fromInclusive));
+    }
+
+    /**
+     * Creates a live view of the entries whose keys lie between two bounds. Each call on the view reads the then
+     * current version; take a {@link #snapshot()} first for a view that does not change.
+     *
+     * @param fromKey       The lower bound.
+     * @param fromInclusive Whether a key equal to fromKey is in the view.
+     * @param toKey         The upper bound.
+     * @param toInclusive   Whether a key equal to toKey is in the view.
+     * @return A view of the range.
+     * @throws IllegalArgumentException if a bound is null or fromKey is greater than toKey.
+     */
+    public RankedTreeMapInterface<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        checkRange(fromKey, toKey);
+        return new RangeView<>(this, Comparator.naturalOrder(), fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    /**
+     * Creates a live view of the entries whose keys are less than, or optionally equal to, a bound.
+     *
+     * @param toKey     The upper bound.
+     * @param inclusive Whether a key equal to toKey is in the view.
+     * @return A view of the range.
+     * @throws IllegalArgumentException if the bound is null.
+     */
+    public RankedTreeMapInterface<K, V> headMap(K toKey, boolean inclusive) {
+        checkRange(toKey, toKey);
+        return new RangeView<>(this, Comparator.naturalOrder(), null, false, toKey, inclusive);
+    }
+
+    /**
+     * Creates a live view of the entries whose keys are greater than, or optionally equal to, a bound.
+     *
+     * @param fromKey   The lower bound.
+     * @param inclusive Whether a key equal to fromKey is in the view.
+     * @return A view of the range.
+     * @throws IllegalArgumentException if the bound is null.
+     */
+    public RankedTreeMapInterface<K, V> tailMap(K fromKey, boolean inclusive) {
+        checkRange(fromKey, fromKey);
+        return new RangeView<>(this, Comparator.naturalOrder(), fromKey, inclusive, null, false);
+    }
+
+    /**
+     * Returns the smallest key in the map.
+     *
+     * @return the first key in order, or null if the map is empty.
+     */
+    public K firstKey() {
+        Node<K, V> node = root.get();
+        while (node != null && node.left != null) {
+            node = node.left;
+        }
+        return node == null ? null : node.key;
+    }
+
+    /**
+     * Returns the largest key in the map.
+     *
+     * @return the last key in order, or null if the map is empty.
+     */
+    public K lastKey() {
+        Node<K, V> node = root.get();
+        while (node != null && node.right != null) {
+            node = node.right;
+        }
+        return node == null ? null : node.key;
+    }
+
+    /**
+     * Returns the smallest key greater than or equal to the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public K ceilingKey(K key) {
+        return ceiling(key, true);
+    }
+
+    /**
+     * Returns the smallest key strictly greater than the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public K higherKey(K key) {
+        return ceiling(key, false);
+    }
+
+    /**
+     * Returns the largest key less than or equal to the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public K floorKey(K key) {
+        return floor(key, true);
+    }
+
+    /**
+     * Returns the largest key strictly less than the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public K lowerKey(K key) {
+        return floor(key, false);
+    }
+
+    /**
+     * Creates a cursor over the current version, positioned on its first entry, or unpositioned if it is empty.
+     * The cursor keeps walking that version even if the map changes.
+     *
+     * @return a new cursor.
+     */
+    public TreeMapCursor<K, V> cursor() {
+        PathCursor cursor = new PathCursor(root.get());
+        cursor.first();
+        return cursor;
+    }
+
+    /**
+     * Creates a cursor over the current version, positioned on the entry at the given position in sorted order.
+     *
+     * @param index The zero-based position of the entry.
+     * @return a new cursor.
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the size of the map.
+     */
+    public TreeMapCursor<K, V> cursorAt(int index) {
+        PathCursor cursor = new PathCursor(root.get());
+        cursor.moveToIndex(index);
+        return cursor;
+    }
+
+    /**
+     * Private helper method returning a copy of a subtree with the key added, rebalanced on the way back up.
+     * Only the nodes on the path to the key are copied.
+     *
+     * @param node  The root of the subtree, possibly null.
+     * @param key   The key to add.
+     * @param value The value to add.
+     * @return The root of the new subtree, which may be red with a red child until the caller blackens it.
+     */
+    private Node<K, V> insert(Node<K, V> node, K key, V value) {
+        if (node == null) {
+            return new Node<>(key, new Object[] {value}, null, null, true);
+        }
+        int compare = key.compareTo(node.key);
+        if (compare < 0) {
+            return balance(node.red, node.key, node.values, insert(node.left, key, value), node.right);
+        } else if (compare > 0) {
+            return balance(node.red, node.key, node.values, node.left, insert(node.right, key, value));
+        }
+        Object[] values;
+        if (multiValued) {
+            values = Arrays.copyOf(node.values, node.values.length + 1);
+            values[node.values.length] = value;
+        } else {
+            values = new Object[] {value};
+        }
+        return new Node<>(node.key, values, node.left, node.right, node.red);
+    }
+
+    /**
+     * Private helper method building a node, removing a red node with a red child below a black one.
+     * Each of the four ways a red child and red grandchild can sit under a black node becomes a red node with two
+     * black children, which keeps the black height and pushes the problem, if any, one level up.
+     *
+     * @param red    Whether the node is red.
+     * @param key    The node's key.
+     * @param values The node's values.
+     * @param left   The new left subtree.
+     * @param right  The new right subtree.
+     * @return The balanced node.
+     */
+    private Node<K, V> balance(boolean red, K key, Object[] values, Node<K, V> left, Node<K, V> right) {
+        if (!red) {
+            if (isRed(left) && isRed(left.left)) {
+                return new Node<>(left.key, left.values, black(left.left),
+                        new Node<>(key, values, left.right, right, false), true);
+            }
+            if (isRed(left) && isRed(left.right)) {
+                Node<K, V> middle = left.right;
+                return new Node<>(middle.key, middle.values,
+                        new Node<>(left.key, left.values, left.left, middle.left, false),
+                        new Node<>(key, values, middle.right, right, false), true);
+            }
+            if (isRed(right) && isRed(right.left)) {
+                Node<K, V> middle = right.left;
+                return new Node<>(middle.key, middle.values,
+                        new Node<>(key, values, left, middle.left, false),
+                        new Node<>(right.key, right.values, middle.right, right.right, false), true);
+            }
+            if (isRed(right) && isRed(right.right)) {
+                return new Node<>(right.key, right.values,
+                        new Node<>(key, values, left, right.left, false), black(right.right), true);
+            }
+        }
+        return new Node<>(key, values, left, right, red);
+    }
+
+    /**
+     * Private helper method building a balanced tree from sorted entries. Runs of equal keys become one node, and
+     * only the deepest, partly filled level is red.
+     *
+     * @param keys   The sorted keys.
+     * @param values The matching values.
+     * @param length The number of entries to use.
+     * @return The root of the new tree, or null if there are no entries.
+     */
+    private Node<K, V> buildFromSorted(K[] keys, V[] values, int length) {
+        List<K> runKeys = new ArrayList<>();
+        List<Object[]> runValues = new ArrayList<>();
+        for (int i = 0; i < length; ) {
+            int end = i + 1;
+            while (end < length && keys[end].compareTo(keys[i]) == 0) {
+                end++;
+            }
+            runKeys.add(keys[i]);
+            runValues.add(multiValued ? Arrays.copyOfRange(values, i, end, Object[].class) : new Object[] {values[end - 1]});
+            i = end;
+        }
+
+        int redLevel = 0;
+        for (int m = runKeys.size() - 1; m >= 0; m = m / 2 - 1) {
+            redLevel++;
+        }
+        return linkBalanced(runKeys, runValues, 0, runKeys.size() - 1, 0, redLevel);
+    }
+
+    /**
+     * Private helper method building a balanced subtree from a sorted range of runs, children first.
+     *
+     * @param keys     The key of each run.
+     * @param values   The values of each run.
+     * @param lo       The first run of the range.
+     * @param hi       The last run of the range (inclusive).
+     * @param level    The depth of the subtree root, with the tree root at 0.
+     * @param redLevel The depth whose nodes are coloured red.
+     * @return The root of the subtree, or null for an empty range.
+     */
+    private Node<K, V> linkBalanced(List<K> keys, List<Object[]> values, int lo, int hi, int level, int redLevel) {
+        if (lo > hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        Node<K, V> left = linkBalanced(keys, values, lo, mid - 1, level + 1, redLevel);
+        Node<K, V> right = linkBalanced(keys, values, mid + 1, hi, level + 1, redLevel);
+        return new Node<>(keys.get(mid), values.get(mid), left, right, level == redLevel);
+    }
+
+    /**
+     * Private helper method for finding the node of a key in one version.
+     *
+     * @param node The root of the version.
+     * @param key  The key to find.
+     * @return The node holding the key, or null if it is absent.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    private Node<K, V> getNode(Node<K, V> node, K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        while (node != null) {
+            int compare = key.compareTo(node.key);
+            if (compare == 0) {
+                return node;
+            }
+            node = compare < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Private helper method for locating the entry at a position in one version.
+     *
+     * @param node   The root of the version.
+     * @param index  The zero-based position of the entry.
+     * @param offset Receives the position of the entry within the node's values.
+     * @return The node holding the entry at that position.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    private Node<K, V> selectNode(Node<K, V> node, int index, int[] offset) {
+        if (index < 0 || index >= size(node)) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size(node));
+        }
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index >= leftSize + node.values.length) {
+                index -= leftSize + node.values.length;
+                node = node.right;
+            } else {
+                offset[0] = index - leftSize;
+                return node;
+            }
+        }
+    }
+
+    /**
+     * Private helper method counting the entries of one version whose keys are less than, or optionally equal to,
+     * a key.
+     *
+     * @param node      The root of the version.
+     * @param key       The key to count up to; it does not have to be in the map.
+     * @param inclusive Whether the entries with a key equal to the given key are counted.
+     * @return The number of entries below the key.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    private int countBelow(Node<K, V> node, K key, boolean inclusive) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        int rank = 0;
+        while (node != null) {
+            int compare = key.compareTo(node.key);
+            if (compare < 0) {
+                node = node.left;
+            } else if (compare > 0) {
+                rank += size(node.left) + node.values.length;
+                node = node.right;
+            } else {
+                return rank + size(node.left) + (inclusive ? node.values.length : 0);
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Private helper method finding the smallest key above, or optionally equal to, a key.
+     *
+     * @param key       The key to search from.
+     * @param inclusive Whether an equal key qualifies.
+     * @return The matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    private K ceiling(K key, boolean inclusive) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        K found = null;
+        Node<K, V> node = root.get();
+        while (node != null) {
+            int compare = key.compareTo(node.key);
+            if (compare < 0 || compare == 0 && inclusive) {
+                found = node.key;
+                if (compare == 0) {
+                    break;
+                }
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Private helper method finding the largest key below, or optionally equal to, a key.
+     *
+     * @param key       The key to search from.
+     * @param inclusive Whether an equal key qualifies.
+     * @return The matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    private K floor(K key, boolean inclusive) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        K found = null;
+        Node<K, V> node = root.get();
+        while (node != null) {
+            int compare = key.compareTo(node.key);
+            if (compare > 0 || compare == 0 && inclusive) {
+                found = node.key;
+                if (compare == 0) {
+                    break;
+                }
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Private helper method validating the bounds of a range.
+     *
+     * @param fromKey The lower bound.
+     * @param toKey   The upper bound.
+     * @throws IllegalArgumentException if a bound is null or fromKey is greater than toKey.
+     */
+    private void checkRange(K fromKey, K toKey) {
+        if (fromKey == null || toKey == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        if (fromKey.compareTo(toKey) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+    }
+
+    /**
+     * Private helper method for filling an array with the keys of a subtree, once per value.
+     *
+     * @param node  The current node being considered.
+     * @param array An array of keys to be filled.
+     * @param index An array index to keep track of the current position.
+     */
+    private void populateArrayWithKeys(Node<K, V> node, K[] array, int[] index) {
+        if (node != null) {
+            populateArrayWithKeys(node.left, array, index);
+            for (int i = 0; i < node.values.length; i++) {
+                array[index[0]++] = node.key;
+            }
+            populateArrayWithKeys(node.right, array, index);
+        }
+    }
+
+    /**
+     * Private helper method for computing the height of a subtree.
+     *
+     * @param node The root of the subtree.
+     * @return The height of the subtree.
+     */
+    private int height(Node<K, V> node) {
+        return node == null ? 0 : 1 + Math.max(height(node.left), height(node.right));
+    }
+
+    /**
+     * Private helper method checking a node's colour, treating null as black.
+     *
+     * @param node The node, possibly null.
+     * @return True if the node exists and is red.
+     */
+    private static boolean isRed(Node<?, ?> node) {
+        return node != null && node.red;
+    }
+
+    /**
+     * Private helper method returning a black version of a node.
+     *
+     * @param node The node, possibly null.
+     * @return The node itself if it is already black or null, otherwise a black copy.
+     */
+    private static <K, V> Node<K, V> black(Node<K, V> node) {
+        return node == null || !node.red ? node : new Node<>(node.key, node.values, node.left, node.right, false);
+    }
+
+    /**
+     * Private helper method returning the number of values in a subtree.
+     *
+     * @param node The root of the subtree, possibly null.
+     * @return The subtree's entry count.
+     */
+    private static int size(Node<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Inner class implementing a cursor over one version. With no parent pointers in shared nodes, the cursor keeps
+     * the path from the root to its current node.
+     */
+    private class PathCursor implements TreeMapCursor<K, V> {
+        private final Node<K, V> version;
+        private Node<K, V>[] path;
+        private int depth;
+        private int offset;
+
+        /**
+         * Constructs an unpositioned cursor over a version.
+         *
+         * @param version The root of the version.
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        PathCursor(Node<K, V> version) {
+            this.version = version;
+            this.path = new Node[Math.max(1, height(version))];
+        }
+
+        public boolean isValid() {
+            return depth > 0;
+        }
+
+        public K key() {
+            return current().key;
+        }
+
+        public V value() {
+            return current().valueAt(offset);
+        }
+
+        public boolean first() {
+            if (version == null) {
+                return false;
+            }
+            depth = 0;
+            pushLeftmost(version);
+            offset = 0;
+            return true;
+        }
+
+        public boolean last() {
+            if (version == null) {
+                return false;
+            }
+            depth = 0;
+            pushRightmost(version);
+            offset = path[depth - 1].values.length - 1;
+            return true;
+        }
+
+        public boolean next() {
+            if (depth == 0) {
+                return false;
+            }
+            Node<K, V> node = path[depth - 1];
+            if (offset < node.values.length - 1) {
+                offset++;
+                return true;
+            }
+            if (node.right != null) {
+                pushLeftmost(node.right);
+                offset = 0;
+                return true;
+            }
+            // Climb until we leave a left subtree; if there is none, the cursor stays where it was
+            int up = depth - 1;
+            while (up > 0 && path[up - 1].right == path[up]) {
+                up--;
+            }
+            if (up == 0) {
+                return false;
+            }
+            depth = up;
+            offset = 0;
+            return true;
+        }
+
+        public boolean previous() {
+            if (depth == 0) {
+                return false;
+            }
+            if (offset > 0) {
+                offset--;
+                return true;
+            }
+            Node<K, V> node = path[depth - 1];
+            if (node.left != null) {
+                pushRightmost(node.left);
+                offset = path[depth - 1].values.length - 1;
+                return true;
+            }
+            int up = depth - 1;
+            while (up > 0 && path[up - 1].left == path[up]) {
+                up--;
+            }
+            if (up == 0) {
+                return false;
+            }
+            depth = up;
+            offset = path[depth - 1].values.length - 1;
+            return true;
+        }
+
+        public boolean seek(K key) {
+            if (key == null) {
+                throw new IllegalArgumentException("Key cannot be null");
+            }
+            int found = 0;
+            int saved = depth;
+            Node<K, V>[] trail = path.clone();
+            depth = 0;
+            for (Node<K, V> node = version; node != null; ) {
+                path[depth++] = node;
+                int compare = key.compareTo(node.key);
+                if (compare <= 0) {
+                    found = depth;
+                    if (compare == 0) {
+                        break;
+                    }
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+            if (found == 0) {
+                path = trail;
+                depth = saved;
+                return false;
+            }
+            depth = found;
+            offset = 0;
+            return true;
+        }
+
+        /**
+         * Moves to the entry at a position.
+         *
+         * @param index The zero-based position of the entry.
+         * @throws IndexOutOfBoundsException if the index is out of range.
+         */
+        void moveToIndex(int index) {
+            if (index < 0 || index >= size(version)) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size(version));
+            }
+            depth = 0;
+            Node<K, V> node = version;
+            while (true) {
+                path[depth++] = node;
+                int leftSize = size(node.left);
+                if (index < leftSize) {
+                    node = node.left;
+                } else if (index >= leftSize + node.values.length) {
+                    index -= leftSize + node.values.length;
+                    node = node.right;
+                } else {
+                    offset = index - leftSize;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Pushes a subtree root and its chain of left children onto the path.
+         *
+         * @param node The subtree root.
+         */
+        private void pushLeftmost(Node<K, V> node) {
+            for (; node != null; node = node.left) {
+                path[depth++] = node;
+            }
+        }
+
+        /**
+         * Pushes a subtree root and its chain of right children onto the path.
+         *
+         * @param node The subtree root.
+         */
+        private void pushRightmost(Node<K, V> node) {
+            for (; node != null; node = node.right) {
+                path[depth++] = node;
+            }
+        }
+
+        /**
+         * Returns the current node, failing if the cursor is not positioned.
+         *
+         * @return The current node.
+         */
+        private Node<K, V> current() {
+            if (depth == 0) {
+                throw new NoSuchElementException("Cursor is not positioned on an entry");
+            }
+            return path[depth - 1];
+        }
+    }
+
+    /**
+     * An immutable tree node. Its subtree counts are fixed when it is built, since its children never change.
+     */
+    private static class Node<K, V> {
+        private final K key;
+        private final Object[] values;
+        private final Node<K, V> left;
+        private final Node<K, V> right;
+        private final boolean red;
+        private final int size;
+        private final int keyCount;
+
+        /**
+         * Constructs a node.
+         *
+         * @param key    The key.
+         * @param values The key's values, in the order they were put; never changed after this.
+         * @param left   The left subtree.
+         * @param right  The right subtree.
+         * @param red    Whether the node is red.
+         */
+        Node(K key, Object[] values, Node<K, V> left, Node<K, V> right, boolean red) {
+            this.key = key;
+            this.values = values;
+            this.left = left;
+            this.right = right;
+            this.red = red;
+            this.size = PersistentTreeMap.size(left) + PersistentTreeMap.size(right) + values.length;
+            this.keyCount = (left == null ? 0 : left.keyCount) + (right == null ? 0 : right.keyCount) + 1;
+        }
+
+        /**
+         * Returns one of the node's values.
+         *
+         * @param i The position of the value among the key's values.
+         * @return The value.
+         */
+        @SuppressWarnings("unchecked")
+        V valueAt(int i) {
+            return (V) values[i];
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * This class contains a set of JUnit 5 tests for the PersistentTreeMap class.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+public class PersistentTreeMapTest {
+
+    /**
+     * Tests that a snapshot and an open cursor keep seeing the version they started from.
+     */
+    @Test
+    public void testSnapshotIsolation() {
+        PersistentTreeMap<Integer, String> map = new PersistentTreeMap<>();
+        for (int i = 0; i < 100; i += 2) {
+            map.put(i, "v" + i);
+        }
+        PersistentTreeMap<Integer, String> snapshot = map.snapshot();
+        TreeMapCursor<Integer, String> cursor = map.cursorAt(10);
+
+        for (int i = 1; i < 100; i += 2) {
+            map.put(i, "v" + i);
+        }
+        map.put(0, "zero");
+
+        assertEquals(100, map.size());
+        assertEquals(50, snapshot.size());
+        assertEquals("v0", snapshot.get(0));
+        assertEquals("zero", map.get(0));
+        assertFalse(snapshot.containsKey(1));
+        assertEquals(Integer.valueOf(20), cursor.key());
+        assertTrue(cursor.next());
+        assertEquals(Integer.valueOf(22), cursor.key());
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(50, snapshot.size());
+    }
+
+    /**
+     * Tests that the tree stays balanced under ascending inserts and after a bulk build.
+     */
+    @Test
+    public void testBalance() {
+        PersistentTreeMap<Integer, Integer> map = new PersistentTreeMap<>();
+        for (int i = 0; i < 1023; i++) {
+            map.put(i, i);
+        }
+        assertTrue(map.height() <= 20); // at most 2 log2(n + 1)
+        assertEquals(Integer.valueOf(500), map.select(500));
+        assertEquals(500, map.rank(500));
+        assertEquals(Integer.valueOf(100), map.ceilingKey(100));
+        assertEquals(Integer.valueOf(101), map.higherKey(100));
+
+        Integer[] keys = new Integer[1000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+        }
+        PersistentTreeMap<Integer, Integer> built = new PersistentTreeMap<>();
+        built.putAll(keys, keys, keys.length);
+        assertEquals(10, built.height());
+        assertEquals(Integer.valueOf(999), built.lastKey());
+    }
+
+    /**
+     * Tests buckets of values in a multi-valued map.
+     */
+    @Test
+    public void testMultiValued() {
+        PersistentTreeMap<String, Integer> map = PersistentTreeMap.multiValued();
+        map.putAll(new String[] {"a", "b", "b", "c"}, new Integer[] {1, 2, 3, 4}, 4);
+        map.put("b", 5);
+
+        assertEquals(5, map.size());
+        assertEquals(3, map.keyCount());
+        assertEquals(Arrays.asList(2, 3, 5), map.getAll("b"));
+        assertEquals(Integer.valueOf(5), map.selectValue(3));
+        assertEquals(3, map.countInRange("b", true, "b", true));
+        assertEquals(4, map.headMap("b", true).size());
+        assertThrows(IllegalArgumentException.class, () -> map.put(null, 1));
+    }
+}
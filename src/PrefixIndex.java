@@ -0,0 +1,118 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A case-insensitive prefix index over book titles, original titles and authors, for search-as-you-type.
+ * Every searchable name of a book is lower-cased and stored as a key of one ordered multi-valued map: the title,
+ * the original title, and each author of a comma-separated author list on its own. Finding the books that start
+ * with a prefix is then a ceiling seek followed by a scan of the keys sharing the prefix, so a lookup costs
+ * O(log n + limit) however large the catalog grows.
+ */
+public class PrefixIndex {
+    private final TreeMap<String, Book> names;
+
+    /**
+     * Constructs an index over the given books.
+     *
+     * @param books The books to index.
+     */
+    public PrefixIndex(List<Book> books) {
+        List<String> keys = new ArrayList<>(books.size() * 3);
+        List<Book> values = new ArrayList<>(books.size() * 3);
+        for (Book book : books) {
+            for (String name : names(book)) {
+                keys.add(name);
+                values.add(book);
+            }
+        }
+
+        int count = keys.size();
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> keys.get(a).compareTo(keys.get(b)));
+        String[] sortedKeys = new String[count];
+        Book[] sortedBooks = new Book[count];
+        for (int i = 0; i < count; i++) {
+            sortedKeys[i] = keys.get(order[i]);
+            sortedBooks[i] = values.get(order[i]);
+        }
+        names = TreeMap.multiValued();
+        names.putAll(sortedKeys, sortedBooks, count);
+    }
+
+    /**
+     * Adds one book to the index.
+     *
+     * @param book The book to add.
+     */
+    public void add(Book book) {
+        for (String name : names(book)) {
+            names.put(name, book);
+        }
+    }
+
+    /**
+     * Finds the books with a title, original title or author starting with the given text, ignoring case.
+     * Matches come in the order of the name that matched; a book matching through several names is listed once.
+     *
+     * @param prefix The text typed so far.
+     * @param limit  The most books to return.
+     * @return Up to limit matching books; empty if the prefix is blank.
+     */
+    public List<Book> search(String prefix, int limit) {
+        String key = normalize(prefix);
+        Set<Book> matches = new LinkedHashSet<>();
+        if (key.isEmpty() || limit <= 0) {
+            return new ArrayList<>(matches);
+        }
+        TreeMapCursor<String, Book> cursor = names.cursor();
+        boolean found = cursor.seek(key);
+        while (found && cursor.key().startsWith(key) && matches.size() < limit) {
+            matches.add(cursor.value());
+            found = cursor.next();
+        }
+        return new ArrayList<>(matches);
+    }
+
+    /**
+     * Gets the number of names indexed.
+     *
+     * @return the number of entries in the index.
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Private helper method listing the searchable names of a book, normalized for lookup.
+     *
+     * @param book The book.
+     * @return The title, original title and each author, skipping blanks and repeats.
+     */
+    private static Set<String> names(Book book) {
+        Set<String> names = new LinkedHashSet<>();
+        names.add(normalize(book.getTitle()));
+        names.add(normalize(book.getOriginalTitle()));
+        for (String author : book.getAuthors().split(",")) {
+            names.add(normalize(author));
+        }
+        names.remove("");
+        return names;
+    }
+
+    /**
+     * Private helper method normalizing text for case-insensitive prefix matching.
+     *
+     * @param text The text.
+     * @return The text trimmed and lower-cased.
+     */
+    private static String normalize(String text) {
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * This class contains a set of JUnit 5 tests for the PrefixIndex class.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class PrefixIndexTest {
+
+    private BookTable table;
+    private PrefixIndex index;
+
+    /**
+     * Creates an index over a few books before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        table = new BookTable();
+        table.add("0439023483", "Suzanne Collins", 2008, "The Hunger Games", "The Hunger Games (The Hunger Games, #1)", 434);
+        table.add("0439554934", "J.K. Rowling, Mary GrandPre", 1997, "Harry Potter and the Philosopher's Stone",
+                "Harry Potter and the Sorcerer's Stone (Harry Potter, #1)", 444);
+        table.add("0439358078", "J.K. Rowling, Mary GrandPre", 2003, "Harry Potter and the Order of the Phoenix",
+                "Harry Potter and the Order of the Phoenix (Harry Potter, #5)", 446);
+        index = new PrefixIndex(BookLoader.books(table));
+    }
+
+    /**
+     * Tests matching titles and each author of a list, ignoring case, and listing each book once.
+     */
+    @Test
+    public void testSearch() {
+        List<Book> potter = index.search("harry potter and the", 10);
+        assertEquals(2, potter.size()); // matched through both title and original title
+        assertEquals("0439358078", potter.get(0).getIsbn()); // "...order" sorts before "...philosopher's"
+
+        assertEquals(2, index.search("MARY", 10).size());
+        assertEquals("0439023483", index.search("the hunger", 10).get(0).getIsbn());
+        assertEquals(1, index.search("harry", 1).size());
+        assertTrue(index.search("", 10).isEmpty());
+        assertTrue(index.search("zzz", 10).isEmpty());
+    }
+
+    /**
+     * Tests that a book added later can be found.
+     */
+    @Test
+    public void testAdd() {
+        int row = table.add("0316015849", "Stephenie Meyer", 2005, "Twilight", "Twilight (Twilight, #1)", 357);
+        index.add(table.book(row));
+        assertEquals("Twilight (Twilight, #1)", index.search("twi", 10).get(0).getTitle());
+        assertEquals(1, index.search("stephenie", 10).size());
+    }
+}
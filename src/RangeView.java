@@ -0,0 +1,537 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
+/**
+ * A live view of the entries of a ranked map whose keys lie within a range.
+ * The view holds only its bounds and reads everything else through the backing map, so creating one copies
+ * nothing and it always reflects the map's current contents. Positions in the view are positions in the backing map
+ * shifted by the rank of the lower bound, which makes size, select and rank O(log n) like the map's own.
+ *
+ * @param <K> The type of keys.
+ * @param <V> The type of values.
+ */
+public class RangeView<K, V> implements RankedTreeMapInterface<K, V> {
+    private final RankedTreeMapInterface<K, V> map;
+    private final Comparator<? super K> order;
+    private final K fromKey;
+    private final boolean fromInclusive;
+    private final K toKey;
+    private final boolean toInclusive;
+
+    /**
+     * Constructs a view of a map.
+     *
+     * @param map           The backing map.
+     * @param order         The order of the map's keys.
+     * @param fromKey       The lower bound, or null for none.
+     * @param fromInclusive Whether a key equal to the lower bound is in the view.
+     * @param toKey         The upper bound, or null for none.
+     * @param toInclusive   Whether a key equal to the upper bound is in the view.
+     */
+    public RangeView(RankedTreeMapInterface<K, V> map, Comparator<? super K> order,
+                     K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        this.map = map;
+        this.order = order;
+        this.fromKey = fromKey;
+        this.fromInclusive = fromInclusive;
+        this.toKey = toKey;
+        this.toInclusive = toInclusive;
+    }
+
+    /**
+     * Returns the number of entries in the range.
+     *
+     * @return the size of the view.
+     */
+    public int size() {
+        return Math.max(0, highRank() - lowRank());
+    }
+
+    /**
+     * Views cannot be cleared. The maps have no way to remove a range, and emptying the map and putting the entries
+     * outside the range back would let readers of a {@link PersistentTreeMap} see it empty or half rebuilt.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    public void clear() {
+        throw new UnsupportedOperationException("Cannot clear a range view");
+    }
+
+    /**
+     * Retrieves the value associated with a key in the range.
+     *
+     * @param key The key.
+     * @return The value, or null if the key is outside the range or not in the map.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public V get(K key) {
+        return inRange(key) ? map.get(key) : null;
+    }
+
+    /**
+     * Adds a key-value pair to the backing map.
+     *
+     * @param key   The key, which must be in the range.
+     * @param value The value.
+     * @throws IllegalArgumentException if the key is null or outside the range.
+     */
+    public void put(K key, V value) {
+        if (!inRange(key)) {
+            throw new IllegalArgumentException("Key out of range: " + key);
+        }
+        map.put(key, value);
+    }
+
+    /**
+     * Checks if a key is in the range and in the map.
+     *
+     * @param key The key.
+     * @return True if the view contains the key.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public boolean containsKey(K key) {
+        return inRange(key) && map.containsKey(key);
+    }
+
+    /**
+     * Converts the keys in the range to an array, one per value.
+     *
+     * @param array An array of keys to be filled. If it is too small, a new one will be created.
+     * @return An array containing the keys in the range, in order.
+     */
+    public K[] toKeyArray(K[] array) {
+        int size = size();
+        if (array.length < size) {
+            array = Arrays.copyOf(array, size);
+        } else if (array.length > size) {
+            array[size] = null;
+        }
+        TreeMapCursor<K, V> cursor = cursor();
+        for (int i = 0; i < size; i++) {
+            array[i] = cursor.key();
+            cursor.next();
+        }
+        return array;
+    }
+
+    /**
+     * Returns the smallest key in the range.
+     *
+     * @return the first key, or null if the view is empty.
+     */
+    public K firstKey() {
+        K first = fromKey == null ? map.firstKey() : fromInclusive ? map.ceilingKey(fromKey) : map.higherKey(fromKey);
+        return first != null && !tooHigh(first) ? first : null;
+    }
+
+    /**
+     * Returns the largest key in the range.
+     *
+     * @return the last key, or null if the view is empty.
+     */
+    public K lastKey() {
+        K last = toKey == null ? map.lastKey() : toInclusive ? map.floorKey(toKey) : map.lowerKey(toKey);
+        return last != null && !tooLow(last) ? last : null;
+    }
+
+    /**
+     * Returns the smallest key in the range greater than or equal to the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public K ceilingKey(K key) {
+        if (tooLow(key)) {
+            return firstKey();
+        }
+        K found = map.ceilingKey(key);
+        return found != null && !tooHigh(found) ? found : null;
+    }
+
+    /**
+     * Returns the smallest key in the range strictly greater than the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public K higherKey(K key) {
+        if (tooLow(key)) {
+            return firstKey();
+        }
+        K found = map.higherKey(key);
+        return found != null && !tooHigh(found) ? found : null;
+    }
+
+    /**
+     * Returns the largest key in the range less than or equal to the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public K floorKey(K key) {
+        if (tooHigh(key)) {
+            return lastKey();
+        }
+        K found = map.floorKey(key);
+        return found != null && !tooLow(found) ? found : null;
+    }
+
+    /**
+     * Returns the largest key in the range strictly less than the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public K lowerKey(K key) {
+        if (tooHigh(key)) {
+            return lastKey();
+        }
+        K found = map.lowerKey(key);
+        return found != null && !tooLow(found) ? found : null;
+    }
+
+    /**
+     * Creates a cursor positioned on the first entry in the range, or unpositioned if the view is empty.
+     * The cursor cannot move outside the range.
+     *
+     * @return a new cursor over the view.
+     */
+    public TreeMapCursor<K, V> cursor() {
+        RangeCursor cursor = new RangeCursor(null);
+        cursor.first();
+        return cursor;
+    }
+
+    /**
+     * Creates a cursor positioned on the entry at the given position in the view.
+     *
+     * @param index The zero-based position within the view.
+     * @return a new cursor over the view.
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the size of the view.
+     */
+    public TreeMapCursor<K, V> cursorAt(int index) {
+        return new RangeCursor(map.cursorAt(toMapIndex(index)));
+    }
+
+    /**
+     * Retrieves the key at the given position in the view.
+     *
+     * @param index The zero-based position within the view.
+     * @return The key of the entry at that position.
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the size of the view.
+     */
+    public K select(int index) {
+        return map.select(toMapIndex(index));
+    }
+
+    /**
+     * Retrieves the value at the given position in the view.
+     *
+     * @param index The zero-based position within the view.
+     * @return The value of the entry at that position.
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the size of the view.
+     */
+    public V selectValue(int index) {
+        return map.selectValue(toMapIndex(index));
+    }
+
+    /**
+     * Counts the entries in the view whose keys are strictly less than the given key.
+     *
+     * @param key The key to rank; it does not have to be in the view.
+     * @return The number of entries in the view with smaller keys.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public int rank(K key) {
+        int low = lowRank();
+        return Math.max(0, Math.min(map.rank(key), highRank()) - low);
+    }
+
+    /**
+     * Counts the entries in both the view and another range.
+     *
+     * @param fromKey       The lower bound.
+     * @param fromInclusive Whether entries equal to the lower bound are counted.
+     * @param toKey         The upper bound.
+     * @param toInclusive   Whether entries equal to the upper bound are counted.
+     * @return The number of entries in the view that lie in the range.
+     * @throws IllegalArgumentException if a bound is null, fromKey is greater than toKey, or a bound lies outside
+     *                                  the view.
+     */
+    public int countInRange(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        return subMap(fromKey, fromInclusive, toKey, toInclusive).size();
+    }
+
+    /**
+     * Creates a view of part of this view, backed by the same map.
+     *
+     * @param fromKey       The lower bound.
+     * @param fromInclusive Whether a key equal to fromKey is in the view.
+     * @param toKey         The upper bound.
+     * @param toInclusive   Whether a key equal to toKey is in the view.
+     * @return a view of the narrower range.
+     * @throws IllegalArgumentException if a bound is null, fromKey is greater than toKey, or a bound lies outside
+     *                                  this view.
+     */
+    public RankedTreeMapInterface<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        checkBound(fromKey);
+        checkBound(toKey);
+        if (order.compare(fromKey, toKey) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        return narrow(fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    /**
+     * Creates a view of the part of this view below a bound, backed by the same map.
+     *
+     * @param toKey     The upper bound.
+     * @param inclusive Whether a key equal to toKey is in the view.
+     * @return a view of the narrower range.
+     * @throws IllegalArgumentException if the bound is null or lies outside this view.
+     */
+    public RankedTreeMapInterface<K, V> headMap(K toKey, boolean inclusive) {
+        checkBound(toKey);
+        return narrow(null, false, toKey, inclusive);
+    }
+
+    /**
+     * Creates a view of the part of this view above a bound, backed by the same map.
+     *
+     * @param fromKey   The lower bound.
+     * @param inclusive Whether a key equal to fromKey is in the view.
+     * @return a view of the narrower range.
+     * @throws IllegalArgumentException if the bound is null or lies outside this view.
+     */
+    public RankedTreeMapInterface<K, V> tailMap(K fromKey, boolean inclusive) {
+        checkBound(fromKey);
+        return narrow(fromKey, inclusive, null, false);
+    }
+
+    /**
+     * Private helper method creating a view bounded by both this view's range and another.
+     *
+     * @param from          The new lower bound, or null to keep this view's.
+     * @param fromInclusive Whether the new lower bound is inclusive.
+     * @param to            The new upper bound, or null to keep this view's.
+     * @param toInclusive   Whether the new upper bound is inclusive.
+     * @return The combined view.
+     */
+    private RangeView<K, V> narrow(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        if (from == null || fromKey != null && order.compare(from, fromKey) <= 0) {
+            boolean same = from != null && order.compare(from, fromKey) == 0;
+            fromInclusive = same ? fromInclusive && this.fromInclusive : this.fromInclusive;
+            from = fromKey;
+        }
+        if (to == null || toKey != null && order.compare(to, toKey) >= 0) {
+            boolean same = to != null && order.compare(to, toKey) == 0;
+            toInclusive = same ? toInclusive && this.toInclusive : this.toInclusive;
+            to = toKey;
+        }
+        return new RangeView<>(map, order, from, fromInclusive, to, toInclusive);
+    }
+
+    /**
+     * Private helper method rejecting bounds for a narrower view that lie outside this one.
+     *
+     * @param key The bound.
+     * @throws IllegalArgumentException if the bound is null or outside this view.
+     */
+    private void checkBound(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        if (fromKey != null && order.compare(key, fromKey) < 0 || toKey != null && order.compare(key, toKey) > 0) {
+            throw new IllegalArgumentException("Key out of range: " + key);
+        }
+    }
+
+    /**
+     * Private helper method checking whether a key is in the range.
+     *
+     * @param key The key.
+     * @return True if the key lies between the bounds.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    private boolean inRange(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        return !tooLow(key) && !tooHigh(key);
+    }
+
+    /**
+     * Private helper method checking whether a key falls below the range.
+     *
+     * @param key The key.
+     * @return True if the key is less than the lower bound, or equal to an exclusive one.
+     */
+    private boolean tooLow(K key) {
+        if (fromKey == null) {
+            return false;
+        }
+        int compare = order.compare(key, fromKey);
+        return compare < 0 || compare == 0 && !fromInclusive;
+    }
+
+    /**
+     * Private helper method checking whether a key falls above the range.
+     *
+     * @param key The key.
+     * @return True if the key is greater than the upper bound, or equal to an exclusive one.
+     */
+    private boolean tooHigh(K key) {
+        if (toKey == null) {
+            return false;
+        }
+        int compare = order.compare(key, toKey);
+        return compare > 0 || compare == 0 && !toInclusive;
+    }
+
+    /**
+     * Private helper method finding the position in the map of the first entry in the range.
+     *
+     * @return The number of map entries below the range.
+     */
+    private int lowRank() {
+        if (fromKey == null) {
+            return 0;
+        }
+        return fromInclusive ? map.rank(fromKey) : rankAfter(fromKey);
+    }
+
+    /**
+     * Private helper method finding the position in the map just past the last entry in the range.
+     *
+     * @return The number of map entries below or in the range.
+     */
+    private int highRank() {
+        if (toKey == null) {
+            return map.size();
+        }
+        return toInclusive ? rankAfter(toKey) : map.rank(toKey);
+    }
+
+    /**
+     * Private helper method counting the map entries whose keys are less than or equal to a key.
+     *
+     * @param key The key.
+     * @return The number of entries up to and including the key.
+     */
+    private int rankAfter(K key) {
+        K higher = map.higherKey(key);
+        return higher == null ? map.size() : map.rank(higher);
+    }
+
+    /**
+     * Private helper method converting a position in the view to one in the map.
+     *
+     * @param index The zero-based position within the view.
+     * @return The position of the same entry in the map.
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the size of the view.
+     */
+    private int toMapIndex(int index) {
+        int low = lowRank();
+        int size = highRank() - low;
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + Math.max(0, size));
+        }
+        return low + index;
+    }
+
+    /**
+     * Inner class implementing a cursor over the backing map that stops at the ends of the range.
+     */
+    private class RangeCursor implements TreeMapCursor<K, V> {
+        private TreeMapCursor<K, V> cursor;
+
+        /**
+         * Constructs a cursor wrapping one over the map.
+         *
+         * @param cursor A map cursor positioned inside the range, or null for an unpositioned cursor.
+         */
+        RangeCursor(TreeMapCursor<K, V> cursor) {
+            this.cursor = cursor;
+        }
+
+        public boolean isValid() {
+            return cursor != null;
+        }
+
+        public K key() {
+            return current().key();
+        }
+
+        public V value() {
+            return current().value();
+        }
+
+        public boolean first() {
+            int low = lowRank();
+            if (highRank() <= low) {
+                return false;
+            }
+            cursor = map.cursorAt(low);
+            return true;
+        }
+
+        public boolean last() {
+            int high = highRank();
+            if (high <= lowRank()) {
+                return false;
+            }
+            cursor = map.cursorAt(high - 1);
+            return true;
+        }
+
+        public boolean next() {
+            if (cursor == null || !cursor.next()) {
+                return false;
+            }
+            if (tooHigh(cursor.key())) {
+                cursor.previous();
+                return false;
+            }
+            return true;
+        }
+
+        public boolean previous() {
+            if (cursor == null || !cursor.previous()) {
+                return false;
+            }
+            if (tooLow(cursor.key())) {
+                cursor.next();
+                return false;
+            }
+            return true;
+        }
+
+        public boolean seek(K key) {
+            K target = ceilingKey(key);
+            if (target == null) {
+                return false;
+            }
+            TreeMapCursor<K, V> moved = map.cursor();
+            moved.seek(target);
+            cursor = moved;
+            return true;
+        }
+
+        /**
+         * Returns the wrapped cursor, failing if the cursor is not positioned.
+         *
+         * @return The map cursor.
+         */
+        private TreeMapCursor<K, V> current() {
+            if (cursor == null) {
+                throw new NoSuchElementException("Cursor is not positioned on an entry");
+            }
+            return cursor;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Interface for ordered maps that also keep order statistics, so entries can be reached by their position in key
+ * order as well as by key. Positions count every value, so multi-valued maps give each value its own position.
+ * @param <K>       the data type for keys in the map.
+ * @param <V>       the data type for values in the map.
+ */
+public interface RankedTreeMapInterface<K, V> extends TreeMapInterface<K, V> {
+
+    /**
+     * Retrieves the key at the given position in key order.
+     * @param index     zero-based position, from 0 to size() - 1.
+     * @return          the key of the entry at that position.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public K select(int index);
+
+    /**
+     * Retrieves the value at the given position in key order.
+     * @param index     zero-based position, from 0 to size() - 1.
+     * @return          the value of the entry at that position.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public V selectValue(int index);
+
+    /**
+     * Counts the entries whose keys are strictly less than the given key.
+     * @param key       the key to rank; it does not have to be in the map.
+     * @return          the position the key's first entry has, or would have, in key order.
+     */
+    public int rank(K key);
+
+    /**
+     * Creates a cursor positioned on the entry at the given position in key order.
+     * @param index     zero-based position, from 0 to size() - 1.
+     * @return          a new cursor over the map.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public TreeMapCursor<K, V> cursorAt(int index);
+
+    /**
+     * Counts the entries whose keys lie between two bounds, using the subtree counts rather than visiting them.
+     * @param fromKey       the lower bound.
+     * @param fromInclusive whether entries with a key equal to fromKey are counted.
+     * @param toKey         the upper bound.
+     * @param toInclusive   whether entries with a key equal to toKey are counted.
+     * @return              the number of entries in the range.
+     * @throws IllegalArgumentException if a bound is null or fromKey is greater than toKey.
+     */
+    public int countInRange(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive);
+
+    /**
+     * Creates a view of the entries whose keys lie between two bounds. The view reads through to this map, so it
+     * always reflects the map's current contents, and nothing is copied. Positions in the view start from 0 at its
+     * first entry. Adding a key outside the range through the view is rejected, and the view cannot be cleared.
+     * @param fromKey       the lower bound.
+     * @param fromInclusive whether a key equal to fromKey is in the view.
+     * @param toKey         the upper bound.
+     * @param toInclusive   whether a key equal to toKey is in the view.
+     * @return              a view of the range.
+     * @throws IllegalArgumentException if a bound is null, fromKey is greater than toKey, or a bound lies outside
+     *                      the range of a map that is itself a view.
+     */
+    public RankedTreeMapInterface<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive);
+
+    /**
+     * Creates a view of the entries whose keys are less than, or optionally equal to, a bound.
+     * @param toKey         the upper bound.
+     * @param inclusive     whether a key equal to toKey is in the view.
+     * @return              a view of the range, as {@link #subMap} describes.
+     * @throws IllegalArgumentException if the bound is null or lies outside the range of a map that is a view.
+     */
+    public RankedTreeMapInterface<K, V> headMap(K toKey, boolean inclusive);
+
+    /**
+     * Creates a view of the entries whose keys are greater than, or optionally equal to, a bound.
+     * @param fromKey       the lower bound.
+     * @param inclusive     whether a key equal to fromKey is in the view.
+     * @return              a view of the range, as {@link #subMap} describes.
+     * @throws IllegalArgumentException if the bound is null or lies outside the range of a map that is a view.
+     */
+    public RankedTreeMapInterface<K, V> tailMap(K fromKey, boolean inclusive);
+
+}
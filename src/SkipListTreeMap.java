@@ -0,0 +1,560 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An ordered map that many threads can put into at once, built as a lock-free skip list.
+ * Every key sits in a sorted linked list, and a random subset of keys is also linked into sparser lists above it,
+ * so a search skips most of the map and takes O(log n) expected steps without any rebalancing. A put links its new
+ * node into each list with a compare-and-set on its predecessor's pointer and retries from a fresh search when
+ * another thread got there first, so no thread ever waits on a lock and a stalled thread cannot hold up the others.
+ * Keys are never removed individually, which keeps every link write a simple swap.
+ *
+ * <p>Lookups see every put that completed before they started. Cursors, {@link #toKeyArray} and {@link #size()}
+ * are weakly consistent: while puts are still running they see some of them and not others, but always in order.
+ *
+ * @param <K> The type of keys maintained by this map. Must be Comparable.
+ * @param <V> The type of mapped values.
+ */
+public class SkipListTreeMap<K extends Comparable<K>, V> implements TreeMapInterface<K, V> {
+    private static final int MAX_LEVEL = 32;
+    private static final VarHandle NEXT = MethodHandles.arrayElementVarHandle(Node[].class);
+    private static final VarHandle VALUES;
+
+    static {
+        try {
+            VALUES = MethodHandles.lookup().findVarHandle(Node.class, "values", Cell.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile Root<K, V> root;
+    private final boolean multiValued;
+
+    /**
+     * Constructs an empty map in which putting an existing key replaces its value.
+     */
+    public SkipListTreeMap() {
+        this(false);
+    }
+
+    /**
+     * Constructs an empty map, optionally keeping duplicate keys.
+     *
+     * @param multiValued Whether put should add to a key's values instead of replacing them.
+     */
+    private SkipListTreeMap(boolean multiValued) {
+        this.root = new Root<>();
+        this.multiValued = multiValued;
+    }
+
+    /**
+     * Creates an empty multi-valued map. Putting a key that is already present adds the value to that key's bucket.
+     * Values put by one thread keep their order; values put by several threads at once are kept in the order their
+     * puts took effect.
+     *
+     * @param <K> The type of keys maintained by the map.
+     * @param <V> The type of mapped values.
+     * @return a new, empty multi-valued map.
+     */
+    public static <K extends Comparable<K>, V> SkipListTreeMap<K, V> multiValued() {
+        return new SkipListTreeMap<>(true);
+    }
+
+    /**
+     * Adds a key-value pair. If the key is already present its value is replaced, unless the map is multi-valued,
+     * in which case the value is added alongside the existing ones. Safe to call from any number of threads.
+     *
+     * @param key   The key with which the specified value is to be associated.
+     * @param value The value to be associated with the specified key.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void put(K key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        Root<K, V> current = root;
+        Node<K, V>[] preds = new Node[MAX_LEVEL];
+        Node<K, V>[] succs = new Node[MAX_LEVEL];
+        while (true) {
+            Node<K, V> found = find(current.head, key, preds, succs);
+            if (found != null) {
+                if (addValue(found, value)) {
+                    current.size.increment();
+                }
+                return;
+            }
+
+            int top = Integer.numberOfTrailingZeros(ThreadLocalRandom.current().nextInt() | 1 << (MAX_LEVEL - 1));
+            Node<K, V> node = new Node<>(key, new Cell<>(value, null), top + 1);
+            for (int i = 0; i <= top; i++) {
+                node.next[i] = succs[i];
+            }
+            // The node joins the map once it is in the bottom list; if another put changed that link, search again
+            if (!NEXT.compareAndSet(preds[0].next, 0, succs[0], node)) {
+                continue;
+            }
+            current.size.increment();
+            for (int i = 1; i <= top; i++) {
+                while (!NEXT.compareAndSet(preds[i].next, i, succs[i], node)) {
+                    find(current.head, key, preds, succs);
+                    NEXT.setRelease(node.next, i, succs[i]);
+                }
+            }
+            return;
+        }
+    }
+
+    /**
+     * Retrieves the value associated with the specified key; the first one put if the map is multi-valued.
+     *
+     * @param key The key whose associated value is to be returned.
+     * @return the value to which the specified key is mapped, or null if the map contains no mapping for the key.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public V get(K key) {
+        Node<K, V> node = findNode(key);
+        if (node == null) {
+            return null;
+        }
+        Cell<V> cell = node.values;
+        while (cell.next != null) {
+            cell = cell.next;
+        }
+        return cell.value;
+    }
+
+    /**
+     * Retrieves every value mapped to the specified key, in the order they were put.
+     *
+     * @param key The key whose values are to be returned.
+     * @return a new list of the key's values; empty if the key is not in the map.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public List<V> getAll(K key) {
+        Node<K, V> node = findNode(key);
+        List<V> values = new ArrayList<>();
+        if (node != null) {
+            for (Object value : bucket(node)) {
+                values.add(cast(value));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Checks if the map contains a mapping for the specified key.
+     *
+     * @param key The key whose presence is to be tested.
+     * @return True if the map contains a mapping for the specified key, false otherwise.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public boolean containsKey(K key) {
+        return findNode(key) != null;
+    }
+
+    /**
+     * Removes all mappings. Puts running at the same time may land in the old, discarded map.
+     */
+    public void clear() {
+        root = new Root<>();
+    }
+
+    /**
+     * Returns the number of values in the map.
+     *
+     * @return the number of entries in the map.
+     */
+    public int size() {
+        return root.size.intValue();
+    }
+
+    /**
+     * Converts the keys of the map to an array, in order. A key is repeated once per value.
+     *
+     * @param array An array of keys to be filled. If it is too small, a new one will be created.
+     * @return An array containing all the keys in the map.
+     */
+    public K[] toKeyArray(K[] array) {
+        List<K> keys = new ArrayList<>(size());
+        for (Node<K, V> node = next(root.head, 0); node != null; node = next(node, 0)) {
+            for (int i = node.values.count; i > 0; i--) {
+                keys.add(node.key);
+            }
+        }
+        return keys.toArray(array);
+    }
+
+    /**
+     * Returns the smallest key in the map.
+     *
+     * @return the first key in order, or null if the map is empty.
+     */
+    public K firstKey() {
+        Node<K, V> node = next(root.head, 0);
+        return node == null ? null : node.key;
+    }
+
+    /**
+     * Returns the largest key in the map.
+     *
+     * @return the last key in order, or null if the map is empty.
+     */
+    public K lastKey() {
+        Node<K, V> node = lastNode();
+        return node == null ? null : node.key;
+    }
+
+    /**
+     * Returns the smallest key greater than or equal to the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public K ceilingKey(K key) {
+        Node<K, V> node = findAbove(key, true);
+        return node == null ? null : node.key;
+    }
+
+    /**
+     * Returns the smallest key strictly greater than the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public K higherKey(K key) {
+        Node<K, V> node = findAbove(key, false);
+        return node == null ? null : node.key;
+    }
+
+    /**
+     * Returns the largest key less than or equal to the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public K floorKey(K key) {
+        Node<K, V> node = findBelow(key, true);
+        return node == null ? null : node.key;
+    }
+
+    /**
+     * Returns the largest key strictly less than the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public K lowerKey(K key) {
+        Node<K, V> node = findBelow(key, false);
+        return node == null ? null : node.key;
+    }
+
+    /**
+     * Creates a cursor positioned on the first entry, or unpositioned if the map is empty.
+     * The cursor keeps working while other threads put, and sees keys added ahead of it.
+     *
+     * @return a new cursor over this map.
+     */
+    public TreeMapCursor<K, V> cursor() {
+        SkipListCursor cursor = new SkipListCursor();
+        cursor.first();
+        return cursor;
+    }
+
+    /**
+     * Private helper method searching every level for a key, recording on each level the last node before the key
+     * and the node after it, which are where a new node for the key would be linked.
+     *
+     * @param head  The head of the skip list.
+     * @param key   The key to find.
+     * @param preds Receives, for each level, the last node with a smaller key (or the head).
+     * @param succs Receives, for each level, the node following preds on that level, or null.
+     * @return The node holding the key, or null if it is absent.
+     */
+    private Node<K, V> find(Node<K, V> head, K key, Node<K, V>[] preds, Node<K, V>[] succs) {
+        Node<K, V> pred = head;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            Node<K, V> node = next(pred, level);
+            while (node != null && node.key.compareTo(key) < 0) {
+                pred = node;
+                node = next(pred, level);
+            }
+            preds[level] = pred;
+            succs[level] = node;
+        }
+        Node<K, V> node = succs[0];
+        return node != null && node.key.compareTo(key) == 0 ? node : null;
+    }
+
+    /**
+     * Private helper method for finding the node of a key.
+     *
+     * @param key The key to find.
+     * @return The node holding the key, or null if it is absent.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    private Node<K, V> findNode(K key) {
+        Node<K, V> node = findAbove(key, true);
+        return node != null && node.key.compareTo(key) == 0 ? node : null;
+    }
+
+    /**
+     * Private helper method finding the first node above, or optionally equal to, a key.
+     *
+     * @param key       The key to search from.
+     * @param inclusive Whether a node with an equal key qualifies.
+     * @return The matching node, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    private Node<K, V> findAbove(K key, boolean inclusive) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        Node<K, V> pred = root.head;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            for (Node<K, V> node = next(pred, level); node != null; node = next(pred, level)) {
+                int compare = node.key.compareTo(key);
+                if (compare > 0 || compare == 0 && inclusive) {
+                    break;
+                }
+                pred = node;
+            }
+        }
+        return next(pred, 0);
+    }
+
+    /**
+     * Private helper method finding the last node below, or optionally equal to, a key.
+     *
+     * @param key       The key to search from.
+     * @param inclusive Whether a node with an equal key qualifies.
+     * @return The matching node, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    private Node<K, V> findBelow(K key, boolean inclusive) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        Node<K, V> head = root.head;
+        Node<K, V> pred = head;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            for (Node<K, V> node = next(pred, level); node != null; node = next(pred, level)) {
+                int compare = node.key.compareTo(key);
+                if (compare > 0 || compare == 0 && !inclusive) {
+                    break;
+                }
+                pred = node;
+            }
+        }
+        return pred == head ? null : pred;
+    }
+
+    /**
+     * Private helper method finding the last node, following each level as far as it goes.
+     *
+     * @return The node with the largest key, or null if the map is empty.
+     */
+    private Node<K, V> lastNode() {
+        Node<K, V> head = root.head;
+        Node<K, V> pred = head;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            for (Node<K, V> node = next(pred, level); node != null; node = next(pred, level)) {
+                pred = node;
+            }
+        }
+        return pred == head ? null : pred;
+    }
+
+    /**
+     * Private helper method adding a value to the node of an existing key.
+     *
+     * @param node  The node.
+     * @param value The value to add.
+     * @return True if the value was added to the key's bucket, false if it replaced the key's value.
+     */
+    private boolean addValue(Node<K, V> node, V value) {
+        if (!multiValued) {
+            node.values = new Cell<>(value, null);
+            return false;
+        }
+        Cell<V> values;
+        do {
+            values = node.values;
+        } while (!VALUES.compareAndSet(node, values, new Cell<>(value, values)));
+        return true;
+    }
+
+    /**
+     * Private helper method returning the values of a node in the order they were put.
+     *
+     * @param node The node.
+     * @return A new array of the node's values.
+     */
+    private Object[] bucket(Node<K, V> node) {
+        Cell<V> cell = node.values;
+        Object[] values = new Object[cell.count];
+        for (int i = values.length - 1; i >= 0; i--, cell = cell.next) {
+            values[i] = cell.value;
+        }
+        return values;
+    }
+
+    /**
+     * Private helper method following a node's link on one level.
+     *
+     * @param node  The node.
+     * @param level The level, which must be one the node is linked on.
+     * @return The next node on that level, or null.
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> Node<K, V> next(Node<K, V> node, int level) {
+        return (Node<K, V>) NEXT.getAcquire(node.next, level);
+    }
+
+    /**
+     * Private helper method for the unchecked cast of a bucket value.
+     *
+     * @param value A value taken from a bucket.
+     * @return The value as the map's value type.
+     */
+    @SuppressWarnings("unchecked")
+    private V cast(Object value) {
+        return (V) value;
+    }
+
+    /**
+     * Inner class implementing a cursor. It reads each key's values when it arrives on the key, and finds the
+     * previous key by searching, since the lists only link forwards.
+     */
+    private class SkipListCursor implements TreeMapCursor<K, V> {
+        private Node<K, V> current;
+        private Object[] values;
+        private int offset;
+
+        public boolean isValid() {
+            return current != null;
+        }
+
+        public K key() {
+            if (current == null) {
+                throw new NoSuchElementException("Cursor is not positioned on an entry");
+            }
+            return current.key;
+        }
+
+        public V value() {
+            if (current == null) {
+                throw new NoSuchElementException("Cursor is not positioned on an entry");
+            }
+            return cast(values[offset]);
+        }
+
+        public boolean first() {
+            return moveTo(SkipListTreeMap.next(root.head, 0), false);
+        }
+
+        public boolean last() {
+            return moveTo(lastNode(), true);
+        }
+
+        public boolean next() {
+            if (current != null && offset < values.length - 1) {
+                offset++;
+                return true;
+            }
+            return moveTo(current == null ? null : SkipListTreeMap.next(current, 0), false);
+        }
+
+        public boolean previous() {
+            if (offset > 0) {
+                offset--;
+                return true;
+            }
+            return moveTo(current == null ? null : findBelow(current.key, false), true);
+        }
+
+        public boolean seek(K key) {
+            return moveTo(findAbove(key, true), false);
+        }
+
+        /**
+         * Moves to the first or last value of the given node if there is one, otherwise stays put.
+         *
+         * @param node   The target node, possibly null.
+         * @param atLast Whether to land on the node's last value rather than its first.
+         * @return true if the cursor moved.
+         */
+        private boolean moveTo(Node<K, V> node, boolean atLast) {
+            if (node == null) {
+                return false;
+            }
+            current = node;
+            values = bucket(node);
+            offset = atLast ? values.length - 1 : 0;
+            return true;
+        }
+    }
+
+    /**
+     * One version of the map: a head node linked on every level, and the count of values reachable from it.
+     * Clearing swaps in a new version, so the count always matches the lists it belongs to.
+     */
+    private static class Root<K, V> {
+        private final Node<K, V> head = new Node<>(null, null, MAX_LEVEL);
+        private final LongAdder size = new LongAdder();
+    }
+
+    /**
+     * A key and its links on each level it was chosen for. A node on level i is also on every level below it.
+     */
+    private static class Node<K, V> {
+        private final K key;
+        private final Node<K, V>[] next;
+        private volatile Cell<V> values;
+
+        /**
+         * Constructs an unlinked node.
+         *
+         * @param key    The key, or null for a head node.
+         * @param values The key's first value.
+         * @param levels The number of levels the node is linked on.
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Node(K key, Cell<V> values, int levels) {
+            this.key = key;
+            this.values = values;
+            this.next = new Node[levels];
+        }
+    }
+
+    /**
+     * An immutable stack of a key's values, newest first, so a value is added with one compare-and-set.
+     */
+    private static class Cell<V> {
+        private final V value;
+        private final Cell<V> next;
+        private final int count;
+
+        /**
+         * Constructs a cell on top of the key's earlier values.
+         *
+         * @param value The value.
+         * @param next  The values put before it, or null.
+         */
+        Cell(V value, Cell<V> next) {
+            this.value = value;
+            this.next = next;
+            this.count = next == null ? 1 : next.count + 1;
+        }
+    }
+}
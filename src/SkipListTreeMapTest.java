@@ -0,0 +1,77 @@
+/**
+ * This class contains a set of JUnit 5 tests for the SkipListTreeMap class.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+public class SkipListTreeMapTest {
+
+    /**
+     * Tests ordered lookups and replacing values.
+     */
+    @Test
+    public void testPutAndNavigate() {
+        SkipListTreeMap<Integer, String> map = new SkipListTreeMap<>();
+        for (int i = 99; i >= 0; i -= 3) {
+            map.put(i, "v" + i);
+        }
+        map.put(3, "three");
+
+        assertEquals(34, map.size());
+        assertEquals("three", map.get(3));
+        assertNull(map.get(4));
+        assertEquals(Integer.valueOf(0), map.firstKey());
+        assertEquals(Integer.valueOf(99), map.lastKey());
+        assertEquals(Integer.valueOf(6), map.ceilingKey(4));
+        assertEquals(Integer.valueOf(3), map.floorKey(4));
+        assertEquals(Integer.valueOf(6), map.higherKey(3));
+        assertEquals(Integer.valueOf(0), map.lowerKey(3));
+        assertArrayEquals(new Integer[] {0, 3, 6}, Arrays.copyOf(map.toKeyArray(new Integer[0]), 3));
+
+        TreeMapCursor<Integer, String> cursor = map.cursor();
+        assertTrue(cursor.seek(50));
+        assertEquals(Integer.valueOf(51), cursor.key());
+        assertTrue(cursor.previous());
+        assertEquals(Integer.valueOf(48), cursor.key());
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.firstKey());
+        assertThrows(IllegalArgumentException.class, () -> map.put(null, "x"));
+    }
+
+    /**
+     * Tests that writers on several threads lose no values and leave the keys in order.
+     *
+     * @throws InterruptedException if interrupted while waiting for the writers.
+     */
+    @Test
+    public void testConcurrentPuts() throws InterruptedException {
+        SkipListTreeMap<Integer, Integer> map = SkipListTreeMap.multiValued();
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            int first = t;
+            writers[t] = new Thread(() -> {
+                for (int i = first; i < 20000; i += writers.length) {
+                    map.put(i % 5000, i);
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertEquals(20000, map.size());
+        assertEquals(4, map.getAll(1234).size());
+        Integer[] keys = map.toKeyArray(new Integer[0]);
+        for (int i = 1; i < keys.length; i++) {
+            assertTrue(keys[i - 1] <= keys[i]);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * A string paired with its binary collation key, so that text sorts the way a reader expects while each comparison
+ * stays a plain byte comparison. The key is computed once, when the SortKey is made, instead of running a
+ * {@link Collator} on every step down a tree.
+ *
+ * <p>Keys come from an English collator with canonical decomposition: letters compare ignoring case and accents
+ * first, so "GrandPr&eacute;" sorts next to "Grandpre", and case and accents only break ties. Keys made with
+ * {@link #title(String)} also skip a leading "The", "A" or "An", so "The Hunger Games" sorts under H. Two different
+ * strings with the same collation key are ordered by their characters, so only equal strings compare as equal.
+ */
+public final class SortKey implements Comparable<SortKey> {
+    private static final String[] ARTICLES = {"the ", "a ", "an "};
+    private static final ThreadLocal<Collator> COLLATOR = ThreadLocal.withInitial(() -> {
+        Collator collator = Collator.getInstance(Locale.ENGLISH);
+        collator.setDecomposition(Collator.CANONICAL_DECOMPOSITION);
+        return collator;
+    });
+
+    private final String text;
+    private final byte[] key;
+
+    /**
+     * Constructs a SortKey.
+     *
+     * @param text The string.
+     * @param key  Its collation key.
+     */
+    private SortKey(String text, byte[] key) {
+        this.text = text;
+        this.key = key;
+    }
+
+    /**
+     * Creates the sort key of a string, such as an author list.
+     *
+     * @param text The string.
+     * @return The string with its collation key.
+     * @throws IllegalArgumentException if the text is null.
+     */
+    public static SortKey of(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("Text cannot be null");
+        }
+        return new SortKey(text, COLLATOR.get().getCollationKey(text).toByteArray());
+    }
+
+    /**
+     * Creates the sort key of a title, which is collated without its leading article.
+     *
+     * @param text The title.
+     * @return The title with its collation key.
+     * @throws IllegalArgumentException if the text is null.
+     */
+    public static SortKey title(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("Text cannot be null");
+        }
+        String sorted = text;
+        for (String article : ARTICLES) {
+            if (text.length() > article.length() && text.regionMatches(true, 0, article, 0, article.length())) {
+                sorted = text.substring(article.length());
+                break;
+            }
+        }
+        return new SortKey(text, COLLATOR.get().getCollationKey(sorted).toByteArray());
+    }
+
+    /**
+     * Returns the string this key was made from.
+     *
+     * @return the original string.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Compares this key to another by their collation keys, then by their strings.
+     *
+     * @param other The other key.
+     * @return A negative number, zero or a positive number as this key sorts before, with or after the other.
+     */
+    @Override
+    public int compareTo(SortKey other) {
+        int compare = Arrays.compareUnsigned(key, other.key);
+        return compare != 0 ? compare : text.compareTo(other.text);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SortKey)) {
+            return false;
+        }
+        SortKey other = (SortKey) o;
+        return text.equals(other.text) && Arrays.equals(key, other.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return text.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * This class contains a set of JUnit 5 tests for the SortKey class.
+ * It checks that authors and titles sort as a reader expects, and that keys agree with equals.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class SortKeyTest {
+
+    /**
+     * Tests that case and accents only break ties and that titles skip a leading article.
+     */
+    @Test
+    public void testOrdering() {
+        assertTrue(SortKey.of("apple").compareTo(SortKey.of("Banana")) < 0);
+        assertTrue(SortKey.of("GrandPr\u00e9, Mary").compareTo(SortKey.of("Grandpre, Nora")) < 0);
+        assertTrue(SortKey.of("Grandpre").compareTo(SortKey.of("GrandPr\u00e9")) != 0);
+
+        assertTrue(SortKey.title("The Hunger Games").compareTo(SortKey.title("Ivanhoe")) < 0);
+        assertTrue(SortKey.title("A Game of Thrones").compareTo(SortKey.title("Gone Girl")) < 0);
+        assertTrue(SortKey.title("Anna Karenina").compareTo(SortKey.title("Animal Farm")) > 0);
+        assertTrue(SortKey.title("Theodore Boone").compareTo(SortKey.title("Hamlet")) > 0);
+        assertEquals("The Hunger Games", SortKey.title("The Hunger Games").getText());
+    }
+
+    /**
+     * Tests that keys are equal exactly when their strings are, even when the collation keys match.
+     */
+    @Test
+    public void testEquality() {
+        SortKey hobbit = SortKey.title("The Hobbit");
+        assertEquals(hobbit, SortKey.title("The Hobbit"));
+        assertEquals(0, hobbit.compareTo(SortKey.title("The Hobbit")));
+        assertEquals(hobbit.hashCode(), SortKey.title("The Hobbit").hashCode());
+
+        SortKey bare = SortKey.title("Hobbit");
+        assertNotEquals(hobbit, bare);
+        assertTrue(hobbit.compareTo(bare) != 0);
+        assertEquals(Integer.signum(hobbit.compareTo(bare)), -Integer.signum(bare.compareTo(hobbit)));
+        assertThrows(IllegalArgumentException.class, () -> SortKey.of(null));
+    }
+}
@@ -0,0 +1,98 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Reports how much heap the text fields of the loaded books take, and how much the string pool saves. For each field
+ * it counts the rows, the distinct String instances actually held after loading, and estimates the bytes those
+ * strings take against the bytes one String per row would take. The index keys are the rows' own strings, so these
+ * figures cover them too.
+ *
+ * <p>Sizes assume a 64-bit JVM with compressed references: a String is a 24 byte object plus a byte array of 16 bytes
+ * of header and one byte per character for Latin-1 text, or two per character otherwise, padded to 8 bytes.
+ *
+ * <p>Usage: {@code java StorageReport [data file]}
+ */
+public class StorageReport {
+    private static final int STRING_BYTES = 24;
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    /**
+     * Loads the data file and prints one line per text field.
+     *
+     * @param args The data file, default BooksDataFile.txt.
+     * @throws IOException if the data file cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : "BooksDataFile.txt");
+        List<Book> books = BookLoader.books(BookLoader.parse(file, ForkJoinPool.commonPool()));
+        System.out.printf("%d books%n", books.size());
+        System.out.printf("%-15s %8s %8s %8s %12s %12s %12s%n",
+                "field", "rows", "distinct", "utf-16", "unpooled", "pooled", "saved");
+        report("isbn", books, Book::getIsbn);
+        report("authors", books, Book::getAuthors);
+        report("original title", books, Book::getOriginalTitle);
+        report("title", books, Book::getTitle);
+        report("image url", books, Book::getImageUrl);
+        report("small image url", books, Book::getSmallImageUrl);
+    }
+
+    /**
+     * Private helper method printing the figures for one field.
+     *
+     * @param field The field name.
+     * @param books The loaded books.
+     * @param value The field's getter.
+     */
+    private static void report(String field, List<Book> books, Function<Book, String> value) {
+        Set<String> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        long unpooled = 0;
+        long pooled = 0;
+        int utf16 = 0;
+        for (Book book : books) {
+            String text = value.apply(book);
+            long bytes = bytes(text);
+            unpooled += bytes;
+            if (distinct.add(text)) {
+                pooled += bytes;
+                if (!latin1(text)) {
+                    utf16++;
+                }
+            }
+        }
+        System.out.printf("%-15s %8d %8d %8d %12d %12d %12d%n",
+                field, books.size(), distinct.size(), utf16, unpooled, pooled, unpooled - pooled);
+    }
+
+    /**
+     * Private helper method estimating the heap taken by a string and its character array.
+     *
+     * @param text The string.
+     * @return The estimated bytes.
+     */
+    private static long bytes(String text) {
+        int chars = latin1(text) ? text.length() : 2 * text.length();
+        return STRING_BYTES + ((ARRAY_HEADER_BYTES + chars + 7) & ~7);
+    }
+
+    /**
+     * Private helper method checking whether a string is stored one byte per character.
+     *
+     * @param text The string.
+     * @return true if every character is Latin-1.
+     */
+    private static boolean latin1(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,32 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical instances of repeated strings, so equal values read for different books share one String.
+ * Many books share an author list or an original title; without a pool each row would hold its own copy, and the
+ * index keys, which are the row's own strings, would too. A pool is meant to live only while a batch of books is
+ * read and then be dropped: the rows keep the shared strings, the pool's own table goes. It is safe to share between
+ * threads parsing different parts of a file.
+ */
+public class StringPool {
+    private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the pool's instance of a string, adding the string if no equal one has been seen.
+     *
+     * @param value The string.
+     * @return An equal string; the same instance for every equal value passed to this pool.
+     */
+    public String canonical(String value) {
+        String existing = strings.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    /**
+     * Returns the number of distinct strings in the pool.
+     *
+     * @return the number of canonical instances.
+     */
+    public int size() {
+        return strings.size();
+    }
+}
@@ -1,29 +1,102 @@
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.HashSet;
 
 /**
- * A custom TreeMap implementation using a binary search tree.
- * This class manages a collection of key-value pairs, with keys ordered according to their natural ordering.
+ * A custom TreeMap implementation using a red-black binary search tree.
+ * This class manages a collection of key-value pairs, with keys ordered according to their natural ordering, or by a
+ * comparator given when the map is created.
+ * Insertion and lookup are iterative, and the tree height is kept O(log n) for any insertion order.
+ * A map created with {@link #multiValued()} keeps every value put under an equal key instead of replacing it.
  *
- * @param <K> The type of keys maintained by this map. Must be Comparable.
+ * @param <K> The type of keys maintained by this map. Must be Comparable unless the map has a comparator.
  * @param <V> The type of mapped values.
  */
-public class TreeMap<K extends Comparable<K>, V>  implements TreeMapInterface<K, V> {
+public class TreeMap<K, V>  implements RankedTreeMapInterface<K, V>, TreeStatistics {
     private TreeMapNode<K, V> root;
     private int size;
+    private int keyCount;
+    private long lookups;
+    private long lookupComparisons;
+    private long overwrites;
+    private final boolean multiValued;
+    private final Comparator<? super K> comparator;
 
     /**
-     * Constructs an empty TreeMap.
+     * Constructs an empty TreeMap ordered by the keys' natural ordering.
+     * Every key put into the map must be Comparable to the others.
      */
     public TreeMap() {
+        this(false, null);
+    }
+
+    /**
+     * Constructs an empty TreeMap ordered by the given comparator, such as a {@link java.text.Collator}.
+     *
+     * @param comparator The ordering of the keys, or null for their natural ordering.
+     */
+    public TreeMap(Comparator<? super K> comparator) {
+        this(false, comparator);
+    }
+
+    /**
+     * Constructs an empty TreeMap, optionally keeping duplicate keys.
+     *
+     * @param multiValued Whether put should add to a key's values instead of replacing them.
+     * @param comparator  The ordering of the keys, or null for their natural ordering.
+     */
+    private TreeMap(boolean multiValued, Comparator<? super K> comparator) {
         root = null;
         size = 0;
+        keyCount = 0;
+        this.multiValued = multiValued;
+        this.comparator = comparator;
+    }
+
+    /**
+     * Creates an empty multi-valued TreeMap. Putting a key that is already present adds the value to that key's
+     * bucket, so no value is ever dropped. Sizes, positions and in-order traversals count every value; values under
+     * one key keep their insertion order.
+     *
+     * @param <K> The type of keys maintained by the map.
+     * @param <V> The type of mapped values.
+     * @return a new, empty multi-valued map.
+     */
+    public static <K extends Comparable<K>, V> TreeMap<K, V> multiValued() {
+        return new TreeMap<>(true, null);
+    }
+
+    /**
+     * Creates an empty multi-valued TreeMap ordered by the given comparator. Keys the comparator finds equal share
+     * one bucket, as equal keys do in {@link #multiValued()}.
+     *
+     * @param comparator The ordering of the keys, or null for their natural ordering.
+     * @param <K>        The type of keys maintained by the map.
+     * @param <V>        The type of mapped values.
+     * @return a new, empty multi-valued map.
+     */
+    public static <K, V> TreeMap<K, V> multiValued(Comparator<? super K> comparator) {
+        return new TreeMap<>(true, comparator);
+    }
+
+    /**
+     * Returns the comparator ordering this map's keys.
+     *
+     * @return the comparator, or null if the keys use their natural ordering.
+     */
+    public Comparator<? super K> comparator() {
+        return comparator;
     }
 
     /**
      * Adds a key-value pair to the TreeMap. If the tree previously contained a mapping for the key,
-     * the old value is replaced by the specified value.
+     * the old value is replaced by the specified value, unless the map is multi-valued, in which case the value is
+     * added alongside the existing ones.
+     * The tree is kept balanced as a red-black tree, so its height stays O(log n) regardless of insertion order.
      *
      * @param key   The key with which the specified value is to be associated.
      * @param value The value to be associated with the specified key.
@@ -33,67 +106,784 @@ public class TreeMap<K extends Comparable<K>, V>  implements TreeMapInterface<K,
         if (key == null) {
             throw new IllegalArgumentException("Key cannot be null");
         }
-        root = put(root, key, value);
+        TreeMapNode<K, V> parent = null;
+        TreeMapNode<K, V> node = root;
+        int compare = 0;
+        while (node != null) {
+            parent = node;
+            compare = compare(key, node.key);
+            if (compare < 0) {
+                node = node.left;
+            } else if (compare > 0) {
+                node = node.right;
+            } else if (multiValued) { // key already exists, add to its bucket
+                node.addValue(value);
+                size++;
+                for (TreeMapNode<K, V> ancestor = node; ancestor != null; ancestor = ancestor.parent) {
+                    ancestor.subtreeSize++;
+                }
+                return;
+            } else { // key already exists, update value
+                node.value = value;
+                overwrites++;
+                return;
+            }
+        }
+
+        TreeMapNode<K, V> added = new TreeMapNode<>(key, value, parent);
+        if (parent == null) {
+            root = added;
+        } else if (compare < 0) {
+            parent.left = added;
+        } else {
+            parent.right = added;
+        }
+        size++;
+        keyCount++;
+        for (TreeMapNode<K, V> ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+            ancestor.subtreeSize++;
+        }
+        fixAfterInsertion(added);
     }
 
     /**
-     * Private helper method for adding a key-value pair to the TreeMap.
+     * Adds a batch of key-value pairs whose keys are already in ascending order.
+     * On an empty map the tree is built directly, perfectly balanced, in linear time. Otherwise the batch is merged
+     * with the existing entries in a single pass and the tree is rebuilt, which costs O(size + length) instead of
+     * length separate insertions. Equal keys behave as they would with put: later values replace earlier ones, or
+     * are appended after them in a multi-valued map.
      *
-     * @param node  The current node being considered.
-     * @param key   The key with which the specified value is to be associated.
-     * @param value The value to be associated with the specified key.
-     * @return The updated node structure after adding the key-value pair.
+     * @param keys   The keys, sorted in ascending order; equal keys must be adjacent.
+     * @param values The values, with values[i] belonging to keys[i].
+     * @param length The number of pairs to take from the start of the arrays.
+     * @throws IllegalArgumentException if a key is null or the keys are not sorted.
      */
-    private TreeMapNode<K, V> put(TreeMapNode<K, V> node, K key, V value) {
-        if (node == null) {
-            size++;
-            return new TreeMapNode<>(key, value);
-        } else {
-            int compare = key.compareTo(node.key);
-            if (compare < 0) {
-                node.left = put(node.left, key, value);
-            } else
+    public void putAll(K[] keys, V[] values, int length) {
+        if (length < 0 || length > keys.length || length > values.length) {
+            throw new IllegalArgumentException("Length " + length + " exceeds the arrays provided");
+        }
+        for (int i = 0; i < length; i++) {
+            if (keys[i] == null) {
+                throw new IllegalArgumentException("Key cannot be null");
+            }
+            if (i > 0 && compare(keys[i], keys[i - 1]) < 0) {
+                throw new IllegalArgumentException("Keys must be sorted: " + keys[i - 1] + " before " + keys[i]);
+            }
+        }
+        if (root == null) {
+            buildFromSorted(keys, values, length);
+            return;
+        }
 
-            if (compare > 0) {
-                node.right = put(node.right, key, value);
-            } else { // key already exists, update value
-                node.value = value;
+        Object[] oldKeys = new Object[size];
+        Object[] oldValues = new Object[size];
+        collectEntries(root, oldKeys, oldValues, new int[1]);
+        Object[] mergedKeys = new Object[size + length];
+        Object[] mergedValues = new Object[size + length];
+        int i = 0, j = 0, k = 0;
+        while (i < oldKeys.length || j < length) {
+            // On equal keys the existing entries go first, as if the batch had been put afterwards
+            if (j == length || (i < oldKeys.length && compareKeys(oldKeys[i], keys[j]) <= 0)) {
+                mergedKeys[k] = oldKeys[i];
+                mergedValues[k++] = oldValues[i++];
+            } else {
+                mergedKeys[k] = keys[j];
+                mergedValues[k++] = values[j++];
             }
-            return node;
         }
+        buildFromSorted(mergedKeys, mergedValues, k);
+    }
+
+    /**
+     * Private helper method comparing two keys held in untyped arrays.
+     *
+     * @param a The first key.
+     * @param b The second key.
+     * @return The result of comparing a to b.
+     */
+    @SuppressWarnings("unchecked")
+    private int compareKeys(Object a, Object b) {
+        return compare((K) a, (K) b);
+    }
+
+    /**
+     * Private helper method comparing two keys with the map's comparator, or by their natural ordering if it has none.
+     *
+     * @param a The first key.
+     * @param b The second key.
+     * @return The result of comparing a to b.
+     * @throws ClassCastException if the map has no comparator and the keys are not Comparable.
+     */
+    @SuppressWarnings("unchecked")
+    private int compare(K a, K b) {
+        return comparator != null ? comparator.compare(a, b) : ((Comparable<? super K>) a).compareTo(b);
+    }
+
+    /**
+     * Private helper method for copying every entry, in order, into a pair of arrays.
+     *
+     * @param node   The current node being considered.
+     * @param keys   The array receiving keys, repeated once per value.
+     * @param values The array receiving values.
+     * @param index  An array index to keep track of the current position.
+     */
+    private void collectEntries(TreeMapNode<K, V> node, Object[] keys, Object[] values, int[] index) {
+        if (node != null) {
+            collectEntries(node.left, keys, values, index);
+            for (int i = 0; i < node.valueCount; i++) {
+                keys[index[0]] = node.key;
+                values[index[0]++] = node.valueAt(i);
+            }
+            collectEntries(node.right, keys, values, index);
+        }
+    }
+
+    /**
+     * Private helper method replacing the tree with one built from sorted entries.
+     * Runs of equal keys become a single node, then the nodes are linked into a perfectly balanced tree.
+     *
+     * @param keys   The sorted keys.
+     * @param values The matching values.
+     * @param length The number of entries to use.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void buildFromSorted(Object[] keys, Object[] values, int length) {
+        TreeMapNode<K, V>[] nodes = new TreeMapNode[length];
+        int count = 0;
+        int entries = 0;
+        for (int i = 0; i < length; i++) {
+            if (count > 0 && compareKeys(keys[i], nodes[count - 1].key) == 0) {
+                if (multiValued) {
+                    nodes[count - 1].addValue((V) values[i]);
+                    entries++;
+                } else {
+                    nodes[count - 1].value = (V) values[i];
+                    overwrites++;
+                }
+            } else {
+                nodes[count++] = new TreeMapNode<>((K) keys[i], (V) values[i], null);
+                entries++;
+            }
+        }
+
+        // Every level is full except possibly the deepest; colouring just that level red keeps the black heights equal
+        int redLevel = 0;
+        for (int m = count - 1; m >= 0; m = m / 2 - 1) {
+            redLevel++;
+        }
+        root = linkBalanced(nodes, 0, count - 1, 0, redLevel, null);
+        size = entries;
+        keyCount = count;
+    }
+
+    /**
+     * Private helper method for linking a sorted range of nodes into a balanced subtree.
+     *
+     * @param nodes    The sorted nodes.
+     * @param lo       The first node of the range.
+     * @param hi       The last node of the range (inclusive).
+     * @param level    The depth of the subtree root, with the tree root at 0.
+     * @param redLevel The depth whose nodes are coloured red.
+     * @param parent   The parent of the subtree root.
+     * @return The root of the subtree, or null for an empty range.
+     */
+    private TreeMapNode<K, V> linkBalanced(TreeMapNode<K, V>[] nodes, int lo, int hi, int level, int redLevel,
+                                           TreeMapNode<K, V> parent) {
+        if (lo > hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        TreeMapNode<K, V> node = nodes[mid];
+        node.parent = parent;
+        node.left = linkBalanced(nodes, lo, mid - 1, level + 1, redLevel, node);
+        node.right = linkBalanced(nodes, mid + 1, hi, level + 1, redLevel, node);
+        node.red = level == redLevel;
+        node.subtreeSize = subtreeSize(node.left) + subtreeSize(node.right) + node.valueCount;
+        return node;
+    }
+
+    /**
+     * Private helper method restoring the red-black properties after a new red node has been linked in.
+     *
+     * @param node The newly added node.
+     */
+    private void fixAfterInsertion(TreeMapNode<K, V> node) {
+        while (node != root && node.parent.red) {
+            TreeMapNode<K, V> parent = node.parent;
+            TreeMapNode<K, V> grandparent = parent.parent;
+            if (parent == grandparent.left) {
+                TreeMapNode<K, V> uncle = grandparent.right;
+                if (isRed(uncle)) {
+                    parent.red = false;
+                    uncle.red = false;
+                    grandparent.red = true;
+                    node = grandparent;
+                } else {
+                    if (node == parent.right) {
+                        node = parent;
+                        rotateLeft(node);
+                        parent = node.parent;
+                    }
+                    parent.red = false;
+                    grandparent.red = true;
+                    rotateRight(grandparent);
+                }
+            } else {
+                TreeMapNode<K, V> uncle = grandparent.left;
+                if (isRed(uncle)) {
+                    parent.red = false;
+                    uncle.red = false;
+                    grandparent.red = true;
+                    node = grandparent;
+                } else {
+                    if (node == parent.left) {
+                        node = parent;
+                        rotateRight(node);
+                        parent = node.parent;
+                    }
+                    parent.red = false;
+                    grandparent.red = true;
+                    rotateLeft(grandparent);
+                }
+            }
+        }
+        root.red = false;
+    }
+
+    /**
+     * Private helper method rotating the subtree rooted at the given node to the left.
+     *
+     * @param node The root of the subtree; its right child takes its place.
+     */
+    private void rotateLeft(TreeMapNode<K, V> node) {
+        TreeMapNode<K, V> pivot = node.right;
+        node.right = pivot.left;
+        if (pivot.left != null) {
+            pivot.left.parent = node;
+        }
+        replaceChild(node, pivot);
+        pivot.left = node;
+        node.parent = pivot;
+        pivot.subtreeSize = node.subtreeSize;
+        node.subtreeSize = subtreeSize(node.left) + subtreeSize(node.right) + node.valueCount;
+    }
+
+    /**
+     * Private helper method rotating the subtree rooted at the given node to the right.
+     *
+     * @param node The root of the subtree; its left child takes its place.
+     */
+    private void rotateRight(TreeMapNode<K, V> node) {
+        TreeMapNode<K, V> pivot = node.left;
+        node.left = pivot.right;
+        if (pivot.right != null) {
+            pivot.right.parent = node;
+        }
+        replaceChild(node, pivot);
+        pivot.right = node;
+        node.parent = pivot;
+        pivot.subtreeSize = node.subtreeSize;
+        node.subtreeSize = subtreeSize(node.left) + subtreeSize(node.right) + node.valueCount;
+    }
+
+    /**
+     * Private helper method linking a replacement node into the position currently held by another node.
+     *
+     * @param node        The node being replaced.
+     * @param replacement The node taking its place under the same parent.
+     */
+    private void replaceChild(TreeMapNode<K, V> node, TreeMapNode<K, V> replacement) {
+        replacement.parent = node.parent;
+        if (node.parent == null) {
+            root = replacement;
+        } else if (node == node.parent.left) {
+            node.parent.left = replacement;
+        } else {
+            node.parent.right = replacement;
+        }
+    }
+
+    /**
+     * Private helper method treating missing (null) children as black leaves.
+     *
+     * @param node The node to check.
+     * @return true if the node exists and is red.
+     */
+    private static boolean isRed(TreeMapNode<?, ?> node) {
+        return node != null && node.red;
+    }
+
+    /**
+     * Private helper method returning the number of entries (values) in a subtree.
+     *
+     * @param node The root of the subtree, possibly null.
+     * @return The number of entries in the subtree.
+     */
+    private static int subtreeSize(TreeMapNode<?, ?> node) {
+        return node == null ? 0 : node.subtreeSize;
     }
 
     /**
      * Retrieves the value to which the specified key is mapped.
+     * For a multi-valued map this is the first value put under the key.
      *
      * @param key The key whose associated value is to be returned.
      * @return the value to which the specified key is mapped, or null if this map contains no mapping for the key.
      * @throws IllegalArgumentException if the key is null.
      */
     public V get(K key) {
+        TreeMapNode<K, V> node = getNode(key);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Private helper method for locating the node holding a key. Counts the lookup and its comparisons.
+     *
+     * @param key The key to search for.
+     * @return The node holding the key, or null if not found.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    private TreeMapNode<K, V> getNode(K key) {
         if (key == null) {
             throw new IllegalArgumentException("Key cannot be null");
         }
-        return get(root, key);
+        TreeMapNode<K, V> node = root;
+        int comparisons = 0;
+        while (node != null) {
+            int compare = compare(key, node.key);
+            comparisons++;
+            if (compare < 0) {
+                node = node.left;
+            } else if (compare > 0) {
+                node = node.right;
+            } else {
+                break;
+            }
+        }
+        lookups++;
+        lookupComparisons += comparisons;
+        return node;
     }
 
     /**
-     * Private helper method for retrieving the value associated with a key.
+     * Retrieves every value mapped to the specified key, in the order they were put.
      *
-     * @param node The current node being considered.
-     * @param key  The key whose associated value is to be retrieved.
-     * @return The value associated with the specified key, or null if not found.
+     * @param key The key whose values are to be returned.
+     * @return a new list of the key's values; empty if the key is not in the map.
+     * @throws IllegalArgumentException if the key is null.
      */
-    private V get(TreeMapNode<K, V> node, K key) {
-        if (node == null) {
-            return null;
-        } else if (key.compareTo(node.key) < 0) {
-            return get(node.left, key);
-        } else if (key.compareTo(node.key) > 0) {
-            return get(node.right, key);
-        } else {
-            return node.value;
+    public List<V> getAll(K key) {
+        TreeMapNode<K, V> node = getNode(key);
+        List<V> values = new ArrayList<>(node == null ? 0 : node.valueCount);
+        if (node != null) {
+            for (int i = 0; i < node.valueCount; i++) {
+                values.add(node.valueAt(i));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Counts the values mapped to the specified key.
+     *
+     * @param key The key of interest.
+     * @return the number of values under the key: 0 if absent, at most 1 unless the map is multi-valued.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public int valueCount(K key) {
+        TreeMapNode<K, V> node = getNode(key);
+        return node == null ? 0 : node.valueCount;
+    }
+
+    /**
+     * Retrieves the key at the given position in sorted order.
+     * In a multi-valued map every value occupies a position, so a key repeats once per value.
+     *
+     * @param index The zero-based position of the key.
+     * @return The key of the entry with exactly {@code index} entries before it.
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the size of the map.
+     */
+    public K select(int index) {
+        return selectNode(index, new int[1]).key;
+    }
+
+    /**
+     * Retrieves the value whose key is at the given position in sorted order.
+     *
+     * @param index The zero-based position of the entry.
+     * @return The value of the entry at that position.
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the size of the map.
+     */
+    public V selectValue(int index) {
+        int[] offset = new int[1];
+        TreeMapNode<K, V> node = selectNode(index, offset);
+        return node.valueAt(offset[0]);
+    }
+
+    /**
+     * Private helper method for locating the entry at a position using the subtree sizes.
+     *
+     * @param index  The zero-based position of the entry.
+     * @param offset Receives the position of the entry within the node's values.
+     * @return The node holding the entry at that position.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    private TreeMapNode<K, V> selectNode(int index, int[] offset) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        TreeMapNode<K, V> node = root;
+        while (true) {
+            int leftSize = subtreeSize(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index >= leftSize + node.valueCount) {
+                index -= leftSize + node.valueCount;
+                node = node.right;
+            } else {
+                offset[0] = index - leftSize;
+                return node;
+            }
+        }
+    }
+
+    /**
+     * Counts the entries in the map whose keys are strictly less than the given key.
+     * If the key is present, this is the position of its first entry in sorted order.
+     *
+     * @param key The key to rank; it does not have to be in the map.
+     * @return The number of entries with smaller keys.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public int rank(K key) {
+        return countBelow(key, false);
+    }
+
+    /**
+     * Counts the entries whose keys lie between two bounds. Only the two paths to the bounds are walked, so the
+     * count takes O(log n) however many entries are in the range.
+     *
+     * @param fromKey       The lower bound.
+     * @param fromInclusive Whether entries equal to the lower bound are counted.
+     * @param toKey         The upper bound.
+     * @param toInclusive   Whether entries equal to the upper bound are counted.
+     * @return The number of entries in the range.
+     * @throws IllegalArgumentException if a bound is null or fromKey is greater than toKey.
+     */
+    public int countInRange(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        checkRange(fromKey, toKey);
+        return Math.max(0, countBelow(toKey, toInclusive) - countBelow(fromKey, !fromInclusive));
+    }
+
+    /**
+     * Creates a live view of the entries whose keys lie between two bounds. Nothing is copied.
+     *
+     * @param fromKey       The lower bound.
+     * @param fromInclusive Whether a key equal to fromKey is in the view.
+     * @param toKey         The upper bound.
+     * @param toInclusive   Whether a key equal to toKey is in the view.
+     * @return A view of the range.
+     * @throws IllegalArgumentException if a bound is null or fromKey is greater than toKey.
+     */
+    public RankedTreeMapInterface<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        checkRange(fromKey, toKey);
+        return new RangeView<>(this, this::compare, fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    /**
+     * Creates a live view of the entries whose keys are less than, or optionally equal to, a bound.
+     *
+     * @param toKey     The upper bound.
+     * @param inclusive Whether a key equal to toKey is in the view.
+     * @return A view of the range.
+     * @throws IllegalArgumentException if the bound is null.
+     */
+    public RankedTreeMapInterface<K, V> headMap(K toKey, boolean inclusive) {
+        checkRange(toKey, toKey);
+        return new RangeView<>(this, this::compare, null, false, toKey, inclusive);
+    }
+
+    /**
+     * Creates a live view of the entries whose keys are greater than, or optionally equal to, a bound.
+     *
+     * @param fromKey   The lower bound.
+     * @param inclusive Whether a key equal to fromKey is in the view.
+     * @return A view of the range.
+     * @throws IllegalArgumentException if the bound is null.
+     */
+    public RankedTreeMapInterface<K, V> tailMap(K fromKey, boolean inclusive) {
+        checkRange(fromKey, fromKey);
+        return new RangeView<>(this, this::compare, fromKey, inclusive, null, false);
+    }
+
+    /**
+     * Private helper method counting the entries whose keys are less than, or optionally equal to, a key.
+     *
+     * @param key       The key to count up to; it does not have to be in the map.
+     * @param inclusive Whether the entries with a key equal to the given key are counted.
+     * @return The number of entries below the key.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    private int countBelow(K key, boolean inclusive) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        int rank = 0;
+        TreeMapNode<K, V> node = root;
+        while (node != null) {
+            int compare = compare(key, node.key);
+            if (compare < 0) {
+                node = node.left;
+            } else if (compare > 0) {
+                rank += subtreeSize(node.left) + node.valueCount;
+                node = node.right;
+            } else {
+                return rank + subtreeSize(node.left) + (inclusive ? node.valueCount : 0);
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Private helper method validating the bounds of a range.
+     *
+     * @param fromKey The lower bound.
+     * @param toKey   The upper bound.
+     * @throws IllegalArgumentException if a bound is null or fromKey is greater than toKey.
+     */
+    private void checkRange(K fromKey, K toKey) {
+        if (fromKey == null || toKey == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        if (compare(fromKey, toKey) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+    }
+
+    /**
+     * Returns the smallest key in the map.
+     *
+     * @return the first key in order, or null if the map is empty.
+     */
+    public K firstKey() {
+        return keyOf(firstNode());
+    }
+
+    /**
+     * Returns the largest key in the map.
+     *
+     * @return the last key in order, or null if the map is empty.
+     */
+    public K lastKey() {
+        return keyOf(lastNode());
+    }
+
+    /**
+     * Returns the smallest key greater than or equal to the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public K ceilingKey(K key) {
+        return keyOf(ceilingNode(key, true));
+    }
+
+    /**
+     * Returns the smallest key strictly greater than the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public K higherKey(K key) {
+        return keyOf(ceilingNode(key, false));
+    }
+
+    /**
+     * Returns the largest key less than or equal to the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public K floorKey(K key) {
+        return keyOf(floorNode(key, true));
+    }
+
+    /**
+     * Returns the largest key strictly less than the given key.
+     *
+     * @param key The key to search from.
+     * @return the matching key, or null if there is none.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public K lowerKey(K key) {
+        return keyOf(floorNode(key, false));
+    }
+
+    /**
+     * Creates a cursor positioned on the first entry of the map.
+     * Stepping the cursor follows parent and child links from the current node, which is amortized O(1).
+     *
+     * @return a new cursor over this map.
+     */
+    public TreeMapCursor<K, V> cursor() {
+        return new NodeCursor(firstNode());
+    }
+
+    /**
+     * Creates a cursor positioned on the entry at the given position in sorted order.
+     *
+     * @param index The zero-based position of the entry.
+     * @return a new cursor over this map.
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the size of the map.
+     */
+    public TreeMapCursor<K, V> cursorAt(int index) {
+        int[] offset = new int[1];
+        NodeCursor cursor = new NodeCursor(selectNode(index, offset));
+        cursor.offset = offset[0];
+        return cursor;
+    }
+
+    /**
+     * Private helper method returning a node's key, tolerating a missing node.
+     *
+     * @param node The node, possibly null.
+     * @return The node's key, or null.
+     */
+    private static <K> K keyOf(TreeMapNode<K, ?> node) {
+        return node == null ? null : node.key;
+    }
+
+    /**
+     * Private helper method for locating the leftmost node of the tree.
+     *
+     * @return The node holding the smallest key, or null if the tree is empty.
+     */
+    private TreeMapNode<K, V> firstNode() {
+        TreeMapNode<K, V> node = root;
+        if (node != null) {
+            while (node.left != null) {
+                node = node.left;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Private helper method for locating the rightmost node of the tree.
+     *
+     * @return The node holding the largest key, or null if the tree is empty.
+     */
+    private TreeMapNode<K, V> lastNode() {
+        TreeMapNode<K, V> node = root;
+        if (node != null) {
+            while (node.right != null) {
+                node = node.right;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Private helper method for locating the first node whose key is above (or equal to) the given key.
+     *
+     * @param key       The key to search from.
+     * @param inclusive Whether a node holding the key itself qualifies.
+     * @return The matching node, or null if there is none.
+     */
+    private TreeMapNode<K, V> ceilingNode(K key, boolean inclusive) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        TreeMapNode<K, V> best = null;
+        TreeMapNode<K, V> node = root;
+        while (node != null) {
+            int compare = compare(key, node.key);
+            if (compare < 0 || (compare == 0 && inclusive)) {
+                best = node;
+                if (compare == 0) {
+                    break;
+                }
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Private helper method for locating the last node whose key is below (or equal to) the given key.
+     *
+     * @param key       The key to search from.
+     * @param inclusive Whether a node holding the key itself qualifies.
+     * @return The matching node, or null if there is none.
+     */
+    private TreeMapNode<K, V> floorNode(K key, boolean inclusive) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        TreeMapNode<K, V> best = null;
+        TreeMapNode<K, V> node = root;
+        while (node != null) {
+            int compare = compare(key, node.key);
+            if (compare > 0 || (compare == 0 && inclusive)) {
+                best = node;
+                if (compare == 0) {
+                    break;
+                }
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Private helper method for finding the in-order successor of a node.
+     *
+     * @param node The current node.
+     * @return The node with the next larger key, or null if the node is the last one.
+     */
+    private static <K, V> TreeMapNode<K, V> successor(TreeMapNode<K, V> node) {
+        if (node.right != null) {
+            node = node.right;
+            while (node.left != null) {
+                node = node.left;
+            }
+            return node;
+        }
+        TreeMapNode<K, V> parent = node.parent;
+        while (parent != null && node == parent.right) {
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
+
+    /**
+     * Private helper method for finding the in-order predecessor of a node.
+     *
+     * @param node The current node.
+     * @return The node with the next smaller key, or null if the node is the first one.
+     */
+    private static <K, V> TreeMapNode<K, V> predecessor(TreeMapNode<K, V> node) {
+        if (node.left != null) {
+            node = node.left;
+            while (node.right != null) {
+                node = node.right;
+            }
+            return node;
         }
+        TreeMapNode<K, V> parent = node.parent;
+        while (parent != null && node == parent.left) {
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent;
     }
 
     /**
@@ -103,7 +893,7 @@ public class TreeMap<K extends Comparable<K>, V>  implements TreeMapInterface<K,
      * @return true if this map contains a mapping for the specified key.
      */
     public boolean containsKey(K key) {
-        return get(key) != null;
+        return getNode(key) != null;
     }
 
     /**
@@ -112,18 +902,103 @@ public class TreeMap<K extends Comparable<K>, V>  implements TreeMapInterface<K,
     public void clear() {
         root = null;
         size = 0;
+        keyCount = 0;
     }
 
     /**
      * Returns the number of key-value pairs in this map.
+     * For a multi-valued map every value counts, so this can exceed {@link #keyCount()}.
      *
      * @return the number of key-value pairs in this map.
      */
     public int size() {
         return size;
     }
+
+    /**
+     * Returns the number of distinct keys in this map.
+     *
+     * @return the number of distinct keys.
+     */
+    public int keyCount() {
+        return keyCount;
+    }
+
+    /**
+     * Returns the height of the tree, counting the root as level 1.
+     *
+     * @return the number of nodes on the longest root-to-leaf path, or 0 for an empty map.
+     */
+    public int height() {
+        return height(root);
+    }
+
+    /**
+     * Counts the nodes at each depth of the tree.
+     *
+     * @return an array whose element d is the number of nodes at depth d, with the root at depth 0.
+     */
+    public int[] depthHistogram() {
+        int[] histogram = new int[height()];
+        countDepths(root, 0, histogram);
+        return histogram;
+    }
+
+    /**
+     * Private helper method for counting the nodes of a subtree by depth.
+     *
+     * @param node      The root of the subtree.
+     * @param depth     The depth of the subtree root.
+     * @param histogram The counts per depth.
+     */
+    private void countDepths(TreeMapNode<K, V> node, int depth, int[] histogram) {
+        if (node != null) {
+            histogram[depth]++;
+            countDepths(node.left, depth + 1, histogram);
+            countDepths(node.right, depth + 1, histogram);
+        }
+    }
+
+    /**
+     * Returns the number of lookups of a single key made so far.
+     *
+     * @return the number of lookups.
+     */
+    public long lookupCount() {
+        return lookups;
+    }
+
+    /**
+     * Returns the number of key comparisons made by all lookups together.
+     *
+     * @return the number of comparisons.
+     */
+    public long lookupComparisons() {
+        return lookupComparisons;
+    }
+
     /**
-     * Converts the values of the TreeMap to an array.
+     * Returns the number of values replaced because their key was put again; always 0 for a multi-valued map.
+     *
+     * @return the number of overwritten values.
+     */
+    public long overwriteCount() {
+        return overwrites;
+    }
+
+    /**
+     * Private helper method for computing the height of a subtree.
+     *
+     * @param node The root of the subtree.
+     * @return The height of the subtree.
+     */
+    private int height(TreeMapNode<K, V> node) {
+        return node == null ? 0 : 1 + Math.max(height(node.left), height(node.right));
+    }
+
+    /**
+     * Converts the values of the TreeMap to an array, in key order.
+     * Values sharing a key are listed together in the order they were put.
      *
      * @param array An array of values to be filled. If it is too small, a new one will be created.
      * @return An array containing all the values in the TreeMap.
@@ -146,13 +1021,16 @@ public class TreeMap<K extends Comparable<K>, V>  implements TreeMapInterface<K,
     private void populateArrayWithValues(TreeMapNode<K, V> node, V[] array, int[] index) {
         if (node != null) {
             populateArrayWithValues(node.left, array, index);
-            array[index[0]++] = node.value;
+            for (int i = 0; i < node.valueCount; i++) {
+                array[index[0]++] = node.valueAt(i);
+            }
             populateArrayWithValues(node.right, array, index);
         }
     }
 
     /**
      * Converts the keys of the TreeMap to an array.
+     * A key is repeated once per value, so the result lines up with {@link #toValueArray}.
      *
      * @param array An array of keys to be filled. If it is too small, a new one will be created.
      * @return An array containing all the keys in the TreeMap.
@@ -175,7 +1053,9 @@ public class TreeMap<K extends Comparable<K>, V>  implements TreeMapInterface<K,
     private void populateArrayWithKeys(TreeMapNode<K, V> node, K[] array, int[] index) {
         if (node != null) {
             populateArrayWithKeys(node.left, array, index);
-            array[index[0]++] = node.key;
+            for (int i = 0; i < node.valueCount; i++) {
+                array[index[0]++] = node.key;
+            }
             populateArrayWithKeys(node.right, array, index);
         }
     }
@@ -204,25 +1084,151 @@ public class TreeMap<K extends Comparable<K>, V>  implements TreeMapInterface<K,
             populateKeySet(node.right, keys);
         }
     }
+    /**
+     * Inner class implementing a cursor that stays on a tree node between moves.
+     */
+    private class NodeCursor implements TreeMapCursor<K, V> {
+        private TreeMapNode<K, V> current;
+        private int offset;
+
+        /**
+         * Constructs a cursor positioned on the given node.
+         *
+         * @param start The starting node, or null for an unpositioned cursor.
+         */
+        NodeCursor(TreeMapNode<K, V> start) {
+            current = start;
+        }
+
+        public boolean isValid() {
+            return current != null;
+        }
+
+        public K key() {
+            return currentNode().key;
+        }
+
+        public V value() {
+            return currentNode().valueAt(offset);
+        }
+
+        public boolean first() {
+            current = firstNode();
+            offset = 0;
+            return current != null;
+        }
+
+        public boolean last() {
+            current = lastNode();
+            offset = current == null ? 0 : current.valueCount - 1;
+            return current != null;
+        }
+
+        public boolean next() {
+            if (current != null && offset < current.valueCount - 1) {
+                offset++;
+                return true;
+            }
+            return moveTo(current == null ? null : successor(current), false);
+        }
+
+        public boolean previous() {
+            if (offset > 0) {
+                offset--;
+                return true;
+            }
+            return moveTo(current == null ? null : predecessor(current), true);
+        }
+
+        public boolean seek(K key) {
+            return moveTo(ceilingNode(key, true), false);
+        }
+
+        /**
+         * Moves to the first or last value of the given node if there is one, otherwise stays put.
+         *
+         * @param node    The target node, possibly null.
+         * @param atLast  Whether to land on the node's last value rather than its first.
+         * @return true if the cursor moved.
+         */
+        private boolean moveTo(TreeMapNode<K, V> node, boolean atLast) {
+            if (node == null) {
+                return false;
+            }
+            current = node;
+            offset = atLast ? node.valueCount - 1 : 0;
+            return true;
+        }
+
+        /**
+         * Returns the current node, failing if the cursor is not positioned.
+         *
+         * @return The current node.
+         */
+        private TreeMapNode<K, V> currentNode() {
+            if (current == null) {
+                throw new NoSuchElementException("Cursor is not positioned on an entry");
+            }
+            return current;
+        }
+    }
+
     /**
     *Inner class representing a node in the TreeMap.
+    * The first value is held directly; further values for the same key (multi-valued maps only) go in a
+    * compact array that grows on demand.
      */
 
     private static class TreeMapNode<K, V> {
         K key;
         V value;
-        TreeMapNode<K, V> left, right;
+        Object[] moreValues;
+        int valueCount;
+        TreeMapNode<K, V> left, right, parent;
+        boolean red;
+        int subtreeSize;
 
         /**
-         * Constructs a TreeMapNode with the specified key and value.
+         * Constructs a red TreeMapNode with the specified key and value.
          *
-         * @param key   The key associated with this node.
-         * @param value The value associated with this node.
+         * @param key    The key associated with this node.
+         * @param value  The value associated with this node.
+         * @param parent The parent node, or null for the root.
          */
-        TreeMapNode(K key, V value) {
+        TreeMapNode(K key, V value, TreeMapNode<K, V> parent) {
             this.key = key;
             this.value = value;
+            this.parent = parent;
             left = right = null;
+            red = true;
+            valueCount = 1;
+            subtreeSize = 1;
+        }
+
+        /**
+         * Appends another value for this node's key.
+         *
+         * @param added The value to append.
+         */
+        void addValue(V added) {
+            if (moreValues == null) {
+                moreValues = new Object[2];
+            } else if (valueCount - 1 == moreValues.length) {
+                moreValues = Arrays.copyOf(moreValues, moreValues.length * 2);
+            }
+            moreValues[valueCount - 1] = added;
+            valueCount++;
+        }
+
+        /**
+         * Returns one of this node's values.
+         *
+         * @param i The position of the value, from 0 to valueCount - 1.
+         * @return The value at that position.
+         */
+        @SuppressWarnings("unchecked")
+        V valueAt(int i) {
+            return i == 0 ? value : (V) moreValues[i - 1];
         }
     }
 }
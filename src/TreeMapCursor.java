@@ -0,0 +1,61 @@
+/**
+ * A bidirectional cursor over the entries of a map, in key order.
+ * The cursor stays on an entry between calls, so stepping to a neighbour does not search the map again.
+ * Moves that would leave the map return false and keep the cursor where it was.
+ * @param <K>       the data type for keys in the map.
+ * @param <V>       the data type for values in the map.
+ */
+public interface TreeMapCursor<K, V> {
+
+    /**
+     * Checks whether the cursor is positioned on an entry.
+     * @return      true, if key() and value() may be called; false, if the map was empty when last positioned.
+     */
+    public boolean isValid();
+
+    /**
+     * Retrieves the key of the current entry.
+     * @return      the current key.
+     * @throws java.util.NoSuchElementException if the cursor is not positioned on an entry.
+     */
+    public K key();
+
+    /**
+     * Retrieves the value of the current entry.
+     * @return      the current value.
+     * @throws java.util.NoSuchElementException if the cursor is not positioned on an entry.
+     */
+    public V value();
+
+    /**
+     * Moves the cursor to the first entry of the map.
+     * @return      true, if the map has an entry; false, if it is empty.
+     */
+    public boolean first();
+
+    /**
+     * Moves the cursor to the last entry of the map.
+     * @return      true, if the map has an entry; false, if it is empty.
+     */
+    public boolean last();
+
+    /**
+     * Moves the cursor to the following entry.
+     * @return      true, if the cursor moved; false, if it was already on the last entry or not positioned.
+     */
+    public boolean next();
+
+    /**
+     * Moves the cursor to the preceding entry.
+     * @return      true, if the cursor moved; false, if it was already on the first entry or not positioned.
+     */
+    public boolean previous();
+
+    /**
+     * Moves the cursor to the first entry whose key is greater than or equal to the given key.
+     * @param key       the key to search for; it does not have to be in the map.
+     * @return          true, if such an entry exists; false, if every key is smaller (the cursor is left in place).
+     */
+    public boolean seek(K key);
+
+}
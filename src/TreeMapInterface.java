@@ -54,4 +54,50 @@ public interface TreeMapInterface<K, V> {
      */
     public K[] toKeyArray(K[] array);
 
+    /**
+     * Retrieves the smallest key in the map.
+     * @return      the first key in order, or null if the map is empty.
+     */
+    public K firstKey();
+
+    /**
+     * Retrieves the largest key in the map.
+     * @return      the last key in order, or null if the map is empty.
+     */
+    public K lastKey();
+
+    /**
+     * Retrieves the smallest key greater than or equal to the given key.
+     * @param key       the key to search from; it does not have to be in the map.
+     * @return          the matching key, or null if there is none.
+     */
+    public K ceilingKey(K key);
+
+    /**
+     * Retrieves the largest key less than or equal to the given key.
+     * @param key       the key to search from; it does not have to be in the map.
+     * @return          the matching key, or null if there is none.
+     */
+    public K floorKey(K key);
+
+    /**
+     * Retrieves the smallest key strictly greater than the given key.
+     * @param key       the key to search from; it does not have to be in the map.
+     * @return          the matching key, or null if there is none.
+     */
+    public K higherKey(K key);
+
+    /**
+     * Retrieves the largest key strictly less than the given key.
+     * @param key       the key to search from; it does not have to be in the map.
+     * @return          the matching key, or null if there is none.
+     */
+    public K lowerKey(K key);
+
+    /**
+     * Creates a cursor for stepping through the map in key order.
+     * @return      a new cursor positioned on the first entry, or not positioned at all if the map is empty.
+     */
+    public TreeMapCursor<K, V> cursor();
+
 }
@@ -10,6 +10,8 @@ import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Set;
 
 public class TreeMapTest {
@@ -161,4 +163,313 @@ public class TreeMapTest {
         assertTrue(keySet.contains(2657));
         assertFalse(keySet.contains(12345));
     }
+
+    /**
+     * Tests that the tree stays balanced when keys arrive in sorted or reverse-sorted order.
+     * A red-black tree never exceeds 2 * log2(n + 1) levels.
+     */
+    @Test
+    public void testBalancedOnSortedInput() {
+        int n = 100000;
+        for (int i = 0; i < n; i++) {
+            treeMap.put(i, "Book " + i);
+        }
+        assertEquals(n, treeMap.size());
+        assertTrue(treeMap.height() <= 2 * (32 - Integer.numberOfLeadingZeros(n + 1)));
+        assertEquals("Book 54321", treeMap.get(54321));
+
+        treeMap.clear();
+        for (int i = n; i > 0; i--) {
+            treeMap.put(i, "Book " + i);
+        }
+        assertTrue(treeMap.height() <= 2 * (32 - Integer.numberOfLeadingZeros(n + 1)));
+        Integer[] keys = treeMap.toKeyArray(new Integer[0]);
+        for (int i = 0; i < n; i++) {
+            assertEquals(i + 1, (int) keys[i]);
+        }
+    }
+
+    /**
+     * Tests the select() and rank() methods of the TreeMap.
+     * Verifies that positions in sorted order map to keys and back.
+     */
+    @Test
+    public void testSelectAndRank() {
+        treeMap.put(2767052, "Suzanne Collins");
+        treeMap.put(41865, "Stephenie Meyer");
+        treeMap.put(2657, "Harper Lee");
+
+        assertEquals(2657, (int) treeMap.select(0));
+        assertEquals(2767052, (int) treeMap.select(2));
+        assertEquals("Stephenie Meyer", treeMap.selectValue(1));
+
+        assertEquals(0, treeMap.rank(2657));
+        assertEquals(1, treeMap.rank(41865));
+        assertEquals(2, treeMap.rank(50000)); // not in the map
+        assertEquals(3, treeMap.rank(9999999));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> treeMap.select(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> treeMap.select(-1));
+
+        // Subtree sizes must survive the rotations done while balancing
+        treeMap.clear();
+        for (int i = 0; i < 1000; i++) {
+            treeMap.put((i * 7919) % 1000, "v" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, (int) treeMap.select(i));
+            assertEquals(i, treeMap.rank(i));
+        }
+    }
+
+    /**
+     * Tests the ordered navigation methods of the TreeMap.
+     * Checks first/last and the ceiling/floor/higher/lower searches for present and absent keys.
+     */
+    @Test
+    public void testNavigation() {
+        // An empty map has no first or last key
+        assertNull(treeMap.firstKey());
+        assertNull(treeMap.lastKey());
+
+        treeMap.put(2767052, "Suzanne Collins");
+        treeMap.put(41865, "Stephenie Meyer");
+        treeMap.put(2657, "Harper Lee");
+
+        assertEquals(2657, (int) treeMap.firstKey());
+        assertEquals(2767052, (int) treeMap.lastKey());
+
+        assertEquals(41865, (int) treeMap.ceilingKey(41865));
+        assertEquals(41865, (int) treeMap.ceilingKey(3000));
+        assertNull(treeMap.ceilingKey(3000000));
+        assertEquals(2767052, (int) treeMap.higherKey(41865));
+
+        assertEquals(41865, (int) treeMap.floorKey(41865));
+        assertEquals(2657, (int) treeMap.floorKey(41864));
+        assertNull(treeMap.floorKey(100));
+        assertEquals(2657, (int) treeMap.lowerKey(41865));
+        assertNull(treeMap.lowerKey(2657));
+    }
+
+    /**
+     * Tests the cursor returned by the TreeMap.
+     * Steps forwards and backwards over every entry and checks that moves off either end are refused.
+     */
+    @Test
+    public void testCursor() {
+        assertFalse(treeMap.cursor().isValid());
+
+        for (int i = 0; i < 500; i++) {
+            treeMap.put((i * 37) % 500, "v" + ((i * 37) % 500));
+        }
+        TreeMapCursor<Integer, String> cursor = treeMap.cursor();
+        int expected = 0;
+        do {
+            assertEquals(expected, (int) cursor.key());
+            assertEquals("v" + expected, cursor.value());
+            expected++;
+        } while (cursor.next());
+        assertEquals(500, expected);
+        assertEquals(499, (int) cursor.key()); // still on the last entry
+
+        while (cursor.previous()) {
+            expected--;
+        }
+        assertEquals(0, (int) cursor.key());
+
+        assertTrue(cursor.seek(250));
+        assertEquals(250, (int) cursor.key());
+        assertFalse(cursor.seek(1000));
+        assertEquals(250, (int) cursor.key());
+
+        assertEquals(123, (int) treeMap.cursorAt(123).key());
+    }
+
+    /**
+     * Tests a multi-valued TreeMap.
+     * Verifies that values put under an equal key are all kept, counted and visited in order.
+     */
+    @Test
+    public void testMultiValued() {
+        TreeMap<Integer, String> byYear = TreeMap.multiValued();
+        byYear.put(2008, "The Hunger Games");
+        byYear.put(1997, "Harry Potter and the Philosopher's Stone");
+        byYear.put(2008, "Catching Fire");
+        byYear.put(2005, "Twilight");
+        byYear.put(2008, "The Graveyard Book");
+
+        assertEquals(5, byYear.size());
+        assertEquals(3, byYear.keyCount());
+        assertEquals(3, byYear.valueCount(2008));
+        assertEquals(0, byYear.valueCount(1999));
+        assertEquals("The Hunger Games", byYear.get(2008));
+        assertEquals(3, byYear.getAll(2008).size());
+        assertEquals("Catching Fire", byYear.getAll(2008).get(1));
+
+        String[] expected = {"Harry Potter and the Philosopher's Stone", "Twilight",
+                "The Hunger Games", "Catching Fire", "The Graveyard Book"};
+        assertArrayEquals(expected, byYear.toValueArray(new String[0]));
+        assertArrayEquals(new Integer[] {1997, 2005, 2008, 2008, 2008}, byYear.toKeyArray(new Integer[0]));
+
+        assertEquals(2, byYear.rank(2008));
+        assertEquals("Catching Fire", byYear.selectValue(3));
+        assertEquals(2008, (int) byYear.select(4));
+
+        TreeMapCursor<Integer, String> cursor = byYear.cursor();
+        int visited = 0;
+        do {
+            assertEquals(expected[visited++], cursor.value());
+        } while (cursor.next());
+        assertEquals(5, visited);
+        while (cursor.previous()) {
+            visited--;
+        }
+        assertEquals(1, visited);
+        assertEquals("The Graveyard Book", byYear.cursorAt(4).value());
+    }
+
+    /**
+     * Tests the putAll() method of the TreeMap.
+     * Checks the bulk build on an empty map, merging into an existing map, and rejection of unsorted input.
+     */
+    @Test
+    public void testPutAllSorted() {
+        int n = 10000;
+        Integer[] keys = new Integer[n];
+        String[] values = new String[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = i * 2;
+            values[i] = "v" + (i * 2);
+        }
+        treeMap.putAll(keys, values, n);
+        assertEquals(n, treeMap.size());
+        assertTrue(treeMap.height() <= 32 - Integer.numberOfLeadingZeros(n));
+        assertEquals("v5000", treeMap.get(5000));
+        assertEquals(2500, treeMap.rank(5000));
+
+        // Inserting after a bulk build must still keep the tree balanced
+        treeMap.put(5001, "odd");
+        assertEquals(2502, treeMap.rank(5002));
+
+        treeMap.putAll(new Integer[] {-1, 4, 20001}, new String[] {"first", "replaced", "last"}, 3);
+        assertEquals(n + 3, treeMap.size());
+        assertEquals(-1, (int) treeMap.firstKey());
+        assertEquals(20001, (int) treeMap.lastKey());
+        assertEquals("replaced", treeMap.get(4));
+
+        TreeMap<Integer, String> byYear = TreeMap.multiValued();
+        byYear.put(2008, "The Hunger Games");
+        byYear.putAll(new Integer[] {1997, 2008, 2008}, new String[] {"Harry Potter", "Catching Fire", "Paper Towns"}, 3);
+        assertArrayEquals(new String[] {"Harry Potter", "The Hunger Games", "Catching Fire", "Paper Towns"},
+                byYear.toValueArray(new String[0]));
+        assertEquals(2, byYear.keyCount());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> treeMap.putAll(new Integer[] {3, 1}, new String[] {"a", "b"}, 2));
+    }
+
+    /**
+     * Tests range counts and range views, including that a view sees later insertions and cannot move past its ends.
+     */
+    @Test
+    public void testRanges() {
+        TreeMap<Integer, String> byYear = TreeMap.multiValued();
+        byYear.put(1985, "Ender's Game");
+        byYear.put(1997, "Harry Potter and the Philosopher's Stone");
+        byYear.put(1990, "Jurassic Park");
+        byYear.put(1999, "Harry Potter and the Prisoner of Azkaban");
+        byYear.put(1990, "The Things They Carried");
+        byYear.put(2008, "The Hunger Games");
+
+        assertEquals(4, byYear.countInRange(1990, true, 1999, true));
+        assertEquals(1, byYear.countInRange(1990, false, 1999, false));
+        assertEquals(0, byYear.countInRange(2000, true, 2007, true));
+        assertThrows(IllegalArgumentException.class, () -> byYear.countInRange(1999, true, 1990, true));
+
+        RankedTreeMapInterface<Integer, String> nineties = byYear.subMap(1990, true, 1999, true);
+        assertEquals(4, nineties.size());
+        assertEquals(1990, (int) nineties.firstKey());
+        assertEquals(1999, (int) nineties.lastKey());
+        assertEquals("The Things They Carried", nineties.selectValue(1));
+        assertEquals(2, nineties.rank(1997));
+        assertNull(nineties.get(1985));
+        assertNull(nineties.floorKey(1989));
+
+        TreeMapCursor<Integer, String> cursor = nineties.cursor();
+        assertEquals("Jurassic Park", cursor.value());
+        assertFalse(cursor.previous());
+        assertTrue(cursor.last());
+        assertFalse(cursor.next());
+        assertEquals(1999, (int) cursor.key());
+
+        byYear.put(1994, "The Giver");
+        assertEquals(5, nineties.size());
+        assertEquals("The Giver", nineties.selectValue(2));
+        assertThrows(IllegalArgumentException.class, () -> nineties.put(2001, "Life of Pi"));
+
+        assertEquals(3, byYear.headMap(1990, true).size());
+        assertEquals(2, byYear.tailMap(1999, true).size());
+        assertEquals(1, nineties.tailMap(1997, false).size());
+        assertEquals(0, nineties.headMap(1990, false).size());
+        assertThrows(IllegalArgumentException.class, () -> nineties.tailMap(2000, true));
+
+        assertThrows(UnsupportedOperationException.class, () -> nineties.clear());
+        assertEquals(5, nineties.size());
+    }
+
+    /**
+     * Tests the shape and lookup statistics, read directly and through the JMX view.
+     */
+    @Test
+    public void testStatistics() {
+        TreeMap<Integer, String> map = new TreeMap<>();
+        for (int i = 1; i <= 7; i++) {
+            map.put(i, "v" + i);
+        }
+        map.put(4, "four");
+        map.get(4);
+        map.get(100);
+
+        assertEquals(1, map.overwriteCount());
+        assertEquals(7, Arrays.stream(map.depthHistogram()).sum());
+        assertEquals(map.height(), map.depthHistogram().length);
+        assertEquals(2, map.lookupCount());
+        assertTrue(map.lookupComparisons() >= 2);
+
+        IndexStats stats = new IndexStats("Number", map, Runnable::run);
+        assertEquals(3, stats.getMinimumHeight());
+        assertFalse(stats.isDegenerate());
+        assertEquals(1, stats.getOverwrittenValues());
+        assertEquals((double) map.lookupComparisons() / 2, stats.getAverageComparisonsPerLookup(), 1e-9);
+
+        TreeMap<String, String> byAuthor = TreeMap.multiValued();
+        byAuthor.put("Rowling", "Harry Potter 1");
+        byAuthor.put("Rowling", "Harry Potter 2");
+        assertEquals(0, byAuthor.overwriteCount());
+    }
+
+    /**
+     * Tests a map ordered by a comparator, including keys it considers equal sharing a bucket.
+     */
+    @Test
+    public void testComparator() {
+        TreeMap<String, String> map = TreeMap.multiValued(String.CASE_INSENSITIVE_ORDER);
+        map.put("banana", "1");
+        map.put("Apple", "2");
+        map.put("apple", "3");
+        map.put("Cherry", "4");
+
+        assertSame(String.CASE_INSENSITIVE_ORDER, map.comparator());
+        assertArrayEquals(new String[]{"Apple", "Apple", "banana", "Cherry"}, map.toKeyArray(new String[0]));
+        assertEquals(Arrays.asList("2", "3"), map.getAll("APPLE"));
+        assertEquals(2, map.rank("Banana"));
+        assertEquals(2, map.subMap("b", true, "d", true).size());
+
+        TreeMap<Integer, String> reversed = new TreeMap<>(Comparator.reverseOrder());
+        for (int i = 1; i <= 5; i++) {
+            reversed.put(i, "v" + i);
+        }
+        assertEquals(Integer.valueOf(5), reversed.firstKey());
+        assertThrows(IllegalArgumentException.class, () -> reversed.putAll(new Integer[]{1, 2}, new String[]{"a", "b"}, 2));
+    }
 }
@@ -0,0 +1,51 @@
+/**
+ * Shape and usage figures for a tree-backed map, for spotting indexes that have become slow.
+ * The counts accumulate from the map's creation; they are plain fields updated by the map's own thread, so a reader
+ * on another thread may see them slightly out of date.
+ */
+public interface TreeStatistics {
+
+    /**
+     * Returns the number of distinct keys, which is the number of nodes in the tree.
+     *
+     * @return the number of nodes.
+     */
+    public int keyCount();
+
+    /**
+     * Returns the height of the tree, counting the root as level 1.
+     *
+     * @return the number of nodes on the longest root-to-leaf path, or 0 for an empty map.
+     */
+    public int height();
+
+    /**
+     * Counts the nodes at each depth of the tree.
+     *
+     * @return an array of length {@link #height()} whose element d is the number of nodes at depth d, with the root
+     *         at depth 0.
+     */
+    public int[] depthHistogram();
+
+    /**
+     * Returns the number of key lookups made: get, containsKey and the other calls that find a single key.
+     *
+     * @return the number of lookups.
+     */
+    public long lookupCount();
+
+    /**
+     * Returns the number of key comparisons made by all lookups together.
+     *
+     * @return the number of comparisons.
+     */
+    public long lookupComparisons();
+
+    /**
+     * Returns the number of values replaced because their key was put again. A multi-valued map keeps every value,
+     * so its count stays 0.
+     *
+     * @return the number of overwritten values.
+     */
+    public long overwriteCount();
+}